@@ -0,0 +1,99 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Shared inputs for the benchmarks: the real data files, synthetic directories scaled up from
+ * them, and responder transcripts of a given length.
+ */
+final class BenchmarkData {
+    /** Responder messages cycled to build transcripts; together they hit most extraction rules. */
+    private static final String[] MESSAGES = {
+        "I'm talking with a caller whose daughter is 16 years old and has been feeling suicidal since the start of the school year.",
+        "They live in Nashville, Davidson County, and have no insurance right now.",
+        "The mom is a single mother with no car, so she can only take the bus.",
+        "The family mostly speaks Spanish at home and the caller is worried about the language barrier.",
+        "Her partner hurt her last week and she says the home has been violent for a while.",
+        "The caller also mentioned drinking problem and that money is tight, they can't afford much.",
+        "She says she is feeling depressed and doesn't know where to go for help.",
+        "Is there anything urgent we should do tonight? She sounds scared."
+    };
+
+    private BenchmarkData() {
+    }
+
+    static QuestionBankManager loadQuestions() throws IOException {
+        return new QuestionBankManager("suicide_question_bank.json");
+    }
+
+    static List<Resource> loadResources() throws IOException {
+        return new ResourceManager("resources_full.json").getAllResources();
+    }
+
+    /**
+     * A directory with every resource repeated {@code scale} times. Copies are deep and get a
+     * numbered name, so name matching and search see distinct resources.
+     */
+    static List<Resource> scaledDirectory(List<Resource> resources, int scale) {
+        if (scale <= 1) {
+            return new ArrayList<>(resources);
+        }
+        Gson gson = new Gson();
+        List<Resource> scaled = new ArrayList<>(resources.size() * scale);
+        scaled.addAll(resources);
+        for (int copy = 2; copy <= scale; copy++) {
+            for (Resource resource : resources) {
+                Resource clone = gson.fromJson(gson.toJson(resource), Resource.class);
+                if (clone.getName() != null) {
+                    clone.setName(clone.getName() + " #" + copy);
+                }
+                scaled.add(clone);
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * The first {@code turns} responder messages (cycling through the sample messages).
+     */
+    static List<String> userMessages(int turns) {
+        List<String> messages = new ArrayList<>(turns);
+        for (int i = 0; i < turns; i++) {
+            messages.add(MESSAGES[i % MESSAGES.length]);
+        }
+        return messages;
+    }
+
+    /**
+     * User messages joined the way the chat service joins them for extraction.
+     */
+    static String transcript(int turns) {
+        return String.join(" ", userMessages(turns));
+    }
+
+    /**
+     * Conversation history before the last of {@code turns} messages, with a short assistant
+     * reply after each user message.
+     */
+    static List<Map<String, String>> history(int turns) {
+        List<Map<String, String>> history = new ArrayList<>();
+        List<String> messages = userMessages(turns);
+        for (int i = 0; i < messages.size() - 1; i++) {
+            history.add(Map.of("role", "user", "content", messages.get(i)));
+            history.add(Map.of("role", "assistant", "content", "Thank you, that helps. What else can you tell me?"));
+        }
+        return history;
+    }
+
+    /**
+     * Discard System.out; the chat service logs every turn, which would dominate the timings.
+     */
+    static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.suicide.questionbank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end ChatService.generateChatResponse in fallback mode (no LLM): transcript analysis,
+ * retrieval, question selection and the rule-based answer. No session id is sent, so every call
+ * analyses the full history, as a client without session support would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatResponseBenchmark {
+    /** Directory size as a multiple of resources_full.json. */
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    /** Number of responder messages in the conversation, including the new one. */
+    @Param({"1", "8", "32"})
+    public int turns;
+
+    private ChatService chatService;
+    private String message;
+    private List<Map<String, String>> history;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.silenceStdout();
+        ResourceManager resourceManager =
+            new ResourceManager(BenchmarkData.scaledDirectory(BenchmarkData.loadResources(), scale));
+        chatService = new ChatService(resourceManager, BenchmarkData.loadQuestions());
+        List<String> messages = BenchmarkData.userMessages(turns);
+        message = messages.get(messages.size() - 1);
+        history = BenchmarkData.history(turns);
+    }
+
+    @Benchmark
+    public ChatService.ChatResponse generateChatResponse() throws IOException {
+        return chatService.generateChatResponse(null, message, history);
+    }
+}
@@ -0,0 +1,50 @@
+package com.suicide.questionbank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Needs and context extraction from responder transcripts of increasing length:
+ * the full-transcript scan used by /api/resources, and the per-turn cost of the
+ * incremental session analysis used by /api/chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+    /** Number of responder messages in the transcript. */
+    @Param({"1", "8", "32"})
+    public int turns;
+
+    private String transcript;
+    private List<String> messages;
+
+    @Setup
+    public void setUp() {
+        transcript = BenchmarkData.transcript(turns);
+        messages = BenchmarkData.userMessages(turns);
+    }
+
+    @Benchmark
+    public SPCchatbotDemo.ExtractedContext extractFullTranscript() {
+        return SPCchatbotDemo.extractNeedsAndContext(transcript);
+    }
+
+    /**
+     * Feed the whole conversation to a fresh session turn by turn, as a first request with
+     * this history would.
+     */
+    @Benchmark
+    public SPCchatbotDemo.ExtractedContext extractIncremental() {
+        ChatSession session = new ChatSession(null, ChatService.QUESTION_KEYWORDS);
+        for (String message : messages) {
+            session.appendUserMessage(message);
+        }
+        return session.getExtractedContext();
+    }
+}
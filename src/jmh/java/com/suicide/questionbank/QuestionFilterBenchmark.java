@@ -0,0 +1,40 @@
+package com.suicide.questionbank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Question bank filtering as used by /api/questions and the chat service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionFilterBenchmark {
+    private QuestionBankManager questionManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        questionManager = BenchmarkData.loadQuestions();
+    }
+
+    @Benchmark
+    public List<Question> filterAll() {
+        return questionManager.filterQuestions(null, null, null, null, null, false);
+    }
+
+    @Benchmark
+    public List<Question> filterCategoryAfterRapport() {
+        return questionManager.filterQuestions("adolescent", null, null, null, null, true);
+    }
+
+    @Benchmark
+    public List<Question> questionsForSituation() {
+        return questionManager.getQuestionsForSituation("recent_suicidal_thoughts", false);
+    }
+}
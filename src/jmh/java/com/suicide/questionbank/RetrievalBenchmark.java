@@ -0,0 +1,64 @@
+package com.suicide.questionbank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource retrieval over the real directory and synthetic directories 10x and 100x its size:
+ * context filtering, scoring with top-K selection, the full getTopResources path, and the
+ * search/filter API of ResourceManager.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetrievalBenchmark {
+    /** Directory size as a multiple of resources_full.json. */
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private ResourceManager resourceManager;
+    private ResourceMatchIndex index;
+    private String transcript;
+    private SPCchatbotDemo.ExtractedContext extracted;
+    private List<ResourceMatchIndex.Entry> filtered;
+
+    @Setup
+    public void setUp() throws IOException {
+        resourceManager = new ResourceManager(BenchmarkData.scaledDirectory(BenchmarkData.loadResources(), scale));
+        index = resourceManager.getMatchIndex();
+        transcript = BenchmarkData.transcript(8);
+        extracted = SPCchatbotDemo.extractNeedsAndContext(transcript);
+        filtered = SPCchatbotDemo.filterEntries(index, extracted.getContext());
+    }
+
+    @Benchmark
+    public List<ResourceMatchIndex.Entry> filterEntries() {
+        return SPCchatbotDemo.filterEntries(index, extracted.getContext());
+    }
+
+    @Benchmark
+    public SPCchatbotDemo.Result scoreAndSelect() {
+        return SPCchatbotDemo.rankFiltered(extracted, index, filtered, SPCchatbotDemo.DEFAULT_TOP_K);
+    }
+
+    @Benchmark
+    public SPCchatbotDemo.Result getTopResources() {
+        return SPCchatbotDemo.getTopResources(transcript, index, SPCchatbotDemo.DEFAULT_TOP_K);
+    }
+
+    @Benchmark
+    public List<Resource> filterResourcesByCategoryAndTerm() {
+        return resourceManager.filterResources("mental", null, "crisis");
+    }
+
+    @Benchmark
+    public List<Resource> searchByName() {
+        return resourceManager.searchByName("center");
+    }
+}
@@ -0,0 +1,363 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays responder conversations against a running chatbot.
+ *
+ * Each conversation is sent turn by turn to /api/chat with its own session id and the history
+ * so far (including the answers received); after a turn, /api/resources may also be asked for
+ * the transcript so far, as the web UI does.
+ *
+ * With an arrival rate, conversations start at exponentially distributed intervals (an open
+ * workload, like independent responders) and at most {@code concurrency} run at once; the rest
+ * wait. The latency of a conversation's first request is measured from when it was due to start,
+ * not from when a worker got to it, so a saturated server shows up as latency instead of being
+ * hidden by the generator slowing down. Without an arrival rate, {@code concurrency} workers
+ * replay conversations back to back (a closed workload).
+ */
+public class LoadGenerator {
+    /** Endpoint names used in the report. */
+    public static final String CHAT = "/api/chat";
+    public static final String RESOURCES = "/api/resources";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(150);
+
+    private final String baseUrl;
+    private final List<List<String>> corpus;
+    private final HttpClient client;
+    private final Gson gson = new Gson();
+
+    /**
+     * @param baseUrl Chatbot URL, e.g. http://localhost:8080
+     * @param corpus Conversations, each a list of responder messages
+     */
+    public LoadGenerator(String baseUrl, List<List<String>> corpus) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.corpus = corpus;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    /**
+     * Read a corpus: one JSON object per line with a {@code "turns"} array of responder messages.
+     * Blank lines and lines starting with {@code #} are ignored.
+     */
+    public static List<List<String>> readCorpus(Reader input) throws IOException {
+        Gson gson = new Gson();
+        List<List<String>> conversations = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(input);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Conversation conversation = gson.fromJson(line, Conversation.class);
+            if (conversation == null || conversation.turns == null || conversation.turns.isEmpty()) {
+                throw new IOException("Conversation without turns on line " + lineNumber);
+            }
+            conversations.add(conversation.turns);
+        }
+        if (conversations.isEmpty()) {
+            throw new IOException("Corpus has no conversations");
+        }
+        return conversations;
+    }
+
+    /**
+     * Read a corpus from a file, or the bundled one when the path is null.
+     */
+    public static List<List<String>> readCorpus(Path path) throws IOException {
+        if (path != null) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                return readCorpus(reader);
+            }
+        }
+        InputStream bundled = LoadGenerator.class.getClassLoader().getResourceAsStream("loadtest/conversations.jsonl");
+        if (bundled == null) {
+            throw new IOException("Bundled corpus loadtest/conversations.jsonl not found");
+        }
+        try (Reader reader = new InputStreamReader(bundled, StandardCharsets.UTF_8)) {
+            return readCorpus(reader);
+        }
+    }
+
+    /**
+     * Run the load and collect latencies.
+     *
+     * @param rate New conversations per second, or 0 for back-to-back replay
+     * @param concurrency Maximum number of conversations in progress
+     * @param warmup Requests finishing in this first period are not recorded
+     * @param duration How long to keep starting conversations after the warmup
+     * @param thinkMillis Pause between the turns of a conversation
+     * @param resourcesShare Probability that a turn is followed by an /api/resources request
+     * @param seed Seed for arrivals, conversation choice and /api/resources sampling
+     */
+    public Report run(double rate, int concurrency, Duration warmup, Duration duration, long thinkMillis,
+                      double resourcesShare, long seed) throws InterruptedException {
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long stopAt = recordFrom + duration.toNanos();
+        Report report = new Report(recordFrom);
+        AtomicInteger nextConversation = new AtomicInteger();
+        Random random = new Random(seed);
+
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "load-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        if (rate > 0) {
+            // Open workload: arrivals follow a Poisson process whatever the server's speed
+            long due = start;
+            while (due < stopAt) {
+                long dueAt = due;
+                long conversationSeed = random.nextLong();
+                workers.execute(() -> replay(nextConversation.getAndIncrement(), dueAt, stopAt,
+                                             thinkMillis, resourcesShare, conversationSeed, report));
+                due += (long) (-Math.log(1 - random.nextDouble()) / rate * 1_000_000_000L);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        } else {
+            // Closed workload: each worker starts its next conversation when the previous one ends
+            for (int w = 0; w < concurrency; w++) {
+                long workerSeed = random.nextLong();
+                workers.execute(() -> {
+                    Random workerRandom = new Random(workerSeed);
+                    while (System.nanoTime() < stopAt) {
+                        replay(nextConversation.getAndIncrement(), System.nanoTime(), stopAt,
+                               thinkMillis, resourcesShare, workerRandom.nextLong(), report);
+                    }
+                });
+            }
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(REQUEST_TIMEOUT.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        report.finish(Math.min(System.nanoTime(), Math.max(stopAt, report.lastCompletion.get())));
+        return report;
+    }
+
+    /**
+     * Replay one conversation; turns that would start after {@code stopAt} are skipped.
+     */
+    private void replay(int number, long dueAt, long stopAt, long thinkMillis, double resourcesShare,
+                        long seed, Report report) {
+        Random random = new Random(seed);
+        List<String> turns = corpus.get(Math.floorMod(number, corpus.size()));
+        String sessionId = "loadtest-" + number + "-" + Long.toHexString(seed);
+        List<Map<String, String>> history = new ArrayList<>();
+        StringBuilder transcript = new StringBuilder();
+
+        long turnStart = dueAt;
+        for (String message : turns) {
+            if (turnStart >= stopAt) {
+                return;
+            }
+            JsonObject body = new JsonObject();
+            body.addProperty("message", message);
+            body.add("history", gson.toJsonTree(history));
+            body.addProperty("sessionId", sessionId);
+            String answer = post(CHAT, body, turnStart, report);
+            if (answer == null) {
+                return;
+            }
+
+            history.add(Map.of("role", "user", "content", message));
+            history.add(Map.of("role", "assistant", "content", answer));
+            transcript.append(transcript.length() > 0 ? " " : "").append(message);
+
+            if (random.nextDouble() < resourcesShare) {
+                JsonObject resources = new JsonObject();
+                resources.addProperty("transcript", transcript.toString());
+                post(RESOURCES, resources, System.nanoTime(), report);
+            }
+
+            if (thinkMillis > 0) {
+                try {
+                    Thread.sleep(thinkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            turnStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Send one request and record its latency from {@code startNanos}.
+     *
+     * @return The chat answer (empty for other endpoints), or null if the request failed
+     */
+    private String post(String endpoint, JsonObject body, long startNanos, Report report) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long end = System.nanoTime();
+            boolean ok = response.statusCode() == 200;
+            report.record(endpoint, startNanos, end, ok ? 0 : response.statusCode());
+            if (!ok) {
+                return null;
+            }
+            if (!CHAT.equals(endpoint)) {
+                return "";
+            }
+            JsonObject json = gson.fromJson(response.body(), JsonObject.class);
+            return json != null && json.has("message") && !json.get("message").isJsonNull()
+                ? json.get("message").getAsString() : "";
+        } catch (IOException | RuntimeException e) {
+            report.record(endpoint, startNanos, System.nanoTime(), -1);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static class Conversation {
+        List<String> turns;
+    }
+
+    /**
+     * Latencies and errors per endpoint.
+     */
+    public static class Report {
+        private final long recordFrom;
+        private final Map<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+        private final AtomicLong lastCompletion = new AtomicLong();
+        private long recordTo;
+
+        Report(long recordFrom) {
+            this.recordFrom = recordFrom;
+        }
+
+        /**
+         * @param status 0 for success, the HTTP status of a failed response, or -1 for an I/O error
+         */
+        void record(String endpoint, long startNanos, long endNanos, int status) {
+            lastCompletion.accumulateAndGet(endNanos, Math::max);
+            if (endNanos < recordFrom) {
+                return;
+            }
+            endpoints.computeIfAbsent(endpoint, k -> new EndpointStats()).record(endNanos - startNanos, status);
+        }
+
+        void finish(long recordTo) {
+            this.recordTo = recordTo;
+        }
+
+        /**
+         * Length of the measured period in seconds (after the warmup).
+         */
+        public double getSeconds() {
+            return Math.max(1, recordTo - recordFrom) / 1e9;
+        }
+
+        public Map<String, EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+
+        /**
+         * Convert to a JSON-friendly map.
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("seconds", getSeconds());
+            Map<String, Object> byEndpoint = new LinkedHashMap<>();
+            endpoints.forEach((name, stats) -> byEndpoint.put(name, stats.toMap(getSeconds())));
+            map.put("endpoints", byEndpoint);
+            return map;
+        }
+    }
+
+    /**
+     * Latencies and errors of one endpoint.
+     */
+    public static class EndpointStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Integer> errors = new TreeMap<>();
+
+        synchronized void record(long latencyNanos, int status) {
+            if (status != 0) {
+                errors.merge(status, 1, Integer::sum);
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        public synchronized int getCount() {
+            return count;
+        }
+
+        public synchronized int getErrorCount() {
+            return errors.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        /**
+         * Latency percentile of the successful requests in milliseconds (nearest rank).
+         */
+        public synchronized double percentileMillis(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return sorted[Math.min(count, Math.max(1, rank)) - 1] / 1e6;
+        }
+
+        synchronized Map<String, Object> toMap(double seconds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", count);
+            map.put("throughputPerSecond", count / seconds);
+            map.put("p50Millis", percentileMillis(50));
+            map.put("p99Millis", percentileMillis(99));
+            map.put("p999Millis", percentileMillis(99.9));
+            map.put("maxMillis", percentileMillis(100));
+            Map<String, Integer> errorMap = new LinkedHashMap<>();
+            errors.forEach((status, n) -> errorMap.put(status < 0 ? "io" : String.valueOf(status), n));
+            map.put("errors", errorMap);
+            return map;
+        }
+    }
+}
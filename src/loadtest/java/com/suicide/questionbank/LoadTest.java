@@ -0,0 +1,168 @@
+package com.suicide.questionbank;
+
+import com.google.gson.GsonBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Load test for /api/chat and /api/resources without a live LLM.
+ *
+ * By default starts a {@link StubLLMServer} and the chatbot itself (on a free port, pointed at
+ * the stub), replays the conversation corpus with a {@link LoadGenerator}, and prints throughput
+ * and p50/p99/p99.9 latency per endpoint. With {@code --target} an already running chatbot is
+ * loaded instead; {@code --stub-only} just runs the stub so a deployed instance can be pointed
+ * at it.
+ *
+ * Options (defaults in brackets):
+ * <pre>
+ *   --rate N               new conversations per second; 0 replays back to back [5]
+ *   --concurrency N        conversations in progress at most [32]
+ *   --duration S           measured seconds [60]
+ *   --warmup S             seconds before measuring starts [10]
+ *   --think-ms N           pause between turns of a conversation [0]
+ *   --resources-share P    probability of an /api/resources call after a turn [0.25]
+ *   --corpus FILE          conversation corpus (JSON lines) [bundled corpus]
+ *   --seed N               random seed [42]
+ *   --json FILE            also write the report as JSON
+ *   --target URL           load a running chatbot instead of starting one
+ *   --stub-only            only run the stub LLM server (until killed)
+ *   --stub-port N          stub port; 0 picks a free one [0]
+ *   --llm-first-token-ms N stub delay before the first token [800]
+ *   --llm-tokens-per-sec N stub token rate [40]
+ *   --llm-tokens N         stub answer length in tokens [120]
+ *   --app-logging          keep the chatbot's per-turn console logging (off by default)
+ *   --app.NAME=VALUE       extra chatbot property, e.g. --app.llm.cache.enabled=false;
+ *                          --app.llm.api.endpoint=... replaces the stub (e.g. with a mock:// endpoint)
+ * </pre>
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--app.") && arg.indexOf('=') > 0) {
+                String property = arg.substring("--app.".length());
+                appProperties.put(property.substring(0, property.indexOf('=')), property.substring(property.indexOf('=') + 1));
+            } else if (arg.equals("--stub-only") || arg.equals("--app-logging")) {
+                options.put(arg.substring(2), "true");
+            } else if (arg.startsWith("--") && i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                System.err.println("Unknown option: " + arg + " (see LoadTest javadoc for options)");
+                System.exit(2);
+            }
+        }
+
+        int stubPort = Integer.parseInt(options.getOrDefault("stub-port", "0"));
+        long firstTokenMillis = Long.parseLong(options.getOrDefault("llm-first-token-ms", "800"));
+        double tokensPerSecond = Double.parseDouble(options.getOrDefault("llm-tokens-per-sec", "40"));
+        int tokens = Integer.parseInt(options.getOrDefault("llm-tokens", "120"));
+
+        if (options.containsKey("stub-only")) {
+            StubLLMServer stub = new StubLLMServer(stubPort, firstTokenMillis, tokensPerSecond, tokens);
+            System.out.println("🔄 Stub LLM listening; set llm.api.endpoint=" + stub.getEndpoint());
+            Thread.currentThread().join();
+            return;
+        }
+
+        List<List<String>> corpus = LoadGenerator.readCorpus(
+            options.containsKey("corpus") ? Paths.get(options.get("corpus")) : null);
+        PrintStream out = System.out;
+
+        StubLLMServer stub = null;
+        ConfigurableApplicationContext app = null;
+        String target = options.get("target");
+        try {
+            if (target == null) {
+                String llmEndpoint = appProperties.get("llm.api.endpoint");
+                if (llmEndpoint == null) {
+                    stub = new StubLLMServer(stubPort, firstTokenMillis, tokensPerSecond, tokens);
+                    llmEndpoint = stub.getEndpoint();
+                    out.println("🔄 Stub LLM at " + llmEndpoint + " (first token " + firstTokenMillis + "ms, " +
+                                tokensPerSecond + " tokens/s, " + tokens + " tokens)");
+                } else {
+                    out.println("🔄 LLM endpoint " + llmEndpoint);
+                }
+                if (!options.containsKey("app-logging")) {
+                    // The chatbot logs every turn to the console, which would throttle it under load
+                    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                }
+                app = startChatbot(llmEndpoint, appProperties);
+                target = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+                out.println("✅ Chatbot started at " + target);
+            }
+
+            double rate = Double.parseDouble(options.getOrDefault("rate", "5"));
+            int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+            Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+            Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+            out.println("🔄 Replaying " + corpus.size() + " conversations against " + target + ": " +
+                        (rate > 0 ? rate + " conversations/s" : "back to back") + ", concurrency " + concurrency +
+                        ", " + warmup.getSeconds() + "s warmup + " + duration.getSeconds() + "s");
+
+            LoadGenerator.Report report = new LoadGenerator(target, corpus).run(
+                rate, concurrency, warmup, duration,
+                Long.parseLong(options.getOrDefault("think-ms", "0")),
+                Double.parseDouble(options.getOrDefault("resources-share", "0.25")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+
+            printReport(out, report);
+            if (stub != null) {
+                out.println("Stub LLM served " + stub.getRequestCount() + " completions");
+            }
+            if (options.containsKey("json")) {
+                Path json = Paths.get(options.get("json"));
+                if (json.getParent() != null) {
+                    Files.createDirectories(json.getParent());
+                }
+                Files.writeString(json, new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues()
+                    .create().toJson(report.toMap()));
+                out.println("📦 Wrote " + json);
+            }
+        } finally {
+            System.setOut(out);
+            if (app != null) {
+                app.close();
+            }
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startChatbot(String llmEndpoint, Map<String, String> appProperties) throws IOException {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("llm.api.key", "loadtest");
+        properties.put("llm.api.endpoint", llmEndpoint);
+        properties.put("data.reload.watch", "false");
+        properties.put("spring.main.banner-mode", "off");
+        // --app.* options replace the defaults above (repeating an argument would join the values)
+        properties.putAll(appProperties);
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return SpringApplication.run(CrisisChatbotApplication.class, args.toArray(new String[0]));
+    }
+
+    private static void printReport(PrintStream out, LoadGenerator.Report report) {
+        out.println();
+        out.println(String.format("%-16s %9s %9s %10s %10s %10s %10s %8s",
+            "Endpoint", "Requests", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "Errors"));
+        report.getEndpoints().forEach((endpoint, stats) -> out.println(String.format(
+            "%-16s %9d %9.1f %10.1f %10.1f %10.1f %10.1f %8d",
+            endpoint, stats.getCount(), stats.getCount() / report.getSeconds(),
+            stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9),
+            stats.percentileMillis(100), stats.getErrorCount())));
+        out.println(String.format("Measured over %.1fs", report.getSeconds()));
+    }
+}
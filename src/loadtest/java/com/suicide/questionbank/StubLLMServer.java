@@ -0,0 +1,160 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal OpenAI-compatible chat completions server for load tests.
+ *
+ * Answers every POST with a canned answer of a fixed number of tokens. The first token is sent
+ * after a configurable latency and the rest at a configurable token rate, so the server behaves
+ * like a slow upstream without costing anything. Requests with {@code "stream": true} get a
+ * server-sent event stream paced token by token; others get one JSON completion once the last
+ * token would have been generated.
+ */
+public class StubLLMServer implements AutoCloseable {
+    private static final String TOKEN = "ok ";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long firstTokenMillis;
+    private final double tokensPerSecond;
+    private final int tokens;
+    private final Gson gson = new Gson();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * Start the server on localhost.
+     *
+     * @param port Port to listen on, or 0 for any free port
+     * @param firstTokenMillis Delay before the first token
+     * @param tokensPerSecond Rate of the remaining tokens (0 or less sends them at once)
+     * @param tokens Number of tokens in every answer
+     */
+    public StubLLMServer(int port, long firstTokenMillis, double tokensPerSecond, int tokens) throws IOException {
+        this.firstTokenMillis = Math.max(0, firstTokenMillis);
+        this.tokensPerSecond = tokensPerSecond;
+        this.tokens = Math.max(1, tokens);
+        // One thread per request: each one mostly sleeps, like a connection waiting on a model
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-llm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Chat completions URL to configure as {@code llm.api.endpoint}.
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    /**
+     * Number of completion requests served so far.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            requests.incrementAndGet();
+            boolean stream;
+            try (InputStream body = exchange.getRequestBody()) {
+                JsonObject request = gson.fromJson(new String(body.readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+                stream = request != null && request.has("stream") && request.get("stream").getAsBoolean();
+            }
+
+            sleep(firstTokenMillis);
+            if (stream) {
+                streamAnswer(exchange);
+            } else {
+                sleep(tokensPerSecond > 0 ? Math.round((tokens - 1) * 1000 / tokensPerSecond) : 0);
+                sendAnswer(exchange);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendAnswer(HttpExchange exchange) throws IOException {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", TOKEN.repeat(tokens).trim());
+        JsonObject choice = new JsonObject();
+        choice.add("message", message);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject completion = new JsonObject();
+        completion.add("choices", choices);
+
+        byte[] body = completion.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void streamAnswer(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < tokens; i++) {
+                if (i > 0) {
+                    sleep(gapMillis());
+                }
+                JsonObject delta = new JsonObject();
+                delta.addProperty("content", TOKEN);
+                JsonObject choice = new JsonObject();
+                choice.add("delta", delta);
+                JsonArray choices = new JsonArray();
+                choices.add(choice);
+                JsonObject chunk = new JsonObject();
+                chunk.add("choices", choices);
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private long gapMillis() {
+        return tokensPerSecond > 0 ? Math.round(1000 / tokensPerSecond) : 0;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
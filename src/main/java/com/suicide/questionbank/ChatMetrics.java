@@ -0,0 +1,228 @@
+package com.suicide.questionbank;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Micrometer meters for the chat pipeline.
+ *
+ * Every stage of a chat turn is timed under {@code chat.stage} with a {@code stage} tag, with a
+ * percentile histogram so per-stage p50/p95/p99 can be computed from a Prometheus scrape
+ * ({@code chat_stage_seconds_bucket}). Failed LLM round-trips are timed as {@code llm_error}, so
+ * fast failures do not pull down the latency of real answers.
+ * Turns answered by the rule-based fallback are counted under {@code chat.fallback} by reason,
+ * {@code llm.calls.in_flight} reports the LLM calls the dispatcher is running and
+ * {@code llm.calls.queued} those waiting for one of its slots.
+ * With several providers ({@link LLMRouter}), each one's moving-average latency and error rate
+ * are gauged by {@code provider}, and hedged calls are counted under {@code llm.hedges}.
+ * {@code llm.circuit.state} reports each provider's circuit breaker (0 closed, 1 half-open, 2 open);
+ * turns it rejected are counted as the {@code circuit_open} fallback reason.
+ */
+public class ChatMetrics {
+    /** Folding the new message into the session transcript (including keyword scanning). */
+    public static final String TRANSCRIPT = "transcript";
+    /** Turning the scanned transcript into needs and context. */
+    public static final String EXTRACT = "extract";
+    /** Filtering the match index by the extracted context. */
+    public static final String FILTER = "filter";
+    /** Scoring, selecting and justifying the top resources. */
+    public static final String SCORE = "score";
+    /** Picking the questions to suggest. */
+    public static final String QUESTIONS = "questions";
+    /** Rendering the system prompt. */
+    public static final String PROMPT = "prompt";
+    /** LLM call, from enqueueing to the full answer. */
+    public static final String LLM = "llm";
+    /** LLM call that failed, from enqueueing to the error. */
+    public static final String LLM_ERROR = "llm_error";
+    /** Composing the rule-based answer. */
+    public static final String FALLBACK = "fallback";
+
+    /** Fallback reasons. */
+    public static final String REASON_QUOTA = "quota";
+    public static final String REASON_UNAUTHORIZED = "unauthorized";
+    public static final String REASON_RATE_LIMIT = "rate_limit";
+    public static final String REASON_TIMEOUT = "timeout";
+    public static final String REASON_QUEUE_FULL = "queue_full";
+    public static final String REASON_NOT_CONFIGURED = "not_configured";
+    public static final String REASON_CIRCUIT_OPEN = "circuit_open";
+    public static final String REASON_ERROR = "error";
+
+    private static final String[] STAGES = {TRANSCRIPT, EXTRACT, FILTER, SCORE, QUESTIONS, PROMPT, LLM, LLM_ERROR, FALLBACK};
+    private static final String[] REASONS = {
+        REASON_QUOTA, REASON_UNAUTHORIZED, REASON_RATE_LIMIT, REASON_TIMEOUT,
+        REASON_QUEUE_FULL, REASON_NOT_CONFIGURED, REASON_CIRCUIT_OPEN, REASON_ERROR
+    };
+
+    /** Provider tag of a single LLM service without a router. */
+    public static final String DEFAULT_PROVIDER = "default";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stageTimers = new HashMap<>();
+    private final Map<String, Counter> fallbacks = new HashMap<>();
+    private final Counter hedges;
+
+    /**
+     * Register the chat meters with a registry.
+     */
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder("chat.stage")
+                .description("Time spent in each stage of a chat turn")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMinutes(3))
+                .register(registry));
+        }
+        for (String reason : REASONS) {
+            fallbacks.put(reason, Counter.builder("chat.fallback")
+                .description("Chat turns answered by the rule-based fallback")
+                .tag("reason", reason)
+                .register(registry));
+        }
+        hedges = Counter.builder("llm.hedges")
+            .description("LLM calls also sent to a second provider because the first was slow")
+            .register(registry);
+    }
+
+    /**
+     * Metrics that record nothing, for services created outside Spring.
+     */
+    public static ChatMetrics none() {
+        // A composite registry without children hands out no-op meters
+        return new ChatMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Start timing a stage.
+     */
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Record the time since {@link #start()} for a stage.
+     */
+    public void stop(Timer.Sample sample, String stage) {
+        sample.stop(stageTimers.get(stage));
+    }
+
+    /**
+     * Record the time since {@link #start()} for an LLM round-trip.
+     */
+    public void stopLLM(Timer.Sample sample, boolean success) {
+        stop(sample, success ? LLM : LLM_ERROR);
+    }
+
+    /**
+     * Count a chat turn answered by the fallback.
+     *
+     * @param reason One of the {@code REASON_*} constants
+     */
+    public void recordFallback(String reason) {
+        Counter counter = fallbacks.get(reason);
+        (counter != null ? counter : fallbacks.get(REASON_ERROR)).increment();
+    }
+
+    /**
+     * Report the LLM calls running and queued as the {@code llm.calls.in_flight} and
+     * {@code llm.calls.queued} gauges.
+     */
+    public void gaugeCalls(LLMService llmService) {
+        Gauge.builder("llm.calls.in_flight", llmService, LLMService::getInFlightCalls)
+            .description("LLM calls running in the HTTP dispatcher")
+            .register(registry);
+        Gauge.builder("llm.calls.queued", llmService, LLMService::getQueuedCalls)
+            .description("LLM calls waiting for a dispatcher slot")
+            .register(registry);
+    }
+
+    /**
+     * Report a routed provider's moving-average latency and error rate.
+     */
+    public void gaugeProvider(LLMRouter.Provider provider) {
+        Gauge.builder("llm.provider.latency", provider, p -> p.getLatencyMillis() / 1000.0)
+            .description("Moving average of the provider's time to first token")
+            .tag("provider", provider.getName())
+            .baseUnit("seconds")
+            .register(registry);
+        Gauge.builder("llm.provider.error.rate", provider, LLMRouter.Provider::getErrorRate)
+            .description("Moving average of the provider's share of failed calls")
+            .tag("provider", provider.getName())
+            .register(registry);
+        if (provider.getService().getCircuitBreaker().isEnabled()) {
+            gaugeCircuitBreaker(provider.getName(), provider.getService().getCircuitBreaker());
+        }
+    }
+
+    /**
+     * Report a circuit breaker's state (0 closed, 1 half-open, 2 open).
+     */
+    public void gaugeCircuitBreaker(String provider, CircuitBreaker circuitBreaker) {
+        Gauge.builder("llm.circuit.state", circuitBreaker, b -> b.getState().getLevel())
+            .description("LLM circuit breaker state: 0 closed, 1 half-open, 2 open")
+            .tag("provider", provider)
+            .register(registry);
+    }
+
+    /**
+     * Count an LLM call that was hedged to a second provider.
+     */
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * Classify why an LLM call failed. API errors are classified by status code; the message is
+     * only inspected for errors that carry no status.
+     */
+    public static String fallbackReason(Throwable e) {
+        if (e instanceof LLMService.ApiException) {
+            LLMService.ApiException api = (LLMService.ApiException) e;
+            switch (api.getStatusCode()) {
+                case 429: return api.isQuotaExhausted() ? REASON_QUOTA : REASON_RATE_LIMIT;
+                case 401:
+                case 403: return REASON_UNAUTHORIZED;
+                default: return REASON_ERROR;
+            }
+        }
+        if (e instanceof LLMService.QueueFullException) {
+            return REASON_QUEUE_FULL;
+        }
+        if (e instanceof LLMService.CircuitOpenException) {
+            return REASON_CIRCUIT_OPEN;
+        }
+        if (e instanceof InterruptedIOException) {
+            // SocketTimeoutException and OkHttp's call timeout
+            return REASON_TIMEOUT;
+        }
+        String message = e.getMessage();
+        if (message == null) {
+            return REASON_ERROR;
+        }
+        // Only OpenAI's error code means the account is out of credit; other 429s are throttling
+        if (message.contains("insufficient_quota")) {
+            return REASON_QUOTA;
+        }
+        if (message.contains("401") || message.contains("Invalid API key")) {
+            return REASON_UNAUTHORIZED;
+        }
+        if (message.contains("429") || message.toLowerCase().contains("rate limit")) {
+            return REASON_RATE_LIMIT;
+        }
+        if (message.toLowerCase().contains("timeout") || message.toLowerCase().contains("timed out")) {
+            return REASON_TIMEOUT;
+        }
+        return REASON_ERROR;
+    }
+}
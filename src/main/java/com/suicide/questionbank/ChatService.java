@@ -1,7 +1,13 @@
 package com.suicide.questionbank;
 
+import io.micrometer.core.instrument.Timer;
+
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service that handles conversational chat using LLM with RAG (Retrieval-Augmented Generation).
@@ -9,16 +15,59 @@ import java.util.*;
  * Falls back to rule-based responses if LLM is not available.
  */
 public class ChatService {
+    /** Sessions idle for longer than this are dropped. */
+    private static final long SESSION_IDLE_MILLIS = 30 * 60 * 1000L;
+    private static final long SESSION_SWEEP_INTERVAL_MILLIS = 60 * 1000L;
+    private static final int MAX_SESSIONS = 10_000;
+    private static final int MAX_SESSION_ID_LENGTH = 128;
+    
+    /**
+     * Keywords used to pick question categories, scanned in a single pass.
+     */
+    static final KeywordScanner QUESTION_KEYWORDS = new KeywordScanner.Builder()
+        .add("suicidal", "suicide", "kill myself", "end my life", "want to die")
+        .add("teen", "adolescent", "young")
+        .add("veteran", "elderly", "senior")
+        .add("depression", "depressed", "sad")
+        .build();
+    
     private final LLMService llmService;
     private final ResourceManager resourceManager;
     private final QuestionBankManager questionManager;
     private final boolean useLLM;
+    private final ResponseCache responseCache;
+    private final ChatMetrics metrics;
+    private final Map<String, ChatSession> sessions = new ConcurrentHashMap<>();
+    private volatile long lastSessionSweep = System.currentTimeMillis();
     
     public ChatService(LLMService llmService, ResourceManager resourceManager, QuestionBankManager questionManager) {
+        this(llmService, resourceManager, questionManager, null);
+    }
+    
+    /**
+     * Create ChatService with a cache for LLM responses.
+     * 
+     * @param responseCache Cache for first-turn LLM responses, or null to always call the LLM
+     */
+    public ChatService(LLMService llmService, ResourceManager resourceManager, QuestionBankManager questionManager,
+                       ResponseCache responseCache) {
+        this(llmService, resourceManager, questionManager, responseCache, ChatMetrics.none());
+    }
+    
+    /**
+     * Create ChatService that records stage timings and fallback reasons.
+     * 
+     * @param responseCache Cache for first-turn LLM responses, or null to always call the LLM
+     * @param metrics Chat pipeline meters
+     */
+    public ChatService(LLMService llmService, ResourceManager resourceManager, QuestionBankManager questionManager,
+                       ResponseCache responseCache, ChatMetrics metrics) {
         this.llmService = llmService;
         this.resourceManager = resourceManager;
         this.questionManager = questionManager;
         this.useLLM = (llmService != null);
+        this.responseCache = responseCache;
+        this.metrics = metrics != null ? metrics : ChatMetrics.none();
     }
     
     /**
@@ -30,56 +79,142 @@ public class ChatService {
     
     /**
      * Generate a chat response using LLM with relevant resources and questions as context.
+     * The full conversation history is analysed from scratch.
      */
     public ChatResponse generateChatResponse(String userMessage, List<Map<String, String>> conversationHistory) throws IOException {
-        // Extract context from user message to find relevant resources
-        String transcript = userMessage;
-        if (conversationHistory != null && !conversationHistory.isEmpty()) {
-            // Build full transcript from conversation history
-            StringBuilder transcriptBuilder = new StringBuilder();
-            for (Map<String, String> msg : conversationHistory) {
-                if ("user".equals(msg.get("role"))) {
-                    transcriptBuilder.append(msg.get("content")).append(" ");
-                }
+        return generateChatResponse(null, userMessage, conversationHistory);
+    }
+    
+    /**
+     * Generate a chat response using LLM with relevant resources and questions as context.
+     * 
+     * @param sessionId Client conversation id. When the session has already seen the user messages
+     *                  in the history, only the new message is analysed. Null analyses the full history.
+     * @param userMessage The responder's new message
+     * @param conversationHistory Previous messages of the conversation
+     */
+    public ChatResponse generateChatResponse(String sessionId, String userMessage, List<Map<String, String>> conversationHistory) throws IOException {
+        PreparedChat chat = prepareChat(sessionId, userMessage, conversationHistory);
+        List<com.suicide.questionbank.Resource> relevantResources = chat.getRelevantResources();
+        List<Question> relevantQuestions = chat.getRelevantQuestions();
+        
+        // Generate response - use LLM if available, otherwise use fallback
+        String response;
+        String cached = getCachedResponse(chat);
+        if (cached != null) {
+            response = cached;
+        } else if (useLLM && llmService != null) {
+            System.out.println("\n🤖 Attempting to use LLM to generate AI-powered response...");
+            try {
+                response = llmService.generateResponseWithContext(
+                    userMessage,
+                    relevantResources,
+                    relevantQuestions,
+                    conversationHistory
+                );
+                System.out.println("✅ LLM response generated successfully (length: " + response.length() + " chars)");
+                System.out.println("✅ Response is AI-generated using OpenAI API\n");
+                cacheResponse(chat, response);
+            } catch (IOException e) {
+                logLLMFailure(e);
+                response = generateFallbackResponse(userMessage, relevantResources, relevantQuestions);
             }
-            transcriptBuilder.append(userMessage);
-            transcript = transcriptBuilder.toString();
+        } else {
+            System.out.println("📝 Using rule-based response (LLM not configured)");
+            metrics.recordFallback(ChatMetrics.REASON_NOT_CONFIGURED);
+            response = generateFallbackResponse(userMessage, relevantResources, relevantQuestions);
         }
         
-        // Get relevant resources using existing SPCchatbotDemo logic
-        List<com.suicide.questionbank.Resource> allResources = resourceManager.getAllResources();
-        List<SPCchatbotDemo.Resource> chatbotResources = convertToChatbotResources(allResources);
-        SPCchatbotDemo.Result result = SPCchatbotDemo.getTopResources(transcript, chatbotResources);
+        return new ChatResponse(response, relevantResources);
+    }
+    
+    /**
+     * Generate a chat response without holding the calling thread while the LLM works.
+     * Context analysis runs on the calling thread; the LLM call is enqueued and the future
+     * completes on an OkHttp dispatcher thread. LLM failures, including a full request queue,
+     * complete the future with the rule-based fallback instead of an error.
+     */
+    public CompletableFuture<ChatResponse> generateChatResponseAsync(String sessionId, String userMessage, 
+                                                                    List<Map<String, String>> conversationHistory) {
+        return generateChatResponseAsync(prepareChat(sessionId, userMessage, conversationHistory));
+    }
+    
+    /**
+     * Generate the answer for a prepared chat turn without holding the calling thread.
+     * 
+     * @see #generateChatResponseAsync(String, String, List)
+     */
+    public CompletableFuture<ChatResponse> generateChatResponseAsync(PreparedChat chat) {
+        String userMessage = chat.getUserMessage();
+        List<Map<String, String>> conversationHistory = chat.getConversationHistory();
+        List<com.suicide.questionbank.Resource> relevantResources = chat.getRelevantResources();
+        List<Question> relevantQuestions = chat.getRelevantQuestions();
         
-        // Convert back to Resource objects
-        List<com.suicide.questionbank.Resource> relevantResources = new ArrayList<>();
-        for (SPCchatbotDemo.TopResource topResource : result.getTopResources()) {
-            // Find matching resource in allResources - try exact match first, then partial
-            String resourceName = topResource.getResource().getName();
-            com.suicide.questionbank.Resource matching = allResources.stream()
-                .filter(r -> r.getName() != null && r.getName().equals(resourceName))
-                .findFirst()
-                .orElse(null);
-            
-            // If exact match fails, try partial match
-            if (matching == null && resourceName != null) {
-                matching = allResources.stream()
-                    .filter(r -> r.getName() != null && 
-                               (r.getName().contains(resourceName) || resourceName.contains(r.getName())))
-                    .findFirst()
-                    .orElse(null);
+        if (!useLLM || llmService == null) {
+            System.out.println("📝 Using rule-based response (LLM not configured)");
+            metrics.recordFallback(ChatMetrics.REASON_NOT_CONFIGURED);
+            return CompletableFuture.completedFuture(new ChatResponse(
+                generateFallbackResponse(userMessage, relevantResources, relevantQuestions), relevantResources));
+        }
+        String cached = getCachedResponse(chat);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ChatResponse(cached, relevantResources));
+        }
+        
+        System.out.println("\n🤖 Attempting to use LLM to generate AI-powered response...");
+        CompletableFuture<String> llmResponse = llmService.generateResponseWithContextAsync(
+            userMessage, relevantResources, relevantQuestions, conversationHistory);
+        CompletableFuture<ChatResponse> result = llmResponse.handle((response, error) -> {
+            if (error == null) {
+                System.out.println("✅ LLM response generated successfully (length: " + response.length() + " chars)");
+                cacheResponse(chat, response);
+                return new ChatResponse(response, relevantResources);
             }
-            
-            if (matching != null) {
-                relevantResources.add(matching);
-            } else {
-                // If still no match, create a resource from the chatbot resource
-                System.out.println("⚠️ Could not find exact match for: " + resourceName);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logLLMFailure(cause instanceof IOException ? (IOException) cause : new IOException(cause));
+            return new ChatResponse(generateFallbackResponse(userMessage, relevantResources, relevantQuestions), relevantResources);
+        });
+        
+        // Abandoning the chat response (e.g. on request timeout) abandons the LLM call
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                llmResponse.cancel(true);
             }
-        }
+        });
+        return result;
+    }
+    
+    /**
+     * Analyse the new message and select the resources and questions to send to the LLM.
+     * This is the fast part of a chat turn; the answer itself is produced by
+     * {@link #generateChatResponse(String, String, List)} or {@link #streamChatResponse(PreparedChat, LLMService.StreamListener)}.
+     */
+    public PreparedChat prepareChat(String sessionId, String userMessage, List<Map<String, String>> conversationHistory) {
+        List<com.suicide.questionbank.Resource> relevantResources;
+        List<Question> relevantQuestions;
+        SPCchatbotDemo.ExtractedContext extracted;
         
-        // Get relevant questions based on extracted context
-        List<Question> relevantQuestions = getRelevantQuestions(transcript);
+        ChatSession session = sessionFor(sessionId);
+        synchronized (session) {
+            Timer.Sample sample = metrics.start();
+            if (!session.isInSyncWith(conversationHistory)) {
+                // New conversation, restarted server or edited history - rebuild from the full history
+                session.reset();
+                session.appendHistory(conversationHistory);
+            }
+            session.appendUserMessage(userMessage);
+            session.touch();
+            metrics.stop(sample, ChatMetrics.TRANSCRIPT);
+            
+            // Get relevant resources and questions based on extracted context
+            sample = metrics.start();
+            extracted = session.getExtractedContext();
+            metrics.stop(sample, ChatMetrics.EXTRACT);
+            relevantResources = findRelevantResources(session, extracted);
+            sample = metrics.start();
+            relevantQuestions = getRelevantQuestions(session.getQuestionHits());
+            metrics.stop(sample, ChatMetrics.QUESTIONS);
+        }
         
         // Log what we're sending to the LLM
         System.out.println("\n═══════════════════════════════════════════════════════════════");
@@ -117,69 +252,273 @@ public class ChatService {
         }
         System.out.println("═══════════════════════════════════════════════════════════════\n");
         
-        // Generate response - use LLM if available, otherwise use fallback
-        String response;
-        if (useLLM && llmService != null) {
-            System.out.println("\n🤖 Attempting to use LLM to generate AI-powered response...");
-            try {
-                response = llmService.generateResponseWithContext(
-                    userMessage,
-                    relevantResources,
-                    relevantQuestions,
-                    conversationHistory
-                );
-                System.out.println("✅ LLM response generated successfully (length: " + response.length() + " chars)");
-                System.out.println("✅ Response is AI-generated using OpenAI API\n");
-            } catch (IOException e) {
-                String errorMsg = e.getMessage();
-                System.err.println("\n❌ LLM API call failed, using helpful fallback response");
-                System.err.println("   Error: " + errorMsg);
+        return new PreparedChat(userMessage, conversationHistory, extracted, relevantResources, relevantQuestions);
+    }
+    
+    /**
+     * Look up a cached LLM response for the chat turn.
+     * Only opening turns are cached: later answers depend on the conversation so far.
+     */
+    private String getCachedResponse(PreparedChat chat) {
+        String key = cacheKey(chat);
+        if (key == null) {
+            return null;
+        }
+        String cached = responseCache.get(key);
+        if (cached != null) {
+            System.out.println("♻️ Serving cached LLM response for an identical retrieval result");
+        }
+        return cached;
+    }
+    
+    private void cacheResponse(PreparedChat chat, String response) {
+        String key = cacheKey(chat);
+        if (key != null) {
+            responseCache.put(key, response);
+        }
+    }
+    
+    private String cacheKey(PreparedChat chat) {
+        if (responseCache == null || !useLLM || 
+            (chat.getConversationHistory() != null && !chat.getConversationHistory().isEmpty())) {
+            return null;
+        }
+        return ResponseCache.keyFor(chat.getUserMessage(), chat.getExtractedContext(),
+                                    chat.getRelevantResources(), chat.getRelevantQuestions());
+    }
+    
+    /**
+     * Get the LLM response cache, or null if caching is disabled.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Drop everything derived from the previous question bank and resource directory.
+     * Rebuilds the LLM prompt template and clears cached responses, which name resources that
+     * may have changed. Session rankings are keyed to the match index they were computed with,
+     * so they are recomputed on their next turn without being cleared here.
+     */
+    public void onDataReloaded() {
+        if (llmService != null) {
+            llmService.setPromptTemplate(PromptTemplate.build(
+                resourceManager.getAllResources(), questionManager.getAllQuestions()));
+        }
+        if (responseCache != null) {
+            responseCache.clear();
+        }
+    }
+
+    /**
+     * Stream the answer for a prepared chat turn.
+     * Tokens are relayed as the LLM produces them. If the LLM is not configured, or fails before
+     * sending anything, the rule-based fallback is delivered as a single token instead.
+     * 
+     * @return A handle to cancel the LLM stream, or null when the fallback or a cached response was used
+     */
+    public LLMService.StreamHandle streamChatResponse(PreparedChat chat, LLMService.StreamListener listener) {
+        if (!useLLM || llmService == null) {
+            System.out.println("📝 Using rule-based response (LLM not configured)");
+            metrics.recordFallback(ChatMetrics.REASON_NOT_CONFIGURED);
+            streamFallback(chat, listener);
+            return null;
+        }
+        String cached = getCachedResponse(chat);
+        if (cached != null) {
+            listener.onToken(cached);
+            listener.onComplete(cached);
+            return null;
+        }
+        
+        System.out.println("\n🤖 Attempting to stream AI-powered response from LLM...");
+        AtomicBoolean tokensSent = new AtomicBoolean(false);
+        return llmService.streamResponseWithContext(
+            chat.getUserMessage(),
+            chat.getRelevantResources(),
+            chat.getRelevantQuestions(),
+            chat.getConversationHistory(),
+            new LLMService.StreamListener() {
+                @Override
+                public void onToken(String token) {
+                    tokensSent.set(true);
+                    listener.onToken(token);
+                }
+                
+                @Override
+                public void onComplete(String fullResponse) {
+                    System.out.println("✅ LLM response streamed successfully (length: " + fullResponse.length() + " chars)");
+                    cacheResponse(chat, fullResponse);
+                    listener.onComplete(fullResponse);
+                }
                 
-                // Check for specific error types and provide helpful messages
-                if (errorMsg != null) {
-                    if (errorMsg.contains("insufficient_quota") || errorMsg.contains("429") || errorMsg.contains("quota")) {
-                        System.err.println("⚠️ OpenAI quota exceeded or no credits available.");
-                        System.err.println("   → Add billing: https://platform.openai.com/account/billing");
-                        System.err.println("   → Once billing is added, LLM will work automatically!");
-                    } else if (errorMsg.contains("401") || errorMsg.contains("Invalid API key")) {
-                        System.err.println("⚠️ Invalid API key! Check your API key in application.properties or environment variables.");
-                    } else if (errorMsg.contains("rate limit")) {
-                        System.err.println("⚠️ Rate limit exceeded. Please wait a moment and try again.");
+                @Override
+                public void onError(IOException e) {
+                    if (tokensSent.get()) {
+                        // Part of the answer is already on screen - report rather than mix in the fallback
+                        System.err.println("\n❌ LLM stream failed mid-response: " + e.getMessage());
+                        listener.onError(e);
                     } else {
-                        System.err.println("⚠️ API error. Check your OpenAI account status.");
+                        logLLMFailure(e);
+                        streamFallback(chat, listener);
                     }
                 }
+            });
+    }
+    
+    /**
+     * Answer a prepared chat turn with the rule-based fallback because the LLM did not answer
+     * before the request timed out. The resources already selected for the turn are kept.
+     */
+    public ChatResponse timeoutResponse(PreparedChat chat) {
+        System.out.println("📝 LLM response timed out - using rule-based fallback response");
+        metrics.recordFallback(ChatMetrics.REASON_TIMEOUT);
+        return new ChatResponse(generateFallbackResponse(
+            chat.getUserMessage(), chat.getRelevantResources(), chat.getRelevantQuestions()), chat.getRelevantResources());
+    }
+    
+    private void streamFallback(PreparedChat chat, LLMService.StreamListener listener) {
+        String response = generateFallbackResponse(
+            chat.getUserMessage(), chat.getRelevantResources(), chat.getRelevantQuestions());
+        listener.onToken(response);
+        listener.onComplete(response);
+    }
+    
+    /**
+     * Log why the LLM call failed before falling back to the rule-based response.
+     */
+    private void logLLMFailure(IOException e) {
+        String reason = ChatMetrics.fallbackReason(e);
+        metrics.recordFallback(reason);
+        if (e instanceof LLMService.CircuitOpenException) {
+            // Expected while the upstream is down; the breaker already logged why it opened
+            System.out.println("📝 " + e.getMessage() + " - using rule-based fallback response\n");
+            return;
+        }
+        String errorMsg = e.getMessage();
+        System.err.println("\n❌ LLM API call failed, using helpful fallback response");
+        System.err.println("   Error: " + errorMsg);
+        
+        // Check for specific error types and provide helpful messages
+        if (ChatMetrics.REASON_QUOTA.equals(reason)) {
+            System.err.println("⚠️ OpenAI quota exceeded or no credits available.");
+            System.err.println("   → Add billing: https://platform.openai.com/account/billing");
+            System.err.println("   → Once billing is added, LLM will work automatically!");
+        } else if (ChatMetrics.REASON_UNAUTHORIZED.equals(reason)) {
+            System.err.println("⚠️ Invalid API key! Check your API key in application.properties or environment variables.");
+        } else if (ChatMetrics.REASON_RATE_LIMIT.equals(reason)) {
+            System.err.println("⚠️ Rate limit exceeded. Please wait a moment and try again.");
+        } else if (errorMsg != null) {
+            System.err.println("⚠️ API error. Check your OpenAI account status.");
+        }
+        
+        System.out.println("📝 Using rule-based fallback response (still helpful, but not AI-generated)\n");
+    }
+    
+    /**
+     * Get the session for a client conversation id, or a throwaway session when there is none.
+     */
+    private ChatSession sessionFor(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty() || sessionId.length() > MAX_SESSION_ID_LENGTH) {
+            return new ChatSession(null, QUESTION_KEYWORDS);
+        }
+        evictIdleSessions();
+        ChatSession session = sessions.get(sessionId);
+        if (session == null) {
+            if (sessions.size() >= MAX_SESSIONS) {
+                return new ChatSession(null, QUESTION_KEYWORDS);
+            }
+            session = sessions.computeIfAbsent(sessionId, id -> new ChatSession(id, QUESTION_KEYWORDS));
+        }
+        return session;
+    }
+    
+    /**
+     * Drop sessions that have been idle too long (at most once per sweep interval).
+     */
+    private void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        if (now - lastSessionSweep < SESSION_SWEEP_INTERVAL_MILLIS) {
+            return;
+        }
+        lastSessionSweep = now;
+        sessions.values().removeIf(s -> now - s.getLastAccessMillis() > SESSION_IDLE_MILLIS);
+    }
+    
+    /**
+     * Get relevant resources for the session's extracted context.
+     * The previous ranking is reused when the context has not changed since the last turn.
+     */
+    private List<com.suicide.questionbank.Resource> findRelevantResources(ChatSession session,
+                                                                          SPCchatbotDemo.ExtractedContext extracted) {
+        ResourceMatchIndex index = resourceManager.getMatchIndex();
+        List<com.suicide.questionbank.Resource> cached = session.getCachedResources(extracted, index);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Get relevant resources using existing SPCchatbotDemo logic on the precompiled match index
+        Timer.Sample sample = metrics.start();
+        List<ResourceMatchIndex.Entry> filtered = SPCchatbotDemo.filterEntries(index, extracted.getContext());
+        metrics.stop(sample, ChatMetrics.FILTER);
+        sample = metrics.start();
+        SPCchatbotDemo.Result result = SPCchatbotDemo.rankFiltered(extracted, index, filtered, SPCchatbotDemo.DEFAULT_TOP_K);
+        
+        // Convert back to Resource objects
+        List<com.suicide.questionbank.Resource> relevantResources = new ArrayList<>();
+        for (SPCchatbotDemo.TopResource topResource : result.getTopResources()) {
+            com.suicide.questionbank.Resource matching = topResource.getSourceResource();
+            
+            // Synthesized entries (e.g. emergency numbers) have no source - look them up by name
+            String resourceName = topResource.getResource().getName();
+            if (matching == null && resourceName != null) {
+                List<com.suicide.questionbank.Resource> allResources = resourceManager.getAllResources();
+                matching = allResources.stream()
+                    .filter(r -> r.getName() != null && r.getName().equals(resourceName))
+                    .findFirst()
+                    .orElse(null);
                 
-                System.out.println("📝 Using rule-based fallback response (still helpful, but not AI-generated)\n");
-                response = generateFallbackResponse(userMessage, relevantResources, relevantQuestions, transcript);
+                // If exact match fails, try partial match
+                if (matching == null) {
+                    matching = allResources.stream()
+                        .filter(r -> r.getName() != null && 
+                                   (r.getName().contains(resourceName) || resourceName.contains(r.getName())))
+                        .findFirst()
+                        .orElse(null);
+                }
+            }
+            
+            if (matching != null) {
+                relevantResources.add(matching);
+            } else {
+                // If still no match, create a resource from the chatbot resource
+                System.out.println("⚠️ Could not find exact match for: " + resourceName);
             }
-        } else {
-            System.out.println("📝 Using rule-based response (LLM not configured)");
-            response = generateFallbackResponse(userMessage, relevantResources, relevantQuestions, transcript);
         }
         
-        return new ChatResponse(response, relevantResources);
+        List<com.suicide.questionbank.Resource> resources = Collections.unmodifiableList(relevantResources);
+        metrics.stop(sample, ChatMetrics.SCORE);
+        session.cacheResources(extracted, index, resources);
+        return resources;
     }
     
     /**
-     * Get relevant questions based on transcript context.
+     * Get relevant questions based on the keywords found in the transcript.
      */
-    private List<Question> getRelevantQuestions(String transcript) {
+    private List<Question> getRelevantQuestions(KeywordScanner.Hits hits) {
         List<Question> questions = new ArrayList<>();
-        String lc = transcript.toLowerCase();
         
         // Determine category based on keywords
         String category = null;
-        if (lc.contains("suicidal") || lc.contains("suicide") || lc.contains("kill myself") || 
-            lc.contains("end my life") || lc.contains("want to die")) {
+        if (hits.containsAny("suicidal", "suicide", "kill myself", "end my life", "want to die")) {
             category = "attempt_in_progress";
-        } else if (lc.contains("teen") || lc.contains("adolescent") || lc.contains("young")) {
+        } else if (hits.containsAny("teen", "adolescent", "young")) {
             category = "adolescent";
-        } else if (lc.contains("veteran")) {
+        } else if (hits.contains("veteran")) {
             category = "veteran";
-        } else if (lc.contains("elderly") || lc.contains("senior")) {
+        } else if (hits.containsAny("elderly", "senior")) {
             category = "elderly";
-        } else if (lc.contains("depression") || lc.contains("depressed") || lc.contains("sad")) {
+        } else if (hits.containsAny("depression", "depressed", "sad")) {
             // For general mental health, get questions from multiple categories
             questions = questionManager.getQuestionsForSituation("recent_suicidal_thoughts", false);
             if (questions.size() > 2) {
@@ -206,43 +545,6 @@ public class ChatService {
         return questions;
     }
     
-    /**
-     * Convert Resource objects to SPCchatbotDemo.Resource format.
-     */
-    private List<SPCchatbotDemo.Resource> convertToChatbotResources(
-            List<com.suicide.questionbank.Resource> resources) {
-        List<SPCchatbotDemo.Resource> chatbotResources = new ArrayList<>();
-        
-        for (com.suicide.questionbank.Resource r : resources) {
-            SPCchatbotDemo.Resource cr = new SPCchatbotDemo.Resource();
-            cr.setName(r.getName());
-            cr.setDescription(r.getDescription());
-            
-            if (r.getCategories() != null && !r.getCategories().isEmpty()) {
-                cr.setCategory(String.join(", ", r.getCategories()));
-            }
-            
-            if (r.getServiceArea() != null && r.getServiceArea().getAreasCovered() != null) {
-                cr.setServiceArea(String.join(", ", r.getServiceArea().getAreasCovered()));
-            }
-            
-            if (r.getEligibility() != null) {
-                cr.setEligibility(r.getEligibility().getGeneral());
-            }
-            
-            cr.setCost(r.getFees());
-            cr.setHours(r.getHours());
-            
-            if (r.getLanguagesOffered() != null && !r.getLanguagesOffered().isEmpty()) {
-                cr.setLanguage(String.join(", ", r.getLanguagesOffered()));
-            }
-            
-            chatbotResources.add(cr);
-        }
-        
-        return chatbotResources;
-    }
-    
     /**
      * Generate a conversational response without LLM using rule-based templates.
      * Creates natural-sounding responses based on resources and questions.
@@ -250,9 +552,9 @@ public class ChatService {
     private String generateFallbackResponse(
             String userMessage,
             List<com.suicide.questionbank.Resource> relevantResources,
-            List<Question> relevantQuestions,
-            String transcript) {
+            List<Question> relevantQuestions) {
         
+        Timer.Sample sample = metrics.start();
         StringBuilder response = new StringBuilder();
         String lc = userMessage.toLowerCase();
         
@@ -329,9 +631,51 @@ public class ChatService {
         response.append("\n\nRemember, reaching out for help is a sign of strength, not weakness. ");
         response.append("You deserve support, and there are people who want to help you through this.");
         
+        metrics.stop(sample, ChatMetrics.FALLBACK);
         return response.toString();
     }
     
+    /**
+     * A chat turn whose context has been analysed and is ready for the LLM.
+     */
+    public static class PreparedChat {
+        private final String userMessage;
+        private final List<Map<String, String>> conversationHistory;
+        private final SPCchatbotDemo.ExtractedContext extractedContext;
+        private final List<com.suicide.questionbank.Resource> relevantResources;
+        private final List<Question> relevantQuestions;
+        
+        public PreparedChat(String userMessage, List<Map<String, String>> conversationHistory,
+                            SPCchatbotDemo.ExtractedContext extractedContext,
+                            List<com.suicide.questionbank.Resource> relevantResources, List<Question> relevantQuestions) {
+            this.userMessage = userMessage;
+            this.conversationHistory = conversationHistory;
+            this.extractedContext = extractedContext;
+            this.relevantResources = relevantResources;
+            this.relevantQuestions = relevantQuestions;
+        }
+        
+        public String getUserMessage() {
+            return userMessage;
+        }
+        
+        public List<Map<String, String>> getConversationHistory() {
+            return conversationHistory;
+        }
+        
+        public SPCchatbotDemo.ExtractedContext getExtractedContext() {
+            return extractedContext;
+        }
+        
+        public List<com.suicide.questionbank.Resource> getRelevantResources() {
+            return relevantResources;
+        }
+        
+        public List<Question> getRelevantQuestions() {
+            return relevantQuestions;
+        }
+    }
+    
     /**
      * Response object for chat messages.
      */
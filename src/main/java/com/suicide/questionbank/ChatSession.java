@@ -0,0 +1,213 @@
+package com.suicide.questionbank;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side analysis state for one responder conversation.
+ * Folds each new user message into resumable keyword scans instead of re-concatenating and
+ * re-scanning the whole history, so a turn costs O(new message) rather than O(transcript).
+ * The ranked resources are cached and handed back while the extracted context is unchanged.
+ *
+ * Instances are not thread-safe; callers synchronize on the session.
+ */
+public class ChatSession {
+    /** Transcript characters kept for an age phrase that straddles the next message boundary. */
+    private static final int AGE_TAIL_CHARS = 32;
+    private static final long HASH_OFFSET = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    private final String id;
+    private final KeywordScanner questionScanner;
+    private KeywordScanner.State needScan;
+    private KeywordScanner.State questionScan;
+    private StringBuilder ageTail;
+    private Integer age;
+    private int userMessageCount;
+    private long userMessageHash;
+    private volatile long lastAccessMillis;
+
+    private SPCchatbotDemo.ExtractedContext rankedContext;
+    private ResourceMatchIndex rankedIndex;
+    private List<Resource> rankedResources;
+
+    /**
+     * Create an empty session.
+     *
+     * @param id Client-supplied session id, or null for a one-off analysis
+     * @param questionScanner Scanner over the keywords ChatService uses to pick questions
+     */
+    public ChatSession(String id, KeywordScanner questionScanner) {
+        this.id = id;
+        this.questionScanner = questionScanner;
+        this.lastAccessMillis = System.currentTimeMillis();
+        reset();
+    }
+
+    /**
+     * Forget everything folded so far, e.g. when the client history no longer matches.
+     */
+    public void reset() {
+        this.needScan = SPCchatbotDemo.keywordScanner().newState();
+        this.questionScan = questionScanner.newState();
+        this.ageTail = new StringBuilder();
+        this.age = null;
+        this.userMessageCount = 0;
+        this.userMessageHash = HASH_OFFSET;
+        this.rankedContext = null;
+        this.rankedIndex = null;
+        this.rankedResources = null;
+    }
+
+    /**
+     * Check whether this session has folded exactly the user messages in the given history,
+     * so the next message can be appended incrementally.
+     * Compares a rolling hash over every user message, so an edit to any earlier turn is detected.
+     */
+    public boolean isInSyncWith(List<Map<String, String>> conversationHistory) {
+        int count = 0;
+        long hash = HASH_OFFSET;
+        if (conversationHistory != null) {
+            for (Map<String, String> msg : conversationHistory) {
+                if ("user".equals(msg.get("role"))) {
+                    count++;
+                    hash = foldHash(hash, String.valueOf(msg.get("content")));
+                }
+            }
+        }
+        return count == userMessageCount && hash == userMessageHash;
+    }
+
+    /**
+     * Fold one message into a 64-bit FNV-1a hash, followed by a separator so message
+     * boundaries count ("ab", "c" differs from "a", "bc").
+     */
+    private static long foldHash(long hash, String message) {
+        for (int i = 0; i < message.length(); i++) {
+            hash = (hash ^ message.charAt(i)) * HASH_PRIME;
+        }
+        return (hash ^ 0xFFFF) * HASH_PRIME;
+    }
+
+    /**
+     * Fold every user message of a history into the session.
+     */
+    public void appendHistory(List<Map<String, String>> conversationHistory) {
+        if (conversationHistory == null) {
+            return;
+        }
+        for (Map<String, String> msg : conversationHistory) {
+            if ("user".equals(msg.get("role"))) {
+                appendUserMessage(String.valueOf(msg.get("content")));
+            }
+        }
+    }
+
+    /**
+     * Fold one user message into the transcript analysis.
+     * Messages are joined with a single space, matching the transcript ChatService used to build.
+     */
+    public void appendUserMessage(String message) {
+        String lc = message.toLowerCase();
+        int boundary = ageTail.length();
+        if (userMessageCount > 0) {
+            feed(" ");
+        }
+        feed(lc);
+        userMessageCount++;
+        userMessageHash = foldHash(userMessageHash, message);
+
+        // The earlier transcript held no stated age, so the first one must end in the new text
+        KeywordScanner.Hits hits = needScan.hits();
+        if (age == null && SPCchatbotDemo.mayStateAge(hits)) {
+            age = SPCchatbotDemo.findAge(ageTail, ageSearchStart(boundary));
+        }
+        if (age != null) {
+            ageTail.setLength(0);
+        } else if (ageTail.length() > AGE_TAIL_CHARS) {
+            ageTail.delete(0, ageTail.length() - AGE_TAIL_CHARS);
+        }
+    }
+
+    private void feed(String lc) {
+        if (age == null) {
+            ageTail.append(lc);
+        }
+        SPCchatbotDemo.keywordScanner().feed(needScan, lc);
+        questionScanner.feed(questionScan, lc);
+    }
+
+    /**
+     * Earliest offset at which an age phrase ("16 years old", "9yo") could start if it straddles
+     * the boundary: back over a partial "years ol", any whitespace run, then up to two digits.
+     * Only the last AGE_TAIL_CHARS characters before the boundary are kept, which covers that
+     * reach unless the whitespace run alone is longer.
+     */
+    private int ageSearchStart(int boundary) {
+        int start = boundary;
+        int partial = 0;
+        while (start > 0 && partial < 8 && isAgePhraseChar(ageTail.charAt(start - 1))) {
+            start--;
+            partial++;
+        }
+        while (start > 0 && Character.isWhitespace(ageTail.charAt(start - 1))) {
+            start--;
+        }
+        return Math.max(0, start - 2);
+    }
+
+    private static boolean isAgePhraseChar(char c) {
+        return c == ' ' || (c >= 'a' && c <= 'z');
+    }
+
+    /**
+     * Needs and context extracted from all user messages so far.
+     */
+    public SPCchatbotDemo.ExtractedContext getExtractedContext() {
+        return SPCchatbotDemo.buildContext(needScan.hits(), age);
+    }
+
+    /**
+     * Keywords found so far by the question scanner.
+     */
+    public KeywordScanner.Hits getQuestionHits() {
+        return questionScan.hits();
+    }
+
+    /**
+     * Get the cached ranking if it was computed for an equal context on the same index.
+     *
+     * @return The cached resources, or null when they have to be recomputed
+     */
+    public List<Resource> getCachedResources(SPCchatbotDemo.ExtractedContext context, ResourceMatchIndex index) {
+        if (rankedResources != null && rankedIndex == index && context.equals(rankedContext)) {
+            return rankedResources;
+        }
+        return null;
+    }
+
+    /**
+     * Remember the ranking computed for a context.
+     */
+    public void cacheResources(SPCchatbotDemo.ExtractedContext context, ResourceMatchIndex index, List<Resource> resources) {
+        this.rankedContext = context;
+        this.rankedIndex = index;
+        this.rankedResources = resources;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getUserMessageCount() {
+        return userMessageCount;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public void touch() {
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+}
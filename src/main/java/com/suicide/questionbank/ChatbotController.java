@@ -1,17 +1,33 @@
 package com.suicide.questionbank;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * REST controller for the crisis chatbot web interface.
@@ -19,18 +35,55 @@ import java.util.Map;
 @Controller
 public class ChatbotController {
     
+    /** Upper bound for the per-request number of ranked resources. */
+    private static final int MAX_TOP_K = 50;
+    
+    /** Default and maximum number of typeahead suggestions. */
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+    
+    /** Default and maximum page size of a paginated resource search. */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    /** How long a reload request waits before answering that the reload is still running. */
+    private static final long RELOAD_TIMEOUT_MILLIS = 120_000L;
+    
     private QuestionBankManager questionManager;
     private ResourceManager resourceManager;
     private ChatService chatService;
+    private volatile StatisticsSnapshot statisticsSnapshot;
+    private DataReloader dataReloader;
+    private final String adminToken;
+    /** How long a chat answer (streamed or not) may take; derived from the LLM call timeout. */
+    private final long responseTimeoutMillis;
     
     @Autowired
     public ChatbotController(
             @Value("${llm.api.key:}") String llmApiKey,
             @Value("${llm.api.endpoint:https://api.openai.com/v1/chat/completions}") String llmEndpoint,
-            @Value("${llm.model:gpt-3.5-turbo}") String llmModel) {
+            @Value("${llm.model:gpt-3.5-turbo}") String llmModel,
+            LLMClientConfig llmClientConfig,
+            LLMRouterConfig llmRouterConfig,
+            @Value("${llm.cache.enabled:true}") boolean llmCacheEnabled,
+            @Value("${llm.cache.max-entries:1000}") int llmCacheMaxEntries,
+            @Value("${llm.cache.ttl-seconds:3600}") long llmCacheTtlSeconds,
+            @Value("${data.reload.watch:true}") boolean watchDataFiles,
+            @Value("${data.reload.debounce-ms:500}") long reloadDebounceMillis,
+            @Value("${admin.token:}") String adminToken,
+            @Value("${data.snapshot.dir:data-snapshots}") String snapshotDir,
+            MeterRegistry meterRegistry) {
+        this.adminToken = adminToken != null ? adminToken.trim() : "";
+        this.responseTimeoutMillis = llmClientConfig.getResponseTimeoutMillis();
+        ChatMetrics chatMetrics = new ChatMetrics(meterRegistry);
         try {
-            this.questionManager = new QuestionBankManager("suicide_question_bank.json");
-            this.resourceManager = new ResourceManager("resources_full.json");
+            // Binary snapshots of the parsed JSON make restarts skip parsing (empty dir disables them)
+            Path snapshots = snapshotDir != null && !snapshotDir.trim().isEmpty() ? Paths.get(snapshotDir.trim()) : null;
+            this.questionManager = new QuestionBankManager("suicide_question_bank.json",
+                snapshots != null ? snapshots.resolve("suicide_question_bank.snapshot") : null);
+            this.resourceManager = new ResourceManager("resources_full.json",
+                snapshots != null ? snapshots.resolve("resources_full.snapshot") : null);
+            refreshStatistics();
             
             // Initialize LLM service if API key is provided
             System.out.println("Checking LLM configuration...");
@@ -39,32 +92,73 @@ public class ChatbotController {
             System.out.println("  Endpoint: " + llmEndpoint);
             System.out.println("  Model: " + llmModel);
             
-            if (llmApiKey != null && !llmApiKey.trim().isEmpty() && !llmApiKey.equals("YOUR_OPENAI_API_KEY_HERE")) {
+            // The embedded mock backend (llm.api.endpoint=mock://...) needs no key
+            if (MockLLMBackend.isMockEndpoint(llmEndpoint)) {
+                System.out.println("🔄 Using the embedded mock LLM backend: " + llmEndpoint);
+                if (llmApiKey == null || llmApiKey.trim().isEmpty()) {
+                    llmApiKey = "not-needed";
+                }
+            }
+            
+            // Several providers (llm.router.providers) take precedence over the single llm.api.* one
+            boolean routing = llmRouterConfig.isEnabled();
+            if (routing) {
+                System.out.println("  Routing over providers: " + String.join(", ", llmRouterConfig.getProviderNames()));
+            }
+            
+            if (routing || (llmApiKey != null && !llmApiKey.trim().isEmpty() && !llmApiKey.equals("YOUR_OPENAI_API_KEY_HERE"))) {
                 try {
-                    LLMService llmService = new LLMService(llmApiKey, llmEndpoint, llmModel);
-                    this.chatService = new ChatService(llmService, resourceManager, questionManager);
+                    LLMService llmService = routing
+                        ? llmRouterConfig.buildRouter(llmClientConfig)
+                        : new LLMService(llmApiKey, llmEndpoint, llmModel, false, null, llmClientConfig);
+                    llmService.setPromptTemplate(PromptTemplate.build(
+                        resourceManager.getAllResources(), questionManager.getAllQuestions()));
+                    llmService.setMetrics(chatMetrics);
+                    ResponseCache responseCache = llmCacheEnabled
+                        ? new ResponseCache(llmCacheMaxEntries, llmCacheTtlSeconds * 1000)
+                        : null;
+                    this.chatService = new ChatService(llmService, resourceManager, questionManager, responseCache, chatMetrics);
                     System.out.println("✅ LLM service enabled - using AI-powered responses.");
+                    if (responseCache != null) {
+                        System.out.println("✅ LLM response cache enabled (" + llmCacheMaxEntries + " entries, " + 
+                                           llmCacheTtlSeconds + "s TTL).");
+                    }
                     System.out.println("✅ Ready to use OpenAI API. When you add billing, responses will be AI-generated.");
                     System.out.println("✅ Until then, the system will use helpful rule-based fallback responses.");
                 } catch (Exception e) {
                     System.err.println("❌ Error creating LLM service: " + e.getMessage());
                     e.printStackTrace();
-                    this.chatService = new ChatService(resourceManager, questionManager);
+                    this.chatService = new ChatService(null, resourceManager, questionManager, null, chatMetrics);
                     System.out.println("⚠️ Falling back to rule-based responses due to LLM initialization error.");
                     System.out.println("⚠️ This is normal if your API key has quota issues. Add billing to enable LLM.");
                 }
             } else {
                 // Use fallback mode - rule-based conversational responses
-                this.chatService = new ChatService(resourceManager, questionManager);
+                this.chatService = new ChatService(null, resourceManager, questionManager, null, chatMetrics);
                 System.out.println("⚠️ LLM API key not configured. Using rule-based conversational responses.");
                 System.out.println("Set 'llm.api.key' in application.properties or as environment variable to enable AI-powered responses.");
             }
+            
+            this.dataReloader = new DataReloader(questionManager, resourceManager, this::onDataReloaded, reloadDebounceMillis);
+            if (watchDataFiles && !dataReloader.startWatching()) {
+                System.out.println("ℹ️ Data files are loaded from the classpath; file watching is off. Use POST /api/admin/reload after redeploying.");
+            }
         } catch (IOException e) {
             System.err.println("Error initializing managers: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    /**
+     * Stop watching the data files when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (dataReloader != null) {
+            dataReloader.close();
+        }
+    }
+    
     /**
      * Serve the main chatbot page.
      */
@@ -85,7 +179,12 @@ public class ChatbotController {
             @RequestParam(required = false, defaultValue = "false") boolean hasRapport) {
         try {
             List<Question> questions;
-            if (category != null) {
+            if (escalationTier != null || riskLevel != null) {
+                // Apply filters
+                questions = questionManager.filterQuestions(
+                    category, escalationTier, riskLevel, null, null, hasRapport
+                );
+            } else if (category != null) {
                 questions = questionManager.getQuestionsForSituation(category, hasRapport);
             } else {
                 // Get all questions by filtering with null category
@@ -94,13 +193,6 @@ public class ChatbotController {
                 );
             }
             
-            // Apply filters
-            if (escalationTier != null || riskLevel != null) {
-                questions = questionManager.filterQuestions(
-                    category, escalationTier, riskLevel, null, null, hasRapport
-                );
-            }
-            
             return ResponseEntity.ok(questions);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -109,22 +201,26 @@ public class ChatbotController {
     
     /**
      * Get resources based on transcript.
+     * Accepts an optional "topK" (1-50, default 3) for the number of ranked resources.
      */
     @PostMapping("/api/resources")
     @ResponseBody
-    public ResponseEntity<?> getResources(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> getResources(@RequestBody Map<String, Object> request) {
         try {
-            String transcript = request.get("transcript");
+            String transcript = (String) request.get("transcript");
             if (transcript == null || transcript.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Transcript is required"));
             }
             
-            // Convert Resource objects to SPCchatbotDemo.Resource format
-            List<com.suicide.questionbank.Resource> allResources = resourceManager.getAllResources();
-            List<SPCchatbotDemo.Resource> chatbotResources = convertToChatbotResources(allResources);
+            Integer topK = parseTopK(request.get("topK"));
+            if (topK == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "topK must be an integer between 1 and " + MAX_TOP_K
+                ));
+            }
             
-            // Use SPCchatbotDemo to get top resources
-            SPCchatbotDemo.Result result = SPCchatbotDemo.getTopResources(transcript, chatbotResources);
+            // Use SPCchatbotDemo to get top resources from the precompiled match index
+            SPCchatbotDemo.Result result = SPCchatbotDemo.getTopResources(transcript, resourceManager.getMatchIndex(), topK);
             
             // Convert result to response format
             Map<String, Object> response = new HashMap<>();
@@ -152,20 +248,135 @@ public class ChatbotController {
         }
     }
     
+    /**
+     * Parse the requested number of ranked resources.
+     * 
+     * @return The value, the default when absent, or null when invalid
+     */
+    private static Integer parseTopK(Object value) {
+        if (value == null) {
+            return SPCchatbotDemo.DEFAULT_TOP_K;
+        }
+        int topK;
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (number != Math.rint(number)) {
+                return null;
+            }
+            topK = (int) number;
+        } else {
+            try {
+                topK = Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return (topK >= 1 && topK <= MAX_TOP_K) ? topK : null;
+    }
+    
     /**
      * Search resources by category, county, or name.
+     * Without fields/limit/cursor the full list of matching resources is returned (legacy form).
+     * With any of them the response is one page, in directory order:
+     * {"items": [...], "total": n, "nextCursor": "..." or null}, where each item has only the
+     * requested fields (comma-separated top-level resource fields, plus "id").
      */
     @GetMapping("/api/resources/search")
     @ResponseBody
     public ResponseEntity<?> searchResources(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String county,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            if (fields == null && limit == null && cursor == null) {
+                List<com.suicide.questionbank.Resource> resources = resourceManager.filterResources(
+                    category, county, search
+                );
+                return ResponseEntity.ok(resources);
+            }
+            
+            ResourceProjection projection;
+            try {
+                projection = ResourceProjection.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            
+            // One index for the whole request, so positions stay consistent across a reload
+            ResourceSearchIndex index = resourceManager.getSearchIndex();
+            int from = 0;
+            if (cursor != null && !cursor.isEmpty()) {
+                from = decodeCursor(cursor, index.getVersion());
+                if (from < 0) {
+                    return ResponseEntity.badRequest().body(Map.of(
+                        "error", "Invalid or expired cursor; the resource directory may have been reloaded. Start the search again."
+                    ));
+                }
+            }
+            
+            ResourceSearchIndex.Page page = index.filterPage(category, county, search, from, pageSize);
+            List<Map<String, Object>> items = new ArrayList<>(page.getOrdinals().length);
+            for (int ordinal : page.getOrdinals()) {
+                items.add(projection.apply(index.getResource(ordinal), ordinal));
+            }
+            
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("items", items);
+            response.put("total", page.getTotal());
+            response.put("nextCursor", page.getNextOrdinal() >= 0 ? encodeCursor(page.getVersion(), page.getNextOrdinal()) : null);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Encode a search cursor: the index version and the directory position to continue from.
+     */
+    private static String encodeCursor(long version, int ordinal) {
+        String raw = version + ":" + ordinal;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a search cursor.
+     * 
+     * @return The position to continue from, or -1 if the cursor is malformed or from another index version
+     */
+    private static int decodeCursor(String cursor, long version) {
         try {
-            List<com.suicide.questionbank.Resource> resources = resourceManager.filterResources(
-                category, county, search
-            );
-            return ResponseEntity.ok(resources);
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            if (colon < 0 || Long.parseLong(raw.substring(0, colon)) != version) {
+                return -1;
+            }
+            int ordinal = Integer.parseInt(raw.substring(colon + 1));
+            return ordinal >= 0 ? ordinal : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Typeahead for the resource search box: matching resource names, categories and counties.
+     * Returns only type, name and id/count, ranked best first.
+     */
+    @GetMapping("/api/resources/suggest")
+    @ResponseBody
+    public ResponseEntity<?> suggestResources(
+            @RequestParam(required = false, defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            int max = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+            List<Map<String, Object>> suggestions = new ArrayList<>();
+            for (ResourceSuggestIndex.Suggestion suggestion : resourceManager.suggest(prefix, max)) {
+                suggestions.add(suggestion.toMap());
+            }
+            return ResponseEntity.ok(suggestions);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
@@ -173,128 +384,303 @@ public class ChatbotController {
     
     /**
      * Chat endpoint for conversational responses using LLM.
+     * The request is processed asynchronously, so no servlet thread waits on the LLM API.
      */
     @PostMapping("/api/chat")
     @ResponseBody
-    public ResponseEntity<?> chat(@RequestBody Map<String, Object> request) {
+    public DeferredResult<ResponseEntity<?>> chat(@RequestBody Map<String, Object> request) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(responseTimeoutMillis);
         if (chatService == null) {
-            return ResponseEntity.status(503).body(Map.of(
+            result.setResult(ResponseEntity.status(503).body(Map.of(
                 "error", "Chat service not available. Please check server logs."
-            ));
+            )));
+            return result;
         }
         
         try {
             String message = (String) request.get("message");
             if (message == null || message.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Message is required"));
+                result.setResult(ResponseEntity.badRequest().body(Map.of("error", "Message is required")));
+                return result;
             }
             
             @SuppressWarnings("unchecked")
             List<Map<String, String>> conversationHistory = (List<Map<String, String>>) request.get("history");
             
-            ChatService.ChatResponse response = chatService.generateChatResponse(message, conversationHistory);
-            
-            Map<String, Object> responseMap = new HashMap<>();
-            responseMap.put("message", response.getMessage());
+            // Optional client conversation id - lets the server analyse only the new message
+            Object sessionId = request.get("sessionId");
             
-            // Convert resources to response format
-            List<Map<String, Object>> resourcesList = new ArrayList<>();
-            for (com.suicide.questionbank.Resource r : response.getSuggestedResources()) {
-                Map<String, Object> resourceData = new HashMap<>();
-                resourceData.put("name", r.getName());
-                resourceData.put("description", r.getDescription());
-                if (r.getCategories() != null && !r.getCategories().isEmpty()) {
-                    resourceData.put("categories", r.getCategories());
-                }
-                Map<String, String> contact = new HashMap<>();
-                if (r.getPhones() != null) {
-                    if (r.getPhones().getPrimary() != null && r.getPhones().getPrimary().getNumber() != null) {
-                        contact.put("phone", r.getPhones().getPrimary().getNumber());
-                    } else if (r.getPhones().getHotline() != null && r.getPhones().getHotline().getNumber() != null) {
-                        contact.put("phone", r.getPhones().getHotline().getNumber());
+            ChatService.PreparedChat chat = chatService.prepareChat(
+                sessionId instanceof String ? (String) sessionId : null, message, conversationHistory);
+            CompletableFuture<ChatService.ChatResponse> future = chatService.generateChatResponseAsync(chat);
+            result.onTimeout(() -> {
+                // Give up on the LLM and answer like any other LLM failure
+                future.cancel(true);
+                result.setResult(ResponseEntity.ok(toResponseMap(chatService.timeoutResponse(chat))));
+            });
+            future.whenComplete((response, error) -> {
+                if (error != null) {
+                    if (!future.isCancelled()) {
+                        error.printStackTrace();
+                        result.setErrorResult(ResponseEntity.status(500).body(Map.of("error", String.valueOf(error.getMessage()))));
                     }
+                    return;
                 }
-                if (r.getContact() != null && r.getContact().getWebsite() != null) {
-                    contact.put("website", r.getContact().getWebsite());
-                }
-                if (!contact.isEmpty()) {
-                    resourceData.put("contact", contact);
-                }
-                resourceData.put("fees", r.getFees());
-                resourceData.put("hours", r.getHours());
-                resourcesList.add(resourceData);
-            }
-            responseMap.put("suggestedResources", resourcesList);
-            
-            return ResponseEntity.ok(responseMap);
+                result.setResult(ResponseEntity.ok(toResponseMap(response)));
+            });
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            result.setErrorResult(ResponseEntity.status(500).body(Map.of("error", String.valueOf(e.getMessage()))));
         }
+        return result;
+    }
+    
+    private static Map<String, Object> toResponseMap(ChatService.ChatResponse response) {
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("message", response.getMessage());
+        responseMap.put("suggestedResources", toResourceList(response.getSuggestedResources()));
+        return responseMap;
     }
     
     /**
-     * Get statistics about questions and resources.
+     * Streaming chat endpoint. Relays the LLM answer as Server-Sent Events while it is generated:
+     * "resources" (suggested resources, sent first), "token" (next piece of text),
+     * then "done" (full message) or "error". If the answer times out before any text was sent,
+     * the rule-based fallback is sent instead.
      */
-    @GetMapping("/api/statistics")
+    @PostMapping(value = "/api/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @ResponseBody
-    public ResponseEntity<?> getStatistics() {
+    public SseEmitter chatStream(@RequestBody Map<String, Object> request) {
+        SseEmitter emitter = new SseEmitter(responseTimeoutMillis);
+        if (chatService == null) {
+            sendErrorAndComplete(emitter, "Chat service not available. Please check server logs.");
+            return emitter;
+        }
+        
+        String message = (String) request.get("message");
+        if (message == null || message.trim().isEmpty()) {
+            sendErrorAndComplete(emitter, "Message is required");
+            return emitter;
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> conversationHistory = (List<Map<String, String>>) request.get("history");
+        Object sessionId = request.get("sessionId");
+        
+        AtomicReference<LLMService.StreamHandle> llmStream = new AtomicReference<>();
+        Runnable cancel = () -> {
+            LLMService.StreamHandle stream = llmStream.get();
+            if (stream != null) {
+                stream.cancel();
+            }
+        };
+        AtomicReference<ChatService.PreparedChat> preparedChat = new AtomicReference<>();
+        AtomicBoolean tokensSent = new AtomicBoolean(false);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        emitter.onTimeout(() -> {
+            cancel.run();
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            ChatService.PreparedChat chat = preparedChat.get();
+            if (chat != null && !tokensSent.get()) {
+                String fallback = chatService.timeoutResponse(chat).getMessage();
+                try {
+                    emitter.send(SseEmitter.event().name("token").data(Map.of("text", fallback)));
+                    emitter.send(SseEmitter.event().name("done").data(Map.of("message", fallback)));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            } else {
+                sendErrorAndComplete(emitter, "The response took too long. Please try again.");
+            }
+        });
+        emitter.onError(e -> cancel.run());
+        
         try {
-            Map<String, Object> stats = new HashMap<>();
+            ChatService.PreparedChat chat = chatService.prepareChat(
+                sessionId instanceof String ? (String) sessionId : null, message, conversationHistory);
+            preparedChat.set(chat);
+            emitter.send(SseEmitter.event().name("resources")
+                .data(Map.of("suggestedResources", toResourceList(chat.getRelevantResources()))));
             
-            QuestionBankStatistics qStats = questionManager.getStatistics();
-            stats.put("totalQuestions", qStats.getTotalQuestions());
-            stats.put("questionCategories", qStats.getCategories());
-            
-            stats.put("totalResources", resourceManager.getTotalResources());
-            stats.put("resourceCategories", resourceManager.getAllCategories());
-            stats.put("counties", resourceManager.getAllCounties());
-            
-            return ResponseEntity.ok(stats);
+            llmStream.set(chatService.streamChatResponse(chat, new LLMService.StreamListener() {
+                @Override
+                public void onToken(String token) {
+                    if (finished.get()) {
+                        return;
+                    }
+                    tokensSent.set(true);
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(Map.of("text", token)));
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away - stop generating
+                        cancel.run();
+                    }
+                }
+                
+                @Override
+                public void onComplete(String fullResponse) {
+                    if (!finished.compareAndSet(false, true)) {
+                        return;
+                    }
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(Map.of("message", fullResponse)));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException e) {
+                        emitter.completeWithError(e);
+                    }
+                }
+                
+                @Override
+                public void onError(IOException e) {
+                    if (finished.compareAndSet(false, true)) {
+                        sendErrorAndComplete(emitter, e.getMessage());
+                    }
+                }
+            }));
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            e.printStackTrace();
+            cancel.run();
+            if (finished.compareAndSet(false, true)) {
+                sendErrorAndComplete(emitter, e.getMessage());
+            }
+        }
+        return emitter;
+    }
+    
+    private static void sendErrorAndComplete(SseEmitter emitter, String error) {
+        try {
+            emitter.send(SseEmitter.event().name("error")
+                .data(Map.of("error", error != null ? error : "Unknown error")));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
         }
     }
     
     /**
-     * Convert Resource objects to SPCchatbotDemo.Resource format.
+     * Convert resources to the response format used by the chat endpoints.
      */
-    private List<SPCchatbotDemo.Resource> convertToChatbotResources(
-            List<com.suicide.questionbank.Resource> resources) {
-        List<SPCchatbotDemo.Resource> chatbotResources = new ArrayList<>();
-        
+    private static List<Map<String, Object>> toResourceList(List<com.suicide.questionbank.Resource> resources) {
+        List<Map<String, Object>> resourcesList = new ArrayList<>();
         for (com.suicide.questionbank.Resource r : resources) {
-            SPCchatbotDemo.Resource cr = new SPCchatbotDemo.Resource();
-            cr.setName(r.getName());
-            cr.setDescription(r.getDescription());
-            
-            // Convert categories list to single category string
+            Map<String, Object> resourceData = new HashMap<>();
+            resourceData.put("name", r.getName());
+            resourceData.put("description", r.getDescription());
             if (r.getCategories() != null && !r.getCategories().isEmpty()) {
-                cr.setCategory(String.join(", ", r.getCategories()));
+                resourceData.put("categories", r.getCategories());
             }
-            
-            // Convert service area
-            if (r.getServiceArea() != null && r.getServiceArea().getAreasCovered() != null) {
-                cr.setServiceArea(String.join(", ", r.getServiceArea().getAreasCovered()));
+            Map<String, String> contact = new HashMap<>();
+            if (r.getPhones() != null) {
+                if (r.getPhones().getPrimary() != null && r.getPhones().getPrimary().getNumber() != null) {
+                    contact.put("phone", r.getPhones().getPrimary().getNumber());
+                } else if (r.getPhones().getHotline() != null && r.getPhones().getHotline().getNumber() != null) {
+                    contact.put("phone", r.getPhones().getHotline().getNumber());
+                }
             }
-            
-            // Convert eligibility
-            if (r.getEligibility() != null) {
-                cr.setEligibility(r.getEligibility().getGeneral());
+            if (r.getContact() != null && r.getContact().getWebsite() != null) {
+                contact.put("website", r.getContact().getWebsite());
             }
-            
-            cr.setCost(r.getFees());
-            cr.setHours(r.getHours());
-            
-            // Convert languages
-            if (r.getLanguagesOffered() != null && !r.getLanguagesOffered().isEmpty()) {
-                cr.setLanguage(String.join(", ", r.getLanguagesOffered()));
+            if (!contact.isEmpty()) {
+                resourceData.put("contact", contact);
             }
-            
-            chatbotResources.add(cr);
+            resourceData.put("fees", r.getFees());
+            resourceData.put("hours", r.getHours());
+            resourcesList.add(resourceData);
+        }
+        return resourcesList;
+    }
+    
+    /**
+     * Get hit/miss statistics of the LLM response cache.
+     */
+    @GetMapping("/api/chat/cache")
+    @ResponseBody
+    public ResponseEntity<?> getResponseCacheStats() {
+        if (chatService == null || chatService.getResponseCache() == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", true);
+        stats.putAll(chatService.getResponseCache().getStats());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * Get statistics about questions and resources.
+     * Served from a snapshot built at load time; clients that send If-None-Match or
+     * If-Modified-Since get 304 Not Modified while the data is unchanged.
+     */
+    @GetMapping("/api/statistics")
+    @ResponseBody
+    public ResponseEntity<?> getStatistics(WebRequest request) {
+        try {
+            StatisticsSnapshot snapshot = statisticsSnapshot;
+            if (snapshot == null) {
+                return ResponseEntity.status(500).body(Map.of("error", "Statistics are not available"));
+            }
+            if (request.checkNotModified(snapshot.getEtag(), snapshot.getLastModified())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .lastModified(snapshot.getLastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.getBody());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Rebuild the statistics snapshot from the currently loaded data.
+     */
+    void refreshStatistics() {
+        this.statisticsSnapshot = StatisticsSnapshot.of(questionManager, resourceManager);
+    }
+    
+    /**
+     * Rebuild state derived from the question bank and resources after a reload.
+     */
+    private void onDataReloaded() {
+        refreshStatistics();
+        if (chatService != null) {
+            chatService.onDataReloaded();
+        }
+    }
+    
+    /**
+     * Reload suicide_question_bank.json and resources_full.json without a restart.
+     * Requires the X-Admin-Token header to match the admin.token property; the endpoint is
+     * disabled while admin.token is not set. Requests keep being served from the old data
+     * until the new data has been loaded and indexed.
+     */
+    @PostMapping("/api/admin/reload")
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> reloadData(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(RELOAD_TIMEOUT_MILLIS);
+        if (adminToken.isEmpty()) {
+            result.setResult(ResponseEntity.status(403).body(Map.of("error", "Reload is disabled (admin.token is not set)")));
+            return result;
+        }
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), 
+                                                    adminToken.getBytes(StandardCharsets.UTF_8))) {
+            result.setResult(ResponseEntity.status(401).body(Map.of("error", "Invalid admin token")));
+            return result;
+        }
+        if (dataReloader == null) {
+            result.setResult(ResponseEntity.status(500).body(Map.of("error", "Data managers are not initialized")));
+            return result;
         }
         
-        return chatbotResources;
+        result.onTimeout(() -> result.setErrorResult(
+            ResponseEntity.status(503).body(Map.of("error", "Reload is still running"))));
+        dataReloader.requestReload("admin").thenAccept(reload -> result.setResult(reload.isSuccess()
+            ? ResponseEntity.ok(reload.toMap())
+            : ResponseEntity.status(500).body(reload.toMap())));
+        return result;
     }
 }
-
@@ -0,0 +1,196 @@
+package com.suicide.questionbank;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for calls to one LLM API.
+ *
+ * Closed: calls go through. After {@code failureThreshold} consecutive failures the breaker
+ * opens and calls are rejected at once (the caller answers from the rule-based path) until the
+ * cool-down has passed. A 429 with a Retry-After header, or one reporting insufficient_quota,
+ * opens it straight away, for as long as the server asked (capped at {@code maxOpenMillis}).
+ * Half-open: after the cool-down one trial call is let through; its success closes the breaker
+ * and its failure opens it again.
+ *
+ * Only failures that say something about the API count: timeouts, connection errors, 429,
+ * 401/403 and 5xx. Other 4xx answers mean the API is up and leave the breaker as it is.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int level;
+
+        State(int level) {
+            this.level = level;
+        }
+
+        /**
+         * Numeric value for the state gauge: 0 closed, 1 half-open, 2 open.
+         */
+        public int getLevel() {
+            return level;
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long maxOpenMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean trialInFlight;
+
+    /**
+     * @param name Name used in log messages (e.g. the API endpoint)
+     * @param failureThreshold Consecutive failures that open the breaker (0 disables it)
+     * @param openMillis Cool-down before a trial call is let through
+     * @param maxOpenMillis Upper bound for a server-requested Retry-After
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, long maxOpenMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(0, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+        this.maxOpenMillis = Math.max(this.openMillis, maxOpenMillis);
+    }
+
+    /**
+     * A breaker that never opens.
+     */
+    public static CircuitBreaker disabled() {
+        return new CircuitBreaker("disabled", 0, 0, 0);
+    }
+
+    public boolean isEnabled() {
+        return failureThreshold > 0;
+    }
+
+    /**
+     * Ask to make a call. Every permitted call must end in {@link #recordSuccess()},
+     * {@link #recordFailure(IOException)} or {@link #release()}.
+     *
+     * @return false if the call must not be made
+     */
+    public synchronized boolean allowRequest() {
+        if (!isEnabled()) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+            System.out.println("🔄 LLM circuit breaker half-open, trying one call to " + name);
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("✅ LLM circuit breaker closed, " + name + " is answering again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure(IOException e) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!countsAsFailure(e)) {
+            release();
+            return;
+        }
+        consecutiveFailures++;
+        long retryAfterMillis = -1;
+        if (e instanceof LLMService.ApiException) {
+            LLMService.ApiException apiError = (LLMService.ApiException) e;
+            if (apiError.getRetryAfterMillis() > 0) {
+                retryAfterMillis = Math.min(apiError.getRetryAfterMillis(), maxOpenMillis);
+            } else if (apiError.isQuotaExhausted()) {
+                // No credits left: retrying after every request would only repeat the failure
+                retryAfterMillis = openMillis;
+            }
+        }
+        if (retryAfterMillis > 0 || state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            open(retryAfterMillis > 0 ? retryAfterMillis : openMillis, e);
+        }
+    }
+
+    /**
+     * Give back a permit whose call was not made, cancelled, or ended without saying
+     * anything about the API's health.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    private void open(long millis, IOException cause) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        // Never shorten an opening the server asked for
+        if (state == State.OPEN && until - openUntilNanos < 0) {
+            return;
+        }
+        if (state != State.OPEN) {
+            System.err.println("⚠️ LLM circuit breaker open for " + millis + "ms after " + consecutiveFailures +
+                               " failure(s) from " + name + ": " + cause.getMessage());
+        }
+        state = State.OPEN;
+        openUntilNanos = until;
+        trialInFlight = false;
+    }
+
+    /**
+     * Check whether a failure says the API is unavailable.
+     */
+    static boolean countsAsFailure(IOException e) {
+        if (e instanceof LLMService.QueueFullException || e instanceof LLMService.CircuitOpenException) {
+            return false;
+        }
+        if (e instanceof LLMService.ApiException) {
+            int code = ((LLMService.ApiException) e).getStatusCode();
+            return code == 429 || code == 401 || code == 403 || code >= 500;
+        }
+        // Timeouts, refused connections, broken streams
+        return true;
+    }
+
+    /**
+     * Current state; an open breaker whose cool-down has passed reports half-open.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Time until a trial call is let through, or 0 if calls are allowed.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openUntilNanos - System.nanoTime()));
+    }
+
+    @Override
+    public String toString() {
+        return isEnabled()
+            ? "open after " + failureThreshold + " failures for " + openMillis + "ms (Retry-After up to " + maxOpenMillis + "ms)"
+            : "off";
+    }
+}
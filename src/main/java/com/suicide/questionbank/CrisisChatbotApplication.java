@@ -3,12 +3,17 @@ package com.suicide.questionbank;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 /**
  * Main Spring Boot application for the Crisis Chatbot web interface.
  */
 @SpringBootApplication
 public class CrisisChatbotApplication {
     public static void main(String[] args) {
-        SpringApplication.run(CrisisChatbotApplication.class, args);
+        SpringApplication app = new SpringApplication(CrisisChatbotApplication.class);
+        // Expose the Prometheus scrape endpoint even without an application.properties
+        app.setDefaultProperties(Map.of("management.endpoints.web.exposure.include", "health,prometheus"));
+        app.run(args);
     }
 }
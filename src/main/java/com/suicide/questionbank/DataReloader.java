@@ -0,0 +1,282 @@
+package com.suicide.questionbank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reloads the question bank and resource directory without restarting the app.
+ *
+ * Reloads run on a single background thread, so they never overlap and never hold a request
+ * thread. Both files are parsed and indexed completely before either is published with its
+ * reference swap (see {@link QuestionBankManager#reload()} and {@link ResourceManager#reload()}),
+ * so requests keep being served from the previous data until the new data is ready, and a file
+ * that fails to load leaves both the question bank and the resources as they were.
+ *
+ * Reloads are triggered explicitly ({@link #requestReload(String)}) or, when watching is enabled,
+ * by changes to the data files on disk. Editors and deploy scripts often write a file in several
+ * steps, so file events are debounced before a reload starts.
+ */
+public class DataReloader implements Closeable {
+    private final QuestionBankManager questionManager;
+    private final ResourceManager resourceManager;
+    private final Runnable onReload;
+    private final long debounceMillis;
+    private final ScheduledExecutorService executor;
+    private WatchService watchService;
+    private Thread watchThread;
+    private ScheduledFuture<?> pendingFileReload;
+    private volatile ReloadResult lastResult;
+
+    /**
+     * Create a reloader.
+     *
+     * @param onReload Called on the reload thread after new data has been published
+     *                 (e.g. to rebuild snapshots and clear caches derived from the old data)
+     * @param debounceMillis Quiet period after the last file event before a reload starts
+     */
+    public DataReloader(QuestionBankManager questionManager, ResourceManager resourceManager,
+                        Runnable onReload, long debounceMillis) {
+        this.questionManager = questionManager;
+        this.resourceManager = resourceManager;
+        this.onReload = onReload;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "data-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reload both data files on the background thread.
+     *
+     * @param trigger What caused the reload, for logging (e.g. "admin", "file change")
+     * @return Completes with the outcome; a failed reload completes normally with an error result
+     */
+    public CompletableFuture<ReloadResult> requestReload(String trigger) {
+        CompletableFuture<ReloadResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> future.complete(reload(trigger)));
+        } catch (RejectedExecutionException e) {
+            future.complete(ReloadResult.failed(trigger, 0, "Reloader is shut down"));
+        }
+        return future;
+    }
+
+    private ReloadResult reload(String trigger) {
+        long start = System.nanoTime();
+        System.out.println("🔄 Reloading question bank and resources (" + trigger + ")...");
+        ReloadResult result;
+        try {
+            Runnable publishQuestions = questionManager.prepareReload();
+            Runnable publishResources = resourceManager.prepareReload();
+            publishQuestions.run();
+            publishResources.run();
+            runOnReload();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            result = ReloadResult.succeeded(trigger, millis,
+                questionManager.getStatistics().getTotalQuestions(), resourceManager.getTotalResources());
+            System.out.println("✅ Reloaded " + result.getTotalQuestions() + " questions and " +
+                               result.getTotalResources() + " resources in " + millis + "ms");
+        } catch (IOException | RuntimeException e) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            result = ReloadResult.failed(trigger, millis, e.getMessage());
+            System.err.println("❌ Reload failed, keeping the previous data: " + e.getMessage());
+        }
+        lastResult = result;
+        return result;
+    }
+
+    private void runOnReload() {
+        if (onReload == null) {
+            return;
+        }
+        try {
+            onReload.run();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error refreshing data derived from the reload: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Watch the data files that are loaded from disk and reload when one of them changes.
+     * Files loaded from the classpath cannot change and are not watched.
+     *
+     * @return true if at least one file is being watched
+     */
+    public synchronized boolean startWatching() throws IOException {
+        if (watchService != null) {
+            return true;
+        }
+        Map<Path, Set<Path>> filesByDirectory = new HashMap<>();
+        for (Path file : Arrays.asList(questionManager.getSourceFile(), resourceManager.getSourceFile())) {
+            if (file != null) {
+                Path absolute = file.toAbsolutePath().normalize();
+                filesByDirectory.computeIfAbsent(absolute.getParent(), k -> new HashSet<>()).add(absolute.getFileName());
+            }
+        }
+        if (filesByDirectory.isEmpty()) {
+            return false;
+        }
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        Map<WatchKey, Set<Path>> watchedFiles = new HashMap<>();
+        for (Map.Entry<Path, Set<Path>> entry : filesByDirectory.entrySet()) {
+            WatchKey key = entry.getKey().register(service,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedFiles.put(key, entry.getValue());
+            System.out.println("👀 Watching " + entry.getValue() + " in " + entry.getKey() + " for changes");
+        }
+
+        this.watchService = service;
+        this.watchThread = new Thread(() -> watch(service, watchedFiles), "data-watch");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+        return true;
+    }
+
+    private void watch(WatchService service, Map<WatchKey, Set<Path>> watchedFiles) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<Path> files = watchedFiles.getOrDefault(key, Collections.emptySet());
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && files.contains(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    scheduleFileReload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Start a reload after the debounce period, restarting the period on every new event.
+     */
+    private synchronized void scheduleFileReload() {
+        if (pendingFileReload != null) {
+            pendingFileReload.cancel(false);
+        }
+        try {
+            pendingFileReload = executor.schedule(() -> reload("file change"), debounceMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Get the outcome of the most recent reload, or null if none has run.
+     */
+    public ReloadResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Stop watching and shut down the reload thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+            watchService = null;
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Outcome of one reload.
+     */
+    public static class ReloadResult {
+        private final boolean success;
+        private final String trigger;
+        private final long durationMillis;
+        private final long finishedAt;
+        private final int totalQuestions;
+        private final int totalResources;
+        private final String error;
+
+        private ReloadResult(boolean success, String trigger, long durationMillis,
+                             int totalQuestions, int totalResources, String error) {
+            this.success = success;
+            this.trigger = trigger;
+            this.durationMillis = durationMillis;
+            this.finishedAt = System.currentTimeMillis();
+            this.totalQuestions = totalQuestions;
+            this.totalResources = totalResources;
+            this.error = error;
+        }
+
+        static ReloadResult succeeded(String trigger, long durationMillis, int totalQuestions, int totalResources) {
+            return new ReloadResult(true, trigger, durationMillis, totalQuestions, totalResources, null);
+        }
+
+        static ReloadResult failed(String trigger, long durationMillis, String error) {
+            return new ReloadResult(false, trigger, durationMillis, 0, 0, error);
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getTrigger() {
+            return trigger;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        public int getTotalQuestions() {
+            return totalQuestions;
+        }
+
+        public int getTotalResources() {
+            return totalResources;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Convert to a JSON-friendly map.
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("success", success);
+            map.put("trigger", trigger);
+            map.put("durationMs", durationMillis);
+            map.put("finishedAt", finishedAt);
+            if (success) {
+                map.put("totalQuestions", totalQuestions);
+                map.put("totalResources", totalResources);
+            } else {
+                map.put("error", error != null ? error : "Unknown error");
+            }
+            return map;
+        }
+    }
+}
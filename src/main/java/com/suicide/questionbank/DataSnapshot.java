@@ -0,0 +1,749 @@
+package com.suicide.questionbank;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of a parsed data file (resources_full.json or suicide_question_bank.json).
+ *
+ * Parsing the JSON on every boot dominates cold start. A snapshot holds the same data already
+ * parsed: every distinct string once in a string table, records that refer to strings by index,
+ * and, for resources, the prebuilt category and county postings and the ranking vocabularies of
+ * the transcript match index. Loading one is a memory-mapped read and a table decode; no
+ * tokenizing, no reflection, no re-indexing.
+ *
+ * Each snapshot records a fingerprint of the JSON it was compiled from (see {@link Fingerprint}).
+ * A snapshot whose fingerprint does not match the current JSON is stale and ignored, so editing
+ * the JSON (or a hot reload) always wins; the caller then parses the JSON and writes a fresh
+ * snapshot. A CRC32 over everything after the header catches damaged files, and every count is
+ * checked against the bytes left, so a corrupt snapshot is ignored the same way.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int    magic "QBS1"
+ *   int    format version
+ *   byte   kind (1 = resources, 2 = question bank)
+ *   long   source length, long source stamp
+ *   long   CRC32 of the rest of the file
+ *   int    string count, then per string: int byte length + UTF-8 bytes
+ *   ...    records (strings as int indices, -1 for null; lists as int count, -1 for null)
+ *   ...    resources only: category postings, county postings, distinct categories and counties,
+ *          relevance and eligibility vocabularies
+ * </pre>
+ *
+ * The vocabularies are derived data: bump {@link #VERSION} whenever the way they are built
+ * changes, or snapshots written by an older build would be reused.
+ */
+public class DataSnapshot {
+    private static final int MAGIC = 0x51425331; // "QBS1"
+    private static final int VERSION = 2;
+    private static final byte KIND_RESOURCES = 1;
+    private static final byte KIND_QUESTIONS = 2;
+
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+
+    private DataSnapshot() {
+    }
+
+    /**
+     * Identity of the JSON a snapshot was compiled from: its length and a stamp that changes with
+     * its content. Taking one never reads the JSON itself where that can be avoided, so a current
+     * snapshot is used without touching the source bytes.
+     */
+    public static class Fingerprint {
+        private final long length;
+        private final long stamp;
+
+        private Fingerprint(long length, long stamp) {
+            this.length = length;
+            this.stamp = stamp;
+        }
+
+        /**
+         * Fingerprint the raw bytes of a data file (stamp = CRC32 of the bytes).
+         */
+        public static Fingerprint of(byte[] source) {
+            CRC32 crc32 = new CRC32();
+            crc32.update(source, 0, source.length);
+            return new Fingerprint(source.length, crc32.getValue());
+        }
+
+        /**
+         * Fingerprint a data file on disk from its size and modification time.
+         * An edit that keeps the size and lands within the file system's timestamp resolution
+         * goes unnoticed; every editor and deploy tool in use here changes one of the two.
+         */
+        public static Fingerprint of(Path file) throws IOException {
+            return new Fingerprint(Files.size(file), Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS));
+        }
+
+        /**
+         * Fingerprint a classpath resource. Inside a jar this is the entry's size and CRC32 from
+         * the jar directory; a resource in a directory is fingerprinted like any other file.
+         */
+        public static Fingerprint of(URL resource) throws IOException {
+            if ("file".equals(resource.getProtocol())) {
+                try {
+                    return of(Paths.get(resource.toURI()));
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // Fall through to reading the bytes
+                }
+            }
+            URLConnection connection = resource.openConnection();
+            if (connection instanceof JarURLConnection) {
+                JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+                if (entry != null && entry.getSize() >= 0 && entry.getCrc() >= 0) {
+                    return new Fingerprint(entry.getSize(), entry.getCrc());
+                }
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return of(in.readAllBytes());
+            }
+        }
+
+        private boolean matches(long otherLength, long otherStamp) {
+            return length == otherLength && stamp == otherStamp;
+        }
+    }
+
+    /**
+     * Resource directory read back from a snapshot, with its prebuilt indices.
+     */
+    public static class Resources {
+        private final List<Resource> resources;
+        private final Map<String, List<Resource>> categoryIndex;
+        private final Map<String, List<Resource>> countyIndex;
+        private final Set<String> categories;
+        private final Set<String> counties;
+        private final ResourceRankingEngine.Vocabulary relevanceVocabulary;
+        private final ResourceRankingEngine.Vocabulary eligibilityVocabulary;
+
+        Resources(List<Resource> resources, Map<String, List<Resource>> categoryIndex,
+                  Map<String, List<Resource>> countyIndex, Set<String> categories, Set<String> counties,
+                  ResourceRankingEngine.Vocabulary relevanceVocabulary,
+                  ResourceRankingEngine.Vocabulary eligibilityVocabulary) {
+            this.resources = resources;
+            this.categoryIndex = categoryIndex;
+            this.countyIndex = countyIndex;
+            this.categories = categories;
+            this.counties = counties;
+            this.relevanceVocabulary = relevanceVocabulary;
+            this.eligibilityVocabulary = eligibilityVocabulary;
+        }
+
+        public List<Resource> getResources() { return resources; }
+
+        /** Lowercased category name to resources, in directory order. */
+        public Map<String, List<Resource>> getCategoryIndex() { return categoryIndex; }
+
+        /** Lowercased county name to resources, in directory order. */
+        public Map<String, List<Resource>> getCountyIndex() { return countyIndex; }
+
+        /** Distinct category names as written in the directory. */
+        public Set<String> getCategories() { return categories; }
+
+        /** Distinct county names as written in the directory. */
+        public Set<String> getCounties() { return counties; }
+
+        /**
+         * Transcript match index over the resources, ranking vocabularies included.
+         */
+        public ResourceMatchIndex buildMatchIndex() {
+            return ResourceMatchIndex.build(resources, relevanceVocabulary, eligibilityVocabulary);
+        }
+    }
+
+    /**
+     * Write a resource directory snapshot (atomically replacing any existing file).
+     *
+     * @param matchIndex Match index built from exactly these resources
+     */
+    public static void writeResources(Path file, Fingerprint source, List<Resource> resources,
+                                      Map<String, List<Resource>> categoryIndex,
+                                      Map<String, List<Resource>> countyIndex,
+                                      Set<String> categories, Set<String> counties,
+                                      ResourceMatchIndex matchIndex) throws IOException {
+        Map<Resource, Integer> ordinals = new IdentityHashMap<>();
+        for (Resource r : resources) {
+            ordinals.put(r, ordinals.size());
+        }
+
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256 * 1024);
+        DataOutputStream out = new DataOutputStream(body);
+
+        out.writeInt(resources.size());
+        for (Resource r : resources) {
+            writeResource(out, strings, r);
+        }
+        writePostings(out, strings, categoryIndex, ordinals);
+        writePostings(out, strings, countyIndex, ordinals);
+        writeStringList(out, strings, new ArrayList<>(categories));
+        writeStringList(out, strings, new ArrayList<>(counties));
+        writeVocabulary(out, strings, matchIndex.getRankingEngine().getRelevanceVocabulary());
+        writeVocabulary(out, strings, matchIndex.getRankingEngine().getEligibilityVocabulary());
+        out.flush();
+
+        writeFile(file, KIND_RESOURCES, source, strings, body);
+    }
+
+    /**
+     * Read a resource directory snapshot.
+     *
+     * @return The directory, or null if the file is missing, stale, corrupt or of another version
+     */
+    public static Resources readResources(Path file, Fingerprint source) {
+        return read(file, KIND_RESOURCES, source, (in, strings) -> {
+            int count = readCount(in);
+            List<Resource> resources = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                resources.add(readResource(in, strings));
+            }
+            Map<String, List<Resource>> categoryIndex = readPostings(in, strings, resources);
+            Map<String, List<Resource>> countyIndex = readPostings(in, strings, resources);
+            Set<String> categories = new HashSet<>(readRequiredStringList(in, strings));
+            Set<String> counties = new HashSet<>(readRequiredStringList(in, strings));
+            ResourceRankingEngine.Vocabulary relevance = readVocabulary(in, strings, count);
+            ResourceRankingEngine.Vocabulary eligibility = readVocabulary(in, strings, count);
+            return new Resources(resources, categoryIndex, countyIndex, categories, counties, relevance, eligibility);
+        });
+    }
+
+    private static void writeResource(DataOutputStream out, StringTable s, Resource r) throws IOException {
+        writeString(out, s, r.getName());
+        writeString(out, s, r.getParentAgency());
+        writeStringList(out, s, r.getCategories());
+        writeString(out, s, r.getDescription());
+
+        Resource.Location location = r.getLocation();
+        if (present(out, location)) {
+            writeString(out, s, location.getAddress1());
+            writeString(out, s, location.getAddress2());
+            writeString(out, s, location.getCity());
+            writeString(out, s, location.getCounty());
+            writeString(out, s, location.getState());
+            writeString(out, s, location.getPostalCode());
+            writeString(out, s, location.getCountry());
+        }
+
+        Resource.MailingAddress mailing = r.getMailingAddress();
+        if (present(out, mailing)) {
+            writeString(out, s, mailing.getAddress1());
+            writeString(out, s, mailing.getAddress2());
+            writeString(out, s, mailing.getCity());
+            writeString(out, s, mailing.getState());
+            writeString(out, s, mailing.getPostalCode());
+            writeString(out, s, mailing.getCountry());
+        }
+
+        writeString(out, s, r.getHours());
+
+        Resource.Phones phones = r.getPhones();
+        if (present(out, phones)) {
+            writePhone(out, s, phones.getPrimary());
+            writePhone(out, s, phones.getSecondary());
+            writePhone(out, s, phones.getThird());
+            writePhone(out, s, phones.getFourth());
+            writePhone(out, s, phones.getTollFree());
+            writePhone(out, s, phones.getHotline());
+            writePhone(out, s, phones.getBusiness());
+        }
+
+        Resource.Contact contact = r.getContact();
+        if (present(out, contact)) {
+            writeString(out, s, contact.getEmail());
+            writeString(out, s, contact.getWebsite());
+        }
+
+        Resource.ServiceArea area = r.getServiceArea();
+        if (present(out, area)) {
+            writeStringList(out, s, area.getAreasCovered());
+            writeStringList(out, s, area.getCoverageByCounty());
+        }
+
+        Resource.Eligibility eligibility = r.getEligibility();
+        if (present(out, eligibility)) {
+            writeString(out, s, eligibility.getGeneral());
+            writeBoolean(out, eligibility.getAdults());
+            writeBoolean(out, eligibility.getChildren());
+            writeBoolean(out, eligibility.getFamilies());
+            writeBoolean(out, eligibility.getFemales());
+            writeBoolean(out, eligibility.getMales());
+            writeBoolean(out, eligibility.getTeens());
+        }
+
+        writeString(out, s, r.getFees());
+        writeString(out, s, r.getApplicationProcess());
+
+        Resource.Requirements requirements = r.getRequirements();
+        if (present(out, requirements)) {
+            writeString(out, s, requirements.getService());
+            writeString(out, s, requirements.getDocuments());
+        }
+
+        writeStringList(out, s, r.getLanguagesOffered());
+    }
+
+    private static Resource readResource(ByteBuffer in, String[] s) {
+        Resource r = new Resource();
+        r.setName(readString(in, s));
+        r.setParentAgency(readString(in, s));
+        r.setCategories(readStringList(in, s));
+        r.setDescription(readString(in, s));
+
+        if (in.get() == PRESENT) {
+            Resource.Location location = new Resource.Location();
+            location.setAddress1(readString(in, s));
+            location.setAddress2(readString(in, s));
+            location.setCity(readString(in, s));
+            location.setCounty(readString(in, s));
+            location.setState(readString(in, s));
+            location.setPostalCode(readString(in, s));
+            location.setCountry(readString(in, s));
+            r.setLocation(location);
+        }
+
+        if (in.get() == PRESENT) {
+            Resource.MailingAddress mailing = new Resource.MailingAddress();
+            mailing.setAddress1(readString(in, s));
+            mailing.setAddress2(readString(in, s));
+            mailing.setCity(readString(in, s));
+            mailing.setState(readString(in, s));
+            mailing.setPostalCode(readString(in, s));
+            mailing.setCountry(readString(in, s));
+            r.setMailingAddress(mailing);
+        }
+
+        r.setHours(readString(in, s));
+
+        if (in.get() == PRESENT) {
+            Resource.Phones phones = new Resource.Phones();
+            phones.setPrimary(readPhone(in, s));
+            phones.setSecondary(readPhone(in, s));
+            phones.setThird(readPhone(in, s));
+            phones.setFourth(readPhone(in, s));
+            phones.setTollFree(readPhone(in, s));
+            phones.setHotline(readPhone(in, s));
+            phones.setBusiness(readPhone(in, s));
+            r.setPhones(phones);
+        }
+
+        if (in.get() == PRESENT) {
+            Resource.Contact contact = new Resource.Contact();
+            contact.setEmail(readString(in, s));
+            contact.setWebsite(readString(in, s));
+            r.setContact(contact);
+        }
+
+        if (in.get() == PRESENT) {
+            Resource.ServiceArea area = new Resource.ServiceArea();
+            area.setAreasCovered(readStringList(in, s));
+            area.setCoverageByCounty(readStringList(in, s));
+            r.setServiceArea(area);
+        }
+
+        if (in.get() == PRESENT) {
+            Resource.Eligibility eligibility = new Resource.Eligibility();
+            eligibility.setGeneral(readString(in, s));
+            eligibility.setAdults(readBoolean(in));
+            eligibility.setChildren(readBoolean(in));
+            eligibility.setFamilies(readBoolean(in));
+            eligibility.setFemales(readBoolean(in));
+            eligibility.setMales(readBoolean(in));
+            eligibility.setTeens(readBoolean(in));
+            r.setEligibility(eligibility);
+        }
+
+        r.setFees(readString(in, s));
+        r.setApplicationProcess(readString(in, s));
+
+        if (in.get() == PRESENT) {
+            Resource.Requirements requirements = new Resource.Requirements();
+            requirements.setService(readString(in, s));
+            requirements.setDocuments(readString(in, s));
+            r.setRequirements(requirements);
+        }
+
+        r.setLanguagesOffered(readStringList(in, s));
+        return r;
+    }
+
+    private static void writePhone(DataOutputStream out, StringTable s, Resource.PhoneNumber phone) throws IOException {
+        if (present(out, phone)) {
+            writeString(out, s, phone.getNumber());
+            writeString(out, s, phone.getType());
+        }
+    }
+
+    private static Resource.PhoneNumber readPhone(ByteBuffer in, String[] s) {
+        if (in.get() != PRESENT) {
+            return null;
+        }
+        Resource.PhoneNumber phone = new Resource.PhoneNumber();
+        phone.setNumber(readString(in, s));
+        phone.setType(readString(in, s));
+        return phone;
+    }
+
+    private static void writePostings(DataOutputStream out, StringTable s, Map<String, List<Resource>> index,
+                                      Map<Resource, Integer> ordinals) throws IOException {
+        out.writeInt(index.size());
+        for (Map.Entry<String, List<Resource>> entry : index.entrySet()) {
+            writeString(out, s, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Resource r : entry.getValue()) {
+                out.writeInt(ordinals.get(r));
+            }
+        }
+    }
+
+    private static Map<String, List<Resource>> readPostings(ByteBuffer in, String[] s, List<Resource> resources) {
+        int keys = readCount(in);
+        Map<String, List<Resource>> index = new HashMap<>(keys * 2);
+        for (int k = 0; k < keys; k++) {
+            String key = readString(in, s);
+            int count = readCount(in);
+            List<Resource> postings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                postings.add(resources.get(readIndex(in, resources.size())));
+            }
+            index.put(key, postings);
+        }
+        return index;
+    }
+
+    private static void writeVocabulary(DataOutputStream out, StringTable s,
+                                        ResourceRankingEngine.Vocabulary vocabulary) throws IOException {
+        String[] tokens = vocabulary.getTokens();
+        int[][] postings = vocabulary.getPostings();
+        out.writeInt(tokens.length);
+        for (int id = 0; id < tokens.length; id++) {
+            writeString(out, s, tokens[id]);
+            writeInts(out, postings[id]);
+        }
+        out.writeInt(vocabulary.getGrams().size());
+        for (Map.Entry<String, int[]> gram : vocabulary.getGrams().entrySet()) {
+            writeString(out, s, gram.getKey());
+            writeInts(out, gram.getValue());
+        }
+    }
+
+    private static ResourceRankingEngine.Vocabulary readVocabulary(ByteBuffer in, String[] s, int resources) {
+        int tokenCount = readCount(in);
+        String[] tokens = new String[tokenCount];
+        int[][] postings = new int[tokenCount][];
+        for (int id = 0; id < tokenCount; id++) {
+            tokens[id] = readString(in, s);
+            postings[id] = readInts(in, resources);
+        }
+        int gramCount = readCount(in);
+        Map<String, int[]> grams = new HashMap<>(gramCount * 2);
+        for (int g = 0; g < gramCount; g++) {
+            grams.put(readString(in, s), readInts(in, tokenCount));
+        }
+        return new ResourceRankingEngine.Vocabulary(tokens, postings, grams);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Read an int array whose values must all be indices below the bound.
+     */
+    private static int[] readInts(ByteBuffer in, int bound) {
+        int[] values = new int[readCount(in)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readIndex(in, bound);
+        }
+        return values;
+    }
+
+    /**
+     * Write a question bank snapshot (atomically replacing any existing file).
+     * Category order is preserved.
+     */
+    public static void writeQuestions(Path file, Fingerprint source, Map<String, List<Question>> questionBank) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(body);
+
+        out.writeInt(questionBank.size());
+        for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
+            writeString(out, strings, entry.getKey());
+            List<Question> questions = entry.getValue();
+            if (questions == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(questions.size());
+            for (Question q : questions) {
+                out.writeInt(q.getId());
+                writeString(out, strings, q.getQuestion());
+                writeString(out, strings, q.getTone());
+                writeString(out, strings, q.getRiskLevel());
+                out.writeInt(q.getEscalationTier());
+                out.writeBoolean(q.isUseAfterRapport());
+                writeString(out, strings, q.getNotes());
+            }
+        }
+        out.flush();
+
+        writeFile(file, KIND_QUESTIONS, source, strings, body);
+    }
+
+    /**
+     * Read a question bank snapshot.
+     *
+     * @return Category name to questions, in bank order; null if the file is missing, stale,
+     *         corrupt or of another version
+     */
+    public static Map<String, List<Question>> readQuestions(Path file, Fingerprint source) {
+        return read(file, KIND_QUESTIONS, source, (in, s) -> {
+            int categories = readCount(in);
+            Map<String, List<Question>> bank = new LinkedHashMap<>(categories * 2);
+            for (int c = 0; c < categories; c++) {
+                String category = readString(in, s);
+                int count = readNullableCount(in);
+                if (count < 0) {
+                    bank.put(category, null);
+                    continue;
+                }
+                List<Question> questions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int id = in.getInt();
+                    String question = readString(in, s);
+                    String tone = readString(in, s);
+                    String riskLevel = readString(in, s);
+                    int tier = in.getInt();
+                    boolean afterRapport = in.get() != 0;
+                    String notes = readString(in, s);
+                    questions.add(new Question(id, question, tone, riskLevel, tier, afterRapport, notes));
+                }
+                bank.put(category, questions);
+            }
+            return bank;
+        });
+    }
+
+    private interface BodyReader<T> {
+        T read(ByteBuffer in, String[] strings);
+    }
+
+    private static void writeFile(Path file, byte kind, Fingerprint source, StringTable strings,
+                                  ByteArrayOutputStream body) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + 64 * 1024);
+        DataOutputStream table = new DataOutputStream(payload);
+        table.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            table.writeInt(bytes.length);
+            table.write(bytes);
+        }
+        body.writeTo(table);
+        table.flush();
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(kind);
+                out.writeLong(source.length);
+                out.writeLong(source.stamp);
+                out.writeLong(crc.getValue());
+                out.write(bytes);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static <T> T read(Path file, byte kind, Fingerprint source, BodyReader<T> reader) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION || in.get() != kind) {
+                return null;
+            }
+            long length = in.getLong();
+            long stamp = in.getLong();
+            if (!source.matches(length, stamp)) {
+                return null;
+            }
+            long expectedCrc = in.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if (crc.getValue() != expectedCrc) {
+                throw new CorruptSnapshotException("checksum mismatch");
+            }
+            String[] strings = new String[readCount(in)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readCount(in, 1)];
+                in.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            T result = reader.read(in, strings);
+            if (in.hasRemaining()) {
+                throw new CorruptSnapshotException(in.remaining() + " trailing bytes");
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // Any decoding failure means a damaged or foreign file; the caller falls back to JSON
+            System.err.println("⚠️ Ignoring unreadable data snapshot " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Read a count of items that take at least four bytes each.
+     */
+    private static int readCount(ByteBuffer in) {
+        return readCount(in, Integer.BYTES);
+    }
+
+    /**
+     * Read a count of items, rejecting negative counts and counts the rest of the file cannot hold
+     * (so a damaged count can neither fail an allocation nor exhaust the heap).
+     */
+    private static int readCount(ByteBuffer in, int minBytesPerItem) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / minBytesPerItem) {
+            throw new CorruptSnapshotException("count " + count + " with " + in.remaining() + " bytes left");
+        }
+        return count;
+    }
+
+    /**
+     * Read a list count that is -1 for a null list.
+     */
+    private static int readNullableCount(ByteBuffer in) {
+        if (in.getInt(in.position()) == -1) {
+            return in.getInt();
+        }
+        return readCount(in);
+    }
+
+    private static int readIndex(ByteBuffer in, int bound) {
+        int index = in.getInt();
+        if (index < 0 || index >= bound) {
+            throw new CorruptSnapshotException("index " + index + " out of range " + bound);
+        }
+        return index;
+    }
+
+    /**
+     * A snapshot whose content contradicts its own structure.
+     */
+    private static class CorruptSnapshotException extends RuntimeException {
+        CorruptSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Strings in first-use order; each distinct value is stored once.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int id(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+    }
+
+    private static boolean present(DataOutputStream out, Object value) throws IOException {
+        out.writeByte(value != null ? PRESENT : ABSENT);
+        return value != null;
+    }
+
+    private static void writeString(DataOutputStream out, StringTable strings, String value) throws IOException {
+        out.writeInt(value == null ? -1 : strings.id(value));
+    }
+
+    private static String readString(ByteBuffer in, String[] strings) {
+        int id = in.getInt();
+        if (id == -1) {
+            return null;
+        }
+        if (id < 0 || id >= strings.length) {
+            throw new CorruptSnapshotException("string " + id + " out of range " + strings.length);
+        }
+        return strings[id];
+    }
+
+    private static void writeStringList(DataOutputStream out, StringTable strings, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, strings, value);
+        }
+    }
+
+    private static List<String> readStringList(ByteBuffer in, String[] strings) {
+        int count = readNullableCount(in);
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in, strings));
+        }
+        return values;
+    }
+
+    private static List<String> readRequiredStringList(ByteBuffer in, String[] strings) {
+        List<String> values = readStringList(in, strings);
+        if (values == null) {
+            throw new CorruptSnapshotException("missing list");
+        }
+        return values;
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : (value ? 1 : 0));
+    }
+
+    private static Boolean readBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value < 0 ? null : value == 1;
+    }
+}
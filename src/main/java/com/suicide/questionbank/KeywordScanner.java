@@ -0,0 +1,353 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick multi-pattern scanner.
+ * Finds every keyword in a single left-to-right pass over the text, regardless of how many
+ * keywords are registered. Keywords match either as plain substrings (String.contains semantics)
+ * or as whole words (regex \b...\b semantics, where word characters are letters, digits and '_').
+ *
+ * The compiled automaton is immutable and thread-safe. Scanning state lives in {@link State},
+ * so long texts can be fed in pieces and resumed later.
+ */
+public class KeywordScanner {
+    private final Map<String, Integer> substringIds;
+    private final Map<String, Integer> wordIds;
+    private final int keywordCount;
+    private final int[] keywordLengths;
+    private final boolean[] wholeWord;
+    private final int maxLength;
+
+    // Dense DFA: transitions[node * alphabetSize + column]
+    private final char[] alphabet;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    private KeywordScanner(Builder builder) {
+        this.substringIds = new HashMap<>(builder.substringIds);
+        this.wordIds = new HashMap<>(builder.wordIds);
+        this.keywordCount = builder.keywords.size();
+        this.keywordLengths = new int[keywordCount];
+        this.wholeWord = new boolean[keywordCount];
+        int longest = 0;
+        for (int id = 0; id < keywordCount; id++) {
+            keywordLengths[id] = builder.keywords.get(id).length();
+            wholeWord[id] = builder.wholeWordFlags.get(id);
+            longest = Math.max(longest, keywordLengths[id]);
+        }
+        this.maxLength = longest;
+
+        // Alphabet of characters that appear in any keyword; everything else resets to the root
+        SortedSet<Character> chars = new TreeSet<>();
+        for (String keyword : builder.keywords) {
+            for (char c : keyword.toCharArray()) {
+                chars.add(c);
+            }
+        }
+        this.alphabet = new char[chars.size()];
+        int a = 0;
+        for (char c : chars) {
+            alphabet[a++] = c;
+        }
+        int width = alphabet.length;
+
+        // 1. Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(newRow(width));
+        nodeOutputs.add(new ArrayList<>());
+        for (int id = 0; id < keywordCount; id++) {
+            int node = 0;
+            for (char c : builder.keywords.get(id).toCharArray()) {
+                int column = column(c);
+                if (trie.get(node)[column] < 0) {
+                    trie.get(node)[column] = trie.size();
+                    trie.add(newRow(width));
+                    nodeOutputs.add(new ArrayList<>());
+                }
+                node = trie.get(node)[column];
+            }
+            nodeOutputs.get(node).add(id);
+        }
+
+        // 2. Failure links, resolved breadth-first into a complete transition table
+        int nodes = trie.size();
+        int[] fail = new int[nodes];
+        this.transitions = new int[nodes * Math.max(width, 1)];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = trie.get(0)[column];
+            if (child < 0) {
+                transitions[column] = 0;
+            } else {
+                transitions[column] = child;
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            nodeOutputs.get(node).addAll(nodeOutputs.get(fail[node]));
+            for (int column = 0; column < width; column++) {
+                int child = trie.get(node)[column];
+                if (child < 0) {
+                    transitions[node * width + column] = transitions[fail[node] * width + column];
+                } else {
+                    transitions[node * width + column] = child;
+                    fail[child] = transitions[fail[node] * width + column];
+                    queue.add(child);
+                }
+            }
+        }
+
+        this.outputs = new int[nodes][];
+        for (int node = 0; node < nodes; node++) {
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int[] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private int column(char c) {
+        return Arrays.binarySearch(alphabet, c);
+    }
+
+    static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Scan a complete text.
+     */
+    public Hits scan(CharSequence text) {
+        State state = newState();
+        feed(state, text);
+        return state.hits();
+    }
+
+    /**
+     * Create a fresh scanning state positioned at the start of a text.
+     */
+    public State newState() {
+        return new State(this);
+    }
+
+    /**
+     * Continue scanning with the next piece of text.
+     */
+    public void feed(State state, CharSequence text) {
+        if (state.scanner != this) {
+            throw new IllegalArgumentException("State belongs to a different scanner");
+        }
+        int width = alphabet.length;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean word = isWordChar(c);
+
+            // A character settles pending whole-word matches that ended on the previous one
+            if (!state.pending.isEmpty()) {
+                if (!word) {
+                    state.hits.or(state.pending);
+                }
+                state.pending.clear();
+            }
+
+            int column = width == 0 ? -1 : column(c);
+            state.node = column < 0 ? 0 : transitions[state.node * width + column];
+            state.position++;
+            state.recordWordFlag(word);
+
+            for (int id : outputs[state.node]) {
+                if (!wholeWord[id]) {
+                    state.hits.set(id);
+                } else if (!state.wordCharAt(state.position - keywordLengths[id])) {
+                    state.pending.set(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder for a keyword scanner.
+     */
+    public static class Builder {
+        private final List<String> keywords = new ArrayList<>();
+        private final List<Boolean> wholeWordFlags = new ArrayList<>();
+        private final Map<String, Integer> substringIds = new LinkedHashMap<>();
+        private final Map<String, Integer> wordIds = new LinkedHashMap<>();
+
+        /**
+         * Register keywords that match anywhere in the text.
+         */
+        public Builder add(String... substrings) {
+            for (String keyword : substrings) {
+                register(keyword, false, substringIds);
+            }
+            return this;
+        }
+
+        /**
+         * Register keywords that only match as whole words.
+         */
+        public Builder addWords(String... words) {
+            for (String keyword : words) {
+                register(keyword, true, wordIds);
+            }
+            return this;
+        }
+
+        /**
+         * Register every keyword in the collection as a substring keyword.
+         */
+        public Builder addAll(Collection<String> substrings) {
+            return add(substrings.toArray(new String[0]));
+        }
+
+        private void register(String keyword, boolean whole, Map<String, Integer> ids) {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must be non-empty");
+            }
+            if (!ids.containsKey(keyword)) {
+                ids.put(keyword, keywords.size());
+                keywords.add(keyword);
+                wholeWordFlags.add(whole);
+            }
+        }
+
+        public KeywordScanner build() {
+            return new KeywordScanner(this);
+        }
+    }
+
+    /**
+     * Resumable scanning state: current automaton node, the word/non-word shape of the
+     * last few characters (for left boundaries) and whole-word matches still waiting
+     * for their right boundary.
+     */
+    public static class State {
+        private final KeywordScanner scanner;
+        private final boolean[] recentWordChars;
+        private final BitSet hits;
+        private final BitSet pending;
+        private int node;
+        private long position;
+
+        private State(KeywordScanner scanner) {
+            this.scanner = scanner;
+            this.recentWordChars = new boolean[scanner.maxLength + 1];
+            this.hits = new BitSet(scanner.keywordCount);
+            this.pending = new BitSet(scanner.keywordCount);
+        }
+
+        private State(State other) {
+            this.scanner = other.scanner;
+            this.recentWordChars = other.recentWordChars.clone();
+            this.hits = (BitSet) other.hits.clone();
+            this.pending = (BitSet) other.pending.clone();
+            this.node = other.node;
+            this.position = other.position;
+        }
+
+        private void recordWordFlag(boolean word) {
+            recentWordChars[(int) ((position - 1) % recentWordChars.length)] = word;
+        }
+
+        /**
+         * Whether the character at the 1-based position is a word character (false before the text).
+         */
+        private boolean wordCharAt(long pos) {
+            return pos >= 1 && recentWordChars[(int) ((pos - 1) % recentWordChars.length)];
+        }
+
+        /**
+         * Number of characters scanned so far.
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Keywords found so far, treating the current end as the end of the text.
+         */
+        public Hits hits() {
+            BitSet found = (BitSet) hits.clone();
+            found.or(pending);
+            return new Hits(scanner, found);
+        }
+
+        /**
+         * Independent copy of this state.
+         */
+        public State copy() {
+            return new State(this);
+        }
+    }
+
+    /**
+     * Immutable set of keywords found in a text.
+     */
+    public static class Hits {
+        private final KeywordScanner scanner;
+        private final BitSet found;
+
+        private Hits(KeywordScanner scanner, BitSet found) {
+            this.scanner = scanner;
+            this.found = found;
+        }
+
+        /**
+         * True if the substring keyword occurs in the text.
+         */
+        public boolean contains(String keyword) {
+            return isSet(scanner.substringIds.get(keyword), keyword);
+        }
+
+        /**
+         * True if the whole-word keyword occurs in the text.
+         */
+        public boolean containsWord(String word) {
+            return isSet(scanner.wordIds.get(word), word);
+        }
+
+        /**
+         * True if any of the substring keywords occurs in the text.
+         */
+        public boolean containsAny(String... keywords) {
+            for (String keyword : keywords) {
+                if (contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isSet(Integer id, String keyword) {
+            if (id == null) {
+                throw new IllegalArgumentException("Keyword not registered with scanner: " + keyword);
+            }
+            return found.get(id);
+        }
+
+        public boolean isEmpty() {
+            return found.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Hits)) return false;
+            Hits other = (Hits) o;
+            return scanner == other.scanner && found.equals(other.found);
+        }
+
+        @Override
+        public int hashCode() {
+            return found.hashCode();
+        }
+    }
+}
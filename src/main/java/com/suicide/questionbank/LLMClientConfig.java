@@ -0,0 +1,213 @@
+package com.suicide.questionbank;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP, concurrency and circuit breaker settings for calls to the LLM API, read from the
+ * llm.http.*, llm.concurrency.* and llm.breaker.* properties. Builds the single OkHttpClient that
+ * LLMService shares across blocking, async and streaming calls, so connections stay pooled and
+ * warm between requests.
+ */
+@Component
+public class LLMClientConfig {
+    // Defaults sized for hosted APIs and for slow local models (Ollama) alike
+    public static final long DEFAULT_CONNECT_TIMEOUT_MS = 10_000L;
+    public static final long DEFAULT_READ_TIMEOUT_MS = 120_000L;
+    public static final long DEFAULT_WRITE_TIMEOUT_MS = 10_000L;
+    public static final long DEFAULT_CALL_TIMEOUT_MS = 180_000L;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 16;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 300_000L;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final int DEFAULT_MAX_QUEUED = 64;
+    public static final int DEFAULT_BREAKER_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_BREAKER_OPEN_MS = 30_000L;
+    public static final long DEFAULT_BREAKER_MAX_OPEN_MS = 600_000L;
+    /** Extra time a chat request waits beyond the call timeout, for queueing and the fallback. */
+    public static final long RESPONSE_TIMEOUT_MARGIN_MS = 30_000L;
+
+    private final long connectTimeoutMillis;
+    private final long readTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final long callTimeoutMillis;
+    private final int maxIdleConnections;
+    private final long keepAliveMillis;
+    private final int maxRequestsPerHost;
+    private final boolean http2;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final int breakerFailureThreshold;
+    private final long breakerOpenMillis;
+    private final long breakerMaxOpenMillis;
+
+    /**
+     * Create the settings from application properties.
+     * A max-requests-per-host of 0 (the default) means "same as max-in-flight".
+     * A breaker failure threshold of 0 turns the circuit breaker off.
+     */
+    @Autowired
+    public LLMClientConfig(
+            @Value("${llm.http.connect-timeout-ms:" + DEFAULT_CONNECT_TIMEOUT_MS + "}") long connectTimeoutMillis,
+            @Value("${llm.http.read-timeout-ms:" + DEFAULT_READ_TIMEOUT_MS + "}") long readTimeoutMillis,
+            @Value("${llm.http.write-timeout-ms:" + DEFAULT_WRITE_TIMEOUT_MS + "}") long writeTimeoutMillis,
+            @Value("${llm.http.call-timeout-ms:" + DEFAULT_CALL_TIMEOUT_MS + "}") long callTimeoutMillis,
+            @Value("${llm.http.max-idle-connections:" + DEFAULT_MAX_IDLE_CONNECTIONS + "}") int maxIdleConnections,
+            @Value("${llm.http.keep-alive-ms:" + DEFAULT_KEEP_ALIVE_MS + "}") long keepAliveMillis,
+            @Value("${llm.http.max-requests-per-host:0}") int maxRequestsPerHost,
+            @Value("${llm.http.http2:true}") boolean http2,
+            @Value("${llm.concurrency.max-in-flight:" + DEFAULT_MAX_IN_FLIGHT + "}") int maxInFlight,
+            @Value("${llm.concurrency.max-queued:" + DEFAULT_MAX_QUEUED + "}") int maxQueued,
+            @Value("${llm.breaker.failure-threshold:" + DEFAULT_BREAKER_FAILURE_THRESHOLD + "}") int breakerFailureThreshold,
+            @Value("${llm.breaker.open-ms:" + DEFAULT_BREAKER_OPEN_MS + "}") long breakerOpenMillis,
+            @Value("${llm.breaker.max-open-ms:" + DEFAULT_BREAKER_MAX_OPEN_MS + "}") long breakerMaxOpenMillis) {
+        this.connectTimeoutMillis = Math.max(0, connectTimeoutMillis);
+        this.readTimeoutMillis = Math.max(0, readTimeoutMillis);
+        this.writeTimeoutMillis = Math.max(0, writeTimeoutMillis);
+        this.callTimeoutMillis = Math.max(0, callTimeoutMillis);
+        this.maxIdleConnections = Math.max(0, maxIdleConnections);
+        this.keepAliveMillis = Math.max(1, keepAliveMillis);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxRequestsPerHost = maxRequestsPerHost > 0 ? maxRequestsPerHost : this.maxInFlight;
+        this.http2 = http2;
+        this.breakerFailureThreshold = Math.max(0, breakerFailureThreshold);
+        this.breakerOpenMillis = Math.max(0, breakerOpenMillis);
+        this.breakerMaxOpenMillis = Math.max(this.breakerOpenMillis, breakerMaxOpenMillis);
+    }
+
+    /**
+     * Default settings, for use outside Spring.
+     */
+    public static LLMClientConfig defaults() {
+        return withConcurrency(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Default HTTP settings with explicit concurrency limits.
+     */
+    public static LLMClientConfig withConcurrency(int maxInFlight, int maxQueued) {
+        return new LLMClientConfig(DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS, DEFAULT_WRITE_TIMEOUT_MS,
+                                   DEFAULT_CALL_TIMEOUT_MS, DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_MS,
+                                   0, true, maxInFlight, maxQueued, DEFAULT_BREAKER_FAILURE_THRESHOLD,
+                                   DEFAULT_BREAKER_OPEN_MS, DEFAULT_BREAKER_MAX_OPEN_MS);
+    }
+
+    /**
+     * Build the HTTP client described by these settings.
+     * The call timeout bounds a whole non-streaming call from the moment the dispatcher runs it.
+     * Streams are exempt (see {@link #streamingClient(OkHttpClient)}).
+     */
+    public OkHttpClient buildClient() {
+        OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+            .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS)
+            .callTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS)
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+            .protocols(http2
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+            .retryOnConnectionFailure(true)
+            .build();
+        client.dispatcher().setMaxRequests(maxInFlight);
+        client.dispatcher().setMaxRequestsPerHost(maxRequestsPerHost);
+        return client;
+    }
+
+    /**
+     * Derive the client used for streamed responses. It shares the pool and dispatcher of the
+     * given client but has no overall call timeout: a long answer may keep streaming as long as
+     * chunks keep arriving within the read timeout.
+     */
+    public OkHttpClient streamingClient(OkHttpClient client) {
+        return client.newBuilder()
+            .callTimeout(0, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Build a circuit breaker for one API endpoint. Each LLMService has its own, so with several
+     * providers one failing API does not stop calls to the others.
+     */
+    public CircuitBreaker newCircuitBreaker(String name) {
+        return new CircuitBreaker(name, breakerFailureThreshold, breakerOpenMillis, breakerMaxOpenMillis);
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * How long a chat request (plain or streamed) may wait for its answer: the call timeout plus
+     * {@link #RESPONSE_TIMEOUT_MARGIN_MS}, so the LLM call gives up before the request does.
+     * Returns -1 (no timeout) when the call timeout is off.
+     */
+    public long getResponseTimeoutMillis() {
+        return callTimeoutMillis > 0 ? callTimeoutMillis + RESPONSE_TIMEOUT_MARGIN_MS : -1;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public long getBreakerOpenMillis() {
+        return breakerOpenMillis;
+    }
+
+    public long getBreakerMaxOpenMillis() {
+        return breakerMaxOpenMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "connect=" + connectTimeoutMillis + "ms, read=" + readTimeoutMillis + "ms, write=" + writeTimeoutMillis +
+               "ms, call=" + callTimeoutMillis + "ms, pool=" + maxIdleConnections + " idle/" + keepAliveMillis +
+               "ms keep-alive, per-host=" + maxRequestsPerHost + ", http2=" + http2 +
+               ", in-flight=" + maxInFlight + ", queued=" + maxQueued +
+               ", breaker=" + (breakerFailureThreshold > 0 ? breakerFailureThreshold + " failures/" + breakerOpenMillis + "ms" : "off");
+    }
+}
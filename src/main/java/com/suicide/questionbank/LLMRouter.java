@@ -0,0 +1,602 @@
+package com.suicide.questionbank;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes LLM calls over several providers (e.g. a hosted API and a local Ollama).
+ *
+ * Each provider keeps an exponentially weighted moving average (EWMA) of its time to first
+ * token (the whole answer for non-streamed calls) and of its error rate. A call goes to the
+ * fastest healthy provider; if it fails before producing anything, the next one is tried.
+ * Providers whose error rate is above the limit are only tried after the healthy ones, except
+ * for one probe call per probe interval, which lets a recovered provider back in.
+ *
+ * With a hedge delay, a call that has not produced its first token by then is also sent to the
+ * next provider. Whichever answers first wins and the other call is cancelled, so one slow
+ * provider does not set the tail latency.
+ */
+public class LLMRouter extends LLMService {
+    private final List<Provider> providers;
+    private final long hedgeAfterMillis;
+    private final double maxErrorRate;
+    private final long probeIntervalMillis;
+    private final ScheduledExecutorService hedgeTimer;
+    private volatile ChatMetrics metrics = ChatMetrics.none();
+
+    /**
+     * @param providers Providers in order of preference while none has been measured yet
+     * @param hedgeAfterMillis Start a second provider when the first has not produced a token
+     *                         after this long (0 disables hedging)
+     * @param maxErrorRate Providers with a higher error rate (EWMA, 0 to 1) count as unhealthy
+     * @param probeIntervalMillis How often an unhealthy provider is tried first anyway
+     */
+    public LLMRouter(List<Provider> providers, long hedgeAfterMillis, double maxErrorRate, long probeIntervalMillis) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("LLM router needs at least one provider");
+        }
+        this.providers = Collections.unmodifiableList(new ArrayList<>(providers));
+        this.hedgeAfterMillis = Math.max(0, hedgeAfterMillis);
+        this.maxErrorRate = maxErrorRate;
+        this.probeIntervalMillis = Math.max(0, probeIntervalMillis);
+        this.hedgeTimer = this.hedgeAfterMillis > 0 && providers.size() > 1
+            ? Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "llm-hedge");
+                thread.setDaemon(true);
+                return thread;
+            })
+            : null;
+
+        System.out.println("LLM router initialized:");
+        for (Provider provider : providers) {
+            System.out.println("  Provider " + provider.getName() + ": " + provider.getService().getApiEndpoint());
+        }
+        System.out.println("  Hedging: " + (hedgeTimer != null ? "after " + this.hedgeAfterMillis + "ms" : "off") +
+                           ", unhealthy above " + Math.round(maxErrorRate * 100) + "% errors, probe every " +
+                           this.probeIntervalMillis + "ms");
+    }
+
+    /**
+     * Describe the providers, e.g. {@code router[openai, ollama]}.
+     */
+    @Override
+    public String getApiEndpoint() {
+        List<String> names = new ArrayList<>();
+        for (Provider provider : providers) {
+            names.add(provider.getName());
+        }
+        return "router[" + String.join(", ", names) + "]";
+    }
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Order the providers for one call: a provider due for a probe first, then healthy providers
+     * by latency (unmeasured ones first), then unhealthy ones by error rate.
+     */
+    List<Provider> rank() {
+        long now = System.nanoTime();
+        List<Provider> healthy = new ArrayList<>();
+        List<Provider> unhealthy = new ArrayList<>();
+        Provider probe = null;
+        for (Provider provider : providers) {
+            if (provider.getErrorRate() <= maxErrorRate) {
+                healthy.add(provider);
+            } else if (probe == null && provider.claimProbe(now, probeIntervalMillis)) {
+                probe = provider;
+            } else {
+                unhealthy.add(provider);
+            }
+        }
+        // Stable sorts keep the configured order among equals
+        healthy.sort(Comparator.comparingDouble(Provider::getLatencyMillis));
+        unhealthy.sort(Comparator.comparingDouble(Provider::getErrorRate));
+        List<Provider> order = new ArrayList<>(providers.size());
+        if (probe != null) {
+            order.add(probe);
+        }
+        order.addAll(healthy);
+        order.addAll(unhealthy);
+        return order;
+    }
+
+    @Override
+    public CompletableFuture<String> generateResponseAsync(String systemPrompt, String userMessage,
+                                                           List<Map<String, String>> conversationHistory) {
+        return new RoutedResponse(rank(), systemPrompt, userMessage, conversationHistory).start();
+    }
+
+    @Override
+    public StreamHandle streamResponse(String systemPrompt, String userMessage,
+                               List<Map<String, String>> conversationHistory, StreamListener listener) {
+        return new RoutedStream(rank(), systemPrompt, userMessage, conversationHistory, listener).start();
+    }
+
+    @Override
+    public int getOutstandingCalls() {
+        int outstanding = 0;
+        for (Provider provider : providers) {
+            outstanding += provider.getService().getOutstandingCalls();
+        }
+        return outstanding;
+    }
+
+    @Override
+    public int getInFlightCalls() {
+        int inFlight = 0;
+        for (Provider provider : providers) {
+            inFlight += provider.getService().getInFlightCalls();
+        }
+        return inFlight;
+    }
+
+    @Override
+    public int getQueuedCalls() {
+        int queued = 0;
+        for (Provider provider : providers) {
+            queued += provider.getService().getQueuedCalls();
+        }
+        return queued;
+    }
+
+    @Override
+    public void setMetrics(ChatMetrics metrics) {
+        ChatMetrics chatMetrics = metrics != null ? metrics : ChatMetrics.none();
+        this.metrics = chatMetrics;
+        for (Provider provider : providers) {
+            provider.getService().useMetrics(chatMetrics);
+            chatMetrics.gaugeProvider(provider);
+        }
+        super.setMetrics(chatMetrics);
+    }
+
+    private ScheduledFuture<?> scheduleHedge(Runnable hedge) {
+        return hedgeTimer != null ? hedgeTimer.schedule(hedge, hedgeAfterMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * A full local queue or an open circuit breaker is not a new observation of the provider.
+     */
+    private static boolean isLocalRejection(Throwable error) {
+        return error instanceof QueueFullException || error instanceof CircuitOpenException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * One non-streamed call: tries the providers in order and hedges to the next one when slow.
+     */
+    private class RoutedResponse {
+        private final List<Provider> order;
+        private final String systemPrompt;
+        private final String userMessage;
+        private final List<Map<String, String>> conversationHistory;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final List<Pending> running = new ArrayList<>();
+        private int next;
+        private IOException lastError;
+        private ScheduledFuture<?> hedge;
+
+        RoutedResponse(List<Provider> order, String systemPrompt, String userMessage,
+                       List<Map<String, String>> conversationHistory) {
+            this.order = order;
+            this.systemPrompt = systemPrompt;
+            this.userMessage = userMessage;
+            this.conversationHistory = conversationHistory;
+        }
+
+        CompletableFuture<String> start() {
+            synchronized (this) {
+                launch();
+                hedge = scheduleHedge(this::hedge);
+            }
+            result.whenComplete((response, error) -> finish());
+            return result;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (result.isDone() || running.size() != 1 || next >= order.size()) {
+                    return;
+                }
+                System.out.println("🔄 No LLM answer after " + hedgeAfterMillis + "ms, also asking " + order.get(next).getName());
+                metrics.recordHedge();
+                launch();
+            }
+        }
+
+        /**
+         * Start the next provider. Must hold the lock.
+         */
+        private boolean launch() {
+            if (next >= order.size()) {
+                return false;
+            }
+            Pending call = new Pending(order.get(next++));
+            running.add(call);
+            call.future = call.provider.getService()
+                .generateResponseAsync(systemPrompt, userMessage, conversationHistory);
+            call.future.whenComplete((response, error) -> onResult(call, response, error));
+            return true;
+        }
+
+        private void onResult(Pending call, String response, Throwable error) {
+            Provider provider = call.provider;
+            if (error == null) {
+                synchronized (this) {
+                    running.remove(call);
+                }
+                provider.recordSuccess(millisSince(call.start));
+                result.complete(response);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException || result.isDone()) {
+                return;
+            }
+            if (!isLocalRejection(cause)) {
+                provider.recordFailure();
+            }
+            synchronized (this) {
+                running.remove(call);
+                lastError = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                if (!running.isEmpty()) {
+                    return;
+                }
+                if (next < order.size()) {
+                    System.err.println("⚠️ LLM provider " + provider.getName() + " failed (" + cause.getMessage() +
+                                       "), trying " + order.get(next).getName());
+                    launch();
+                    return;
+                }
+            }
+            result.completeExceptionally(lastError);
+        }
+
+        /**
+         * Cancel the calls and the hedge that lost (or all of them, when the caller cancelled).
+         * A provider that lost a race is at least as slow as the time it had, which is recorded
+         * so that it is not picked first again on stale numbers.
+         */
+        private void finish() {
+            List<Pending> calls;
+            synchronized (this) {
+                if (hedge != null) {
+                    hedge.cancel(false);
+                }
+                calls = new ArrayList<>(running);
+                running.clear();
+            }
+            for (Pending call : calls) {
+                if (call.future.cancel(true) && !result.isCancelled()) {
+                    call.provider.recordLatency(millisSince(call.start));
+                }
+            }
+        }
+    }
+
+    /**
+     * A provider's part of a non-streamed call.
+     */
+    private static class Pending {
+        private final Provider provider;
+        private final long start = System.nanoTime();
+        private CompletableFuture<String> future;
+
+        Pending(Provider provider) {
+            this.provider = provider;
+        }
+    }
+
+    /**
+     * One streamed call. The first provider to send a token wins; only its stream reaches the listener.
+     */
+    private class RoutedStream {
+        private final List<Provider> order;
+        private final String systemPrompt;
+        private final String userMessage;
+        private final List<Map<String, String>> conversationHistory;
+        private final StreamListener listener;
+        private final RoutedHandle routedHandle = new RoutedHandle();
+        private final List<Attempt> running = new ArrayList<>();
+        private int next;
+        private Attempt winner;
+        private boolean finished;
+        private IOException lastError;
+        private ScheduledFuture<?> hedge;
+
+        RoutedStream(List<Provider> order, String systemPrompt, String userMessage,
+                     List<Map<String, String>> conversationHistory, StreamListener listener) {
+            this.order = order;
+            this.systemPrompt = systemPrompt;
+            this.userMessage = userMessage;
+            this.conversationHistory = conversationHistory;
+            this.listener = listener;
+        }
+
+        StreamHandle start() {
+            synchronized (this) {
+                launch();
+                if (!finished) {
+                    hedge = scheduleHedge(this::hedge);
+                }
+            }
+            return routedHandle;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (finished || winner != null || routedHandle.isCanceled() || running.size() != 1 || next >= order.size()) {
+                    return;
+                }
+                System.out.println("🔄 No LLM token after " + hedgeAfterMillis + "ms, also streaming from " + order.get(next).getName());
+                metrics.recordHedge();
+                launch();
+            }
+        }
+
+        /**
+         * Start the next provider; one that rejects the call right away moves on to the following one.
+         * Must hold the lock.
+         */
+        private void launch() {
+            while (next < order.size() && !routedHandle.isCanceled()) {
+                Attempt attempt = new Attempt(order.get(next++));
+                running.add(attempt);
+                attempt.handle = attempt.provider.getService()
+                    .streamResponse(systemPrompt, userMessage, conversationHistory, attempt);
+                if (attempt.handle != null) {
+                    routedHandle.add(attempt.handle);
+                    return;
+                }
+                // Rejected: onError already ran (re-entrantly) and recorded why
+                running.remove(attempt);
+            }
+            if (running.isEmpty() && !finished) {
+                fail();
+            }
+        }
+
+        /**
+         * Give up: every provider failed. Must hold the lock.
+         */
+        private void fail() {
+            finished = true;
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+            listener.onError(lastError != null ? lastError : new IOException("No LLM provider available"));
+        }
+
+        /**
+         * Called for each attempt's first token; the first one decides the winner.
+         *
+         * @return true if this attempt may stream to the listener
+         */
+        private boolean claim(Attempt attempt) {
+            List<Attempt> losers = new ArrayList<>();
+            synchronized (this) {
+                if (winner == null && !finished) {
+                    winner = attempt;
+                    if (hedge != null) {
+                        hedge.cancel(false);
+                    }
+                    for (Attempt other : running) {
+                        if (other != attempt) {
+                            losers.add(other);
+                        }
+                    }
+                }
+                if (winner != attempt) {
+                    return false;
+                }
+            }
+            for (Attempt loser : losers) {
+                if (loser.handle != null) {
+                    loser.handle.cancel();
+                }
+                // The loser was at least this slow (see RoutedResponse#finish)
+                loser.provider.recordLatency(millisSince(loser.start));
+            }
+            return true;
+        }
+
+        private void onAttemptError(Attempt attempt, IOException e) {
+            if (!isLocalRejection(e)) {
+                attempt.provider.recordFailure();
+            }
+            synchronized (this) {
+                if (attempt == winner) {
+                    // Tokens already went out - report like a single provider would
+                    finished = true;
+                    listener.onError(e);
+                    return;
+                }
+                running.remove(attempt);
+                lastError = e;
+                if (finished || winner != null || !running.isEmpty()) {
+                    return;
+                }
+                if (attempt.handle != null && next < order.size()) {
+                    System.err.println("⚠️ LLM provider " + attempt.provider.getName() + " failed (" + e.getMessage() +
+                                       "), trying " + order.get(next).getName());
+                    launch();
+                } else if (attempt.handle != null) {
+                    fail();
+                }
+                // A synchronous rejection is handled by the launch loop that started the attempt
+            }
+        }
+
+        /**
+         * Listener for one provider's stream.
+         */
+        private class Attempt implements StreamListener {
+            private final Provider provider;
+            private final long start = System.nanoTime();
+            private volatile StreamHandle handle;
+            private boolean streaming;
+
+            Attempt(Provider provider) {
+                this.provider = provider;
+            }
+
+            @Override
+            public void onToken(String token) {
+                if (!streaming) {
+                    if (!claim(this)) {
+                        return;
+                    }
+                    streaming = true;
+                    provider.recordLatency(millisSince(start));
+                }
+                listener.onToken(token);
+            }
+
+            @Override
+            public void onComplete(String fullResponse) {
+                if (!streaming && !claim(this)) {
+                    return;
+                }
+                if (!streaming) {
+                    // An empty answer still counts as this provider's answer
+                    provider.recordLatency(millisSince(start));
+                }
+                provider.recordOutcome(true);
+                synchronized (RoutedStream.this) {
+                    finished = true;
+                }
+                listener.onComplete(fullResponse);
+            }
+
+            @Override
+            public void onError(IOException e) {
+                onAttemptError(this, e);
+            }
+        }
+    }
+
+    /**
+     * The provider streams of one routed stream, cancelled together.
+     */
+    private static class RoutedHandle implements StreamHandle {
+        private final List<StreamHandle> handles = new ArrayList<>();
+        private boolean canceled;
+
+        synchronized void add(StreamHandle handle) {
+            handles.add(handle);
+            if (canceled) {
+                handle.cancel();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            List<StreamHandle> toCancel;
+            synchronized (this) {
+                canceled = true;
+                toCancel = new ArrayList<>(handles);
+            }
+            for (StreamHandle handle : toCancel) {
+                handle.cancel();
+            }
+        }
+
+        synchronized boolean isCanceled() {
+            return canceled;
+        }
+    }
+
+    /**
+     * One LLM provider with its latency and error rate.
+     */
+    public static class Provider {
+        private final String name;
+        private final LLMService service;
+        private final double alpha;
+        private volatile double latencyMillis;
+        private volatile double errorRate;
+        private volatile long samples;
+        private final AtomicLong lastProbeNanos = new AtomicLong(System.nanoTime());
+
+        /**
+         * @param name Name used in logs and metrics
+         * @param service Service calling this provider's API
+         * @param alpha Weight of each new sample in the moving averages (0 to 1)
+         */
+        public Provider(String name, LLMService service, double alpha) {
+            this.name = name;
+            this.service = service;
+            this.alpha = Math.min(1, Math.max(0.01, alpha));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LLMService getService() {
+            return service;
+        }
+
+        /**
+         * Moving average of the time to first token in milliseconds (0 until measured).
+         */
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * Moving average of the share of failed calls (0 to 1).
+         */
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        synchronized void recordSuccess(long millis) {
+            recordLatency(millis);
+            recordOutcome(true);
+        }
+
+        synchronized void recordFailure() {
+            recordOutcome(false);
+        }
+
+        synchronized void recordLatency(long millis) {
+            latencyMillis = samples == 0 ? millis : latencyMillis + alpha * (millis - latencyMillis);
+            samples++;
+        }
+
+        synchronized void recordOutcome(boolean success) {
+            errorRate += alpha * ((success ? 0 : 1) - errorRate);
+        }
+
+        /**
+         * Claim the next probe if the probe interval has passed since the last one.
+         */
+        boolean claimProbe(long nowNanos, long intervalMillis) {
+            long last = lastProbeNanos.get();
+            return nowNanos - last >= TimeUnit.MILLISECONDS.toNanos(intervalMillis)
+                && lastProbeNanos.compareAndSet(last, nowNanos);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.suicide.questionbank;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for routing LLM calls over several providers, read from the llm.router.* properties.
+ *
+ * Routing is on when {@code llm.router.providers} lists provider names; each name then needs
+ * {@code llm.router.provider.<name>.endpoint} and may set {@code .key} and {@code .model}.
+ * The single-provider llm.api.* settings are not used while routing is on.
+ */
+@Component
+public class LLMRouterConfig {
+    public static final long DEFAULT_HEDGE_AFTER_MS = 0L;
+    public static final double DEFAULT_EWMA_ALPHA = 0.2;
+    public static final double DEFAULT_MAX_ERROR_RATE = 0.5;
+    public static final long DEFAULT_PROBE_INTERVAL_MS = 10_000L;
+
+    private final List<String> providerNames = new ArrayList<>();
+    private final Environment environment;
+    private final long hedgeAfterMillis;
+    private final double ewmaAlpha;
+    private final double maxErrorRate;
+    private final long probeIntervalMillis;
+
+    @Autowired
+    public LLMRouterConfig(
+            @Value("${llm.router.providers:}") String providers,
+            @Value("${llm.router.hedge-after-ms:" + DEFAULT_HEDGE_AFTER_MS + "}") long hedgeAfterMillis,
+            @Value("${llm.router.ewma-alpha:" + DEFAULT_EWMA_ALPHA + "}") double ewmaAlpha,
+            @Value("${llm.router.max-error-rate:" + DEFAULT_MAX_ERROR_RATE + "}") double maxErrorRate,
+            @Value("${llm.router.probe-interval-ms:" + DEFAULT_PROBE_INTERVAL_MS + "}") long probeIntervalMillis,
+            Environment environment) {
+        for (String name : providers.split(",")) {
+            if (!name.trim().isEmpty()) {
+                providerNames.add(name.trim());
+            }
+        }
+        this.environment = environment;
+        this.hedgeAfterMillis = Math.max(0, hedgeAfterMillis);
+        this.ewmaAlpha = ewmaAlpha;
+        this.maxErrorRate = maxErrorRate;
+        this.probeIntervalMillis = Math.max(0, probeIntervalMillis);
+    }
+
+    /**
+     * Check whether any providers are configured for routing.
+     */
+    public boolean isEnabled() {
+        return !providerNames.isEmpty();
+    }
+
+    public List<String> getProviderNames() {
+        return providerNames;
+    }
+
+    /**
+     * Build a router with one LLMService per provider. Each provider gets its own HTTP client
+     * (and so its own concurrency limits) built from the shared llm.http.* settings.
+     *
+     * @throws IllegalArgumentException If a provider has no endpoint
+     */
+    public LLMRouter buildRouter(LLMClientConfig clientConfig) {
+        List<LLMRouter.Provider> providers = new ArrayList<>();
+        for (String name : providerNames) {
+            String prefix = "llm.router.provider." + name + ".";
+            String endpoint = environment.getProperty(prefix + "endpoint", "").trim();
+            if (endpoint.isEmpty()) {
+                throw new IllegalArgumentException("No endpoint configured for LLM provider '" + name + "' (" + prefix + "endpoint)");
+            }
+            String key = environment.getProperty(prefix + "key", "").trim();
+            String model = environment.getProperty(prefix + "model", "gpt-3.5-turbo").trim();
+            LLMService service = new LLMService(key, endpoint, model, false, null, clientConfig);
+            providers.add(new LLMRouter.Provider(name, service, ewmaAlpha));
+        }
+        return new LLMRouter(providers, hedgeAfterMillis, maxErrorRate, probeIntervalMillis);
+    }
+
+    public long getHedgeAfterMillis() {
+        return hedgeAfterMillis;
+    }
+
+    public double getEwmaAlpha() {
+        return ewmaAlpha;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public long getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+}
@@ -3,11 +3,21 @@ package com.suicide.questionbank;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import io.micrometer.core.instrument.Timer;
 import okhttp3.*;
+import okio.BufferedSource;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for interacting with LLM APIs (OpenAI-compatible).
@@ -19,11 +29,19 @@ import java.util.Map;
 public class LLMService {
     private final String apiKey;
     private final String apiEndpoint;
+    private final String requestUrl;
     private final String model;
     private final OkHttpClient httpClient;
+    private final OkHttpClient streamingClient;
     private final Gson gson;
     private final boolean useCustomAuthHeader;
     private final String customAuthHeaderName;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final CircuitBreaker circuitBreaker;
+    private volatile PromptTemplate promptTemplate = PromptTemplate.empty();
+    private volatile ChatMetrics metrics = ChatMetrics.none();
     
     // Default to OpenAI, but can be configured for other providers
     private static final String DEFAULT_ENDPOINT = "https://api.openai.com/v1/chat/completions";
@@ -49,12 +67,39 @@ public class LLMService {
      */
     public LLMService(String apiKey, String apiEndpoint, String model, 
                      boolean useCustomAuthHeader, String customAuthHeaderName) {
+        this(apiKey, apiEndpoint, model, useCustomAuthHeader, customAuthHeaderName, LLMClientConfig.defaults());
+    }
+    
+    /**
+     * Create LLM service with explicit HTTP and concurrency settings.
+     * One pooled client is built from the settings and shared by every call.
+     * A {@code mock://} endpoint is served by {@link MockLLMBackend} instead of a real API.
+     * At most maxInFlight calls run against the API at once; up to maxQueued more wait for a slot.
+     * Calls beyond that are rejected immediately with {@link QueueFullException}, so a slow upstream
+     * cannot pile up unbounded work.
+     */
+    public LLMService(String apiKey, String apiEndpoint, String model, 
+                     boolean useCustomAuthHeader, String customAuthHeaderName,
+                     LLMClientConfig clientConfig) {
         this.apiKey = apiKey;
         this.apiEndpoint = apiEndpoint;
         this.model = model;
         this.useCustomAuthHeader = useCustomAuthHeader;
         this.customAuthHeaderName = customAuthHeaderName != null ? customAuthHeaderName : "Authorization";
-        this.httpClient = new OkHttpClient();
+        this.maxInFlight = clientConfig.getMaxInFlight();
+        this.maxQueued = clientConfig.getMaxQueued();
+        if (MockLLMBackend.isMockEndpoint(apiEndpoint)) {
+            // mock:// endpoints are answered in-process by an interceptor; nothing reaches the network
+            this.requestUrl = MockLLMBackend.REQUEST_URL;
+            this.httpClient = clientConfig.buildClient().newBuilder()
+                .addInterceptor(MockLLMBackend.fromEndpoint(apiEndpoint))
+                .build();
+        } else {
+            this.requestUrl = apiEndpoint;
+            this.httpClient = clientConfig.buildClient();
+        }
+        this.streamingClient = clientConfig.streamingClient(httpClient);
+        this.circuitBreaker = clientConfig.newCircuitBreaker(apiEndpoint);
         this.gson = new Gson();
         
         // Log configuration (without exposing API key)
@@ -62,6 +107,28 @@ public class LLMService {
         System.out.println("  Endpoint: " + apiEndpoint);
         System.out.println("  Model: " + model);
         System.out.println("  API Key: " + (apiKey != null && !apiKey.isEmpty() ? "***configured***" : "NOT SET"));
+        System.out.println("  HTTP client: " + clientConfig);
+        System.out.println("  Circuit breaker: " + circuitBreaker);
+    }
+    
+    /**
+     * Create a service that makes no API calls itself. Subclasses that hand calls to other
+     * services ({@link LLMRouter}) override {@link #generateResponseAsync} and {@link #streamResponse};
+     * prompt building and the context methods are inherited.
+     */
+    protected LLMService() {
+        this.apiKey = null;
+        this.apiEndpoint = null;
+        this.requestUrl = null;
+        this.model = null;
+        this.httpClient = null;
+        this.streamingClient = null;
+        this.gson = new Gson();
+        this.useCustomAuthHeader = false;
+        this.customAuthHeaderName = "Authorization";
+        this.maxInFlight = 0;
+        this.maxQueued = 0;
+        this.circuitBreaker = CircuitBreaker.disabled();
     }
     
     /**
@@ -73,8 +140,231 @@ public class LLMService {
     
     /**
      * Generate a response using the LLM with conversation history.
+     * Blocks the calling thread; the call still counts against the concurrency limits.
      */
     public String generateResponse(String systemPrompt, String userMessage, List<Map<String, String>> conversationHistory) throws IOException {
+        CompletableFuture<String> future = generateResponseAsync(systemPrompt, userMessage, conversationHistory);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("LLM API call failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the LLM API");
+        }
+    }
+    
+    /**
+     * Generate a response using the LLM without blocking the calling thread.
+     * The request is sent with OkHttp's {@code enqueue}; cancelling the future cancels the call.
+     * 
+     * @return A future completed with the response text, or exceptionally with an IOException
+     */
+    public CompletableFuture<String> generateResponseAsync(String systemPrompt, String userMessage, 
+                                                           List<Map<String, String>> conversationHistory) {
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.failedFuture(circuitOpen());
+        }
+        if (!tryAcquireSlot()) {
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(queueFull());
+        }
+        
+        Call call;
+        try {
+            call = httpClient.newCall(buildRequest(systemPrompt, userMessage, conversationHistory, false));
+        } catch (RuntimeException e) {
+            releaseSlot();
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(new IOException("Invalid LLM API request: " + e.getMessage(), e));
+        }
+        
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        ChatMetrics callMetrics = metrics;
+        Timer.Sample roundTrip = callMetrics.start();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                releaseSlot();
+                if (!failedCall.isCanceled()) {
+                    System.err.println("❌ Error calling LLM API: " + e.getMessage());
+                    callMetrics.stopLLM(roundTrip, false);
+                    circuitBreaker.recordFailure(e);
+                } else {
+                    circuitBreaker.release();
+                }
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                IOException failure = null;
+                String llmResponse = null;
+                try {
+                    llmResponse = readCompletion(response);
+                } catch (IOException e) {
+                    System.err.println("❌ Error calling LLM API: " + e.getMessage());
+                    failure = e;
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Error calling LLM API: " + e.getMessage());
+                    failure = new IOException("Invalid LLM API response: " + e.getMessage(), e);
+                } finally {
+                    releaseSlot();
+                }
+                if (failure == null) {
+                    callMetrics.stopLLM(roundTrip, true);
+                    circuitBreaker.recordSuccess();
+                    future.complete(llmResponse);
+                } else {
+                    if (!completedCall.isCanceled()) {
+                        callMetrics.stopLLM(roundTrip, false);
+                        circuitBreaker.recordFailure(failure);
+                    } else {
+                        circuitBreaker.release();
+                    }
+                    future.completeExceptionally(failure);
+                }
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Read the answer out of a non-streaming chat completion response.
+     */
+    private String readCompletion(Response response) throws IOException {
+        try (ResponseBody body = response.body()) {
+            System.out.println("LLM API Response Code: " + response.code());
+            if (!response.isSuccessful()) {
+                throw apiError(response, body != null ? body.string() : "Unknown error");
+            }
+            
+            String responseBody = body.string();
+            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+            
+            // Check for errors in response
+            if (jsonResponse.has("error")) {
+                JsonObject error = jsonResponse.getAsJsonObject("error");
+                String errorMsg = error.has("message") ? error.get("message").getAsString() : "Unknown error";
+                throw new IOException("LLM API error: " + errorMsg);
+            }
+            
+            JsonArray choices = jsonResponse.getAsJsonArray("choices");
+            if (choices == null || choices.size() == 0) {
+                throw new IOException("No choices in LLM response");
+            }
+            
+            JsonObject firstChoice = choices.get(0).getAsJsonObject();
+            JsonObject message = firstChoice.getAsJsonObject("message");
+            if (message == null || !message.has("content")) {
+                throw new IOException("Invalid response format: missing message content");
+            }
+            String llmResponse = message.get("content").getAsString();
+            System.out.println("✅ LLM API call successful! Response length: " + llmResponse.length() + " chars");
+            return llmResponse;
+        }
+    }
+    
+    /**
+     * Reserve a slot for one call (running or queued in the dispatcher).
+     */
+    private boolean tryAcquireSlot() {
+        int limit = maxInFlight + maxQueued;
+        while (true) {
+            int current = outstanding.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (outstanding.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void releaseSlot() {
+        outstanding.decrementAndGet();
+    }
+    
+    private CircuitOpenException circuitOpen() {
+        long retryAfterMillis = circuitBreaker.getRemainingOpenMillis();
+        return new CircuitOpenException("LLM calls are paused after upstream failures (circuit breaker open, " +
+                                        "next try in " + (retryAfterMillis + 999) / 1000 + "s)", retryAfterMillis);
+    }
+    
+    private QueueFullException queueFull() {
+        System.err.println("❌ LLM request rejected: " + maxInFlight + " calls in flight and " + maxQueued + " queued");
+        return new QueueFullException("LLM request queue is full. Please try again in a moment.");
+    }
+    
+    /**
+     * Get the number of calls currently running or waiting for a slot.
+     */
+    public int getOutstandingCalls() {
+        return outstanding.get();
+    }
+    
+    /**
+     * Get the number of calls the dispatcher is running (streamed calls until their stream ends).
+     */
+    public int getInFlightCalls() {
+        return httpClient.dispatcher().runningCallsCount();
+    }
+    
+    /**
+     * Get the number of calls waiting in the dispatcher for a free slot.
+     */
+    public int getQueuedCalls() {
+        return httpClient.dispatcher().queuedCallsCount();
+    }
+    
+    /**
+     * Record prompt build and round-trip times, and the running and queued calls, in the given meters.
+     */
+    public void setMetrics(ChatMetrics metrics) {
+        useMetrics(metrics);
+        this.metrics.gaugeCalls(this);
+        if (circuitBreaker.isEnabled()) {
+            this.metrics.gaugeCircuitBreaker(ChatMetrics.DEFAULT_PROVIDER, circuitBreaker);
+        }
+    }
+    
+    /**
+     * Record timings in the given meters without registering the call gauges
+     * (for services whose calls are already counted by a router).
+     */
+    void useMetrics(ChatMetrics metrics) {
+        this.metrics = metrics != null ? metrics : ChatMetrics.none();
+    }
+    
+    /**
+     * Get the circuit breaker guarding calls to this service's API.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    /**
+     * Get the configured API endpoint.
+     */
+    public String getApiEndpoint() {
+        return apiEndpoint;
+    }
+    
+    /**
+     * Build the chat completion request, optionally asking the API to stream the answer.
+     */
+    private Request buildRequest(String systemPrompt, String userMessage, 
+                                 List<Map<String, String>> conversationHistory, boolean stream) {
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("model", model);
         
@@ -105,6 +395,9 @@ public class LLMService {
         requestBody.add("messages", messages);
         requestBody.addProperty("temperature", 0.7);
         requestBody.addProperty("max_tokens", 1000);
+        if (stream) {
+            requestBody.addProperty("stream", true);
+        }
         
         RequestBody body = RequestBody.create(
             requestBody.toString(),
@@ -112,9 +405,12 @@ public class LLMService {
         );
         
         Request.Builder requestBuilder = new Request.Builder()
-            .url(apiEndpoint)
+            .url(requestUrl)
             .post(body)
             .addHeader("Content-Type", "application/json");
+        if (stream) {
+            requestBuilder.addHeader("Accept", "text/event-stream");
+        }
         
         // Add authentication header (skip for Ollama/local LLMs)
         if (apiKey != null && !apiKey.trim().isEmpty() && !apiKey.equals("not-needed")) {
@@ -128,168 +424,317 @@ public class LLMService {
         }
         // If apiKey is "not-needed", skip authentication (for Ollama)
         
-        Request request = requestBuilder.build();
-        
-        System.out.println("Making LLM API call to: " + apiEndpoint);
+        System.out.println("Making LLM API call to: " + apiEndpoint + (stream ? " (streaming)" : ""));
         System.out.println("Model: " + model);
         System.out.println("Message count: " + messages.size());
         
-        try (Response response = httpClient.newCall(request).execute()) {
-            System.out.println("LLM API Response Code: " + response.code());
-            if (!response.isSuccessful()) {
-                String errorBody = response.body() != null ? response.body().string() : "Unknown error";
-                System.err.println("❌ LLM API Error Response: " + errorBody);
-                System.err.println("Response Code: " + response.code());
-                
-                // Provide helpful error messages
-                if (response.code() == 401) {
-                    throw new IOException("Invalid API key. Please check your OpenAI API key in application.properties or environment variables.");
-                } else if (response.code() == 429) {
-                    throw new IOException("Rate limit or quota exceeded. Please add billing to your OpenAI account: https://platform.openai.com/account/billing");
-                } else if (response.code() == 500) {
-                    throw new IOException("OpenAI server error. Please try again in a moment.");
-                }
-                
-                throw new IOException("LLM API request failed: " + response.code() + " - " + errorBody);
-            }
-            
-            String responseBody = response.body().string();
-            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
-            
-            // Check for errors in response
-            if (jsonResponse.has("error")) {
-                JsonObject error = jsonResponse.getAsJsonObject("error");
-                String errorMsg = error.has("message") ? error.get("message").getAsString() : "Unknown error";
-                throw new IOException("LLM API error: " + errorMsg);
-            }
-            
-            JsonArray choices = jsonResponse.getAsJsonArray("choices");
-            if (choices == null || choices.size() == 0) {
-                throw new IOException("No choices in LLM response");
+        return requestBuilder.build();
+    }
+    
+    /**
+     * Turn an unsuccessful HTTP response into a helpful exception.
+     */
+    private static ApiException apiError(Response response, String errorBody) {
+        int code = response.code();
+        System.err.println("❌ LLM API Error Response: " + errorBody);
+        System.err.println("Response Code: " + code);
+        long retryAfterMillis = retryAfterMillis(response);
+        boolean quotaExhausted = code == 429 && errorBody.contains("insufficient_quota");
+        
+        // Provide helpful error messages
+        String message;
+        if (code == 401) {
+            message = "Invalid API key. Please check your OpenAI API key in application.properties or environment variables.";
+        } else if (code == 429) {
+            message = quotaExhausted
+                ? "Quota exceeded (insufficient_quota). Please add billing to your OpenAI account: https://platform.openai.com/account/billing"
+                : "Rate limit exceeded (429). Please try again in a moment.";
+        } else if (code == 500) {
+            message = "OpenAI server error. Please try again in a moment.";
+        } else {
+            message = "LLM API request failed: " + code + " - " + errorBody;
+        }
+        return new ApiException(message, code, retryAfterMillis, quotaExhausted);
+    }
+    
+    /**
+     * Read how long the server asked us to wait, from {@code retry-after-ms} or {@code Retry-After}
+     * (seconds or an HTTP date).
+     * 
+     * @return The wait in milliseconds, or -1 if the response does not say
+     */
+    static long retryAfterMillis(Response response) {
+        String millis = response.header("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Math.max(0, (long) Double.parseDouble(millis.trim()));
+            } catch (NumberFormatException e) {
+                // Fall through to Retry-After
             }
-            
-            JsonObject firstChoice = choices.get(0).getAsJsonObject();
-            JsonObject message = firstChoice.getAsJsonObject("message");
-            if (message == null || !message.has("content")) {
-                throw new IOException("Invalid response format: missing message content");
+        }
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException unparseable) {
+                return -1;
             }
-            String llmResponse = message.get("content").getAsString();
-            System.out.println("✅ LLM API call successful! Response length: " + llmResponse.length() + " chars");
-            return llmResponse;
-        } catch (IOException e) {
-            System.err.println("❌ Error calling LLM API: " + e.getMessage());
-            System.err.println("Full error: ");
-            e.printStackTrace();
-            throw e;
         }
     }
     
     /**
-     * Generate a response with resources and questions as context (RAG approach).
+     * Stream a response using the LLM with conversation history.
+     * Sends {@code "stream": true} and relays each content delta of the server-sent event stream
+     * to the listener as soon as it arrives. The call runs on OkHttp's dispatcher threads.
+     * 
+     * @return A handle to cancel the stream (e.g. when the client disconnects),
+     *         or null if the call was rejected and the listener already received the error
      */
-    public String generateResponseWithContext(
-            String userMessage,
-            List<com.suicide.questionbank.Resource> relevantResources,
-            List<Question> relevantQuestions,
-            List<Map<String, String>> conversationHistory) throws IOException {
-        
-        // Build context from resources
-        StringBuilder contextBuilder = new StringBuilder();
-        contextBuilder.append("You are an AI assistant for CRISIS RESPONDERS at the Nashville Suicide Prevention Center. ");
-        contextBuilder.append("Your role is to help crisis responders (hotline workers, counselors, support staff) ");
-        contextBuilder.append("find appropriate questions to ask and resources to suggest when helping people in crisis.\n\n");
-        contextBuilder.append("IMPORTANT: The user is a CRISIS RESPONDER helping someone else, NOT a person in crisis themselves.\n\n");
-        
-        contextBuilder.append("═══════════════════════════════════════════════════════════════\n");
-        contextBuilder.append("⚠️ CRITICAL INSTRUCTIONS - READ CAREFULLY ⚠️\n");
-        contextBuilder.append("═══════════════════════════════════════════════════════════════\n");
-        contextBuilder.append("The resources and questions below have been SPECIFICALLY matched to this user's situation.\n");
-        contextBuilder.append("You MUST reference them in your response. Do NOT give generic advice.\n\n");
-        
-        contextBuilder.append("📋 AVAILABLE RESOURCES TO SUGGEST:\n");
-        contextBuilder.append("These resources are matched to the situation. Recommend at least one to the responder.\n");
-        if (relevantResources != null && !relevantResources.isEmpty()) {
-            for (int i = 0; i < Math.min(relevantResources.size(), 5); i++) {
-                com.suicide.questionbank.Resource r = relevantResources.get(i);
-                contextBuilder.append(String.format("%d. %s\n", i + 1, r.getName()));
-                if (r.getDescription() != null) {
-                    contextBuilder.append("   Description: ").append(r.getDescription()).append("\n");
-                }
-                if (r.getCategories() != null && !r.getCategories().isEmpty()) {
-                    contextBuilder.append("   Categories: ").append(String.join(", ", r.getCategories())).append("\n");
+    public StreamHandle streamResponse(String systemPrompt, String userMessage, 
+                               List<Map<String, String>> conversationHistory, StreamListener listener) {
+        if (!circuitBreaker.allowRequest()) {
+            listener.onError(circuitOpen());
+            return null;
+        }
+        if (!tryAcquireSlot()) {
+            circuitBreaker.release();
+            listener.onError(queueFull());
+            return null;
+        }
+        Call call;
+        try {
+            call = streamingClient.newCall(buildRequest(systemPrompt, userMessage, conversationHistory, true));
+        } catch (RuntimeException e) {
+            releaseSlot();
+            circuitBreaker.release();
+            listener.onError(new IOException("Invalid LLM API request: " + e.getMessage(), e));
+            return null;
+        }
+        ChatMetrics callMetrics = metrics;
+        Timer.Sample roundTrip = callMetrics.start();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                releaseSlot();
+                if (!failedCall.isCanceled()) {
+                    System.err.println("❌ Error calling LLM API: " + e.getMessage());
+                    callMetrics.stopLLM(roundTrip, false);
+                    circuitBreaker.recordFailure(e);
+                    listener.onError(e);
+                } else {
+                    circuitBreaker.release();
                 }
-                if (r.getPhones() != null) {
-                    if (r.getPhones().getPrimary() != null && r.getPhones().getPrimary().getNumber() != null) {
-                        contextBuilder.append("   Phone: ").append(r.getPhones().getPrimary().getNumber()).append("\n");
-                    } else if (r.getPhones().getHotline() != null && r.getPhones().getHotline().getNumber() != null) {
-                        contextBuilder.append("   Phone: ").append(r.getPhones().getHotline().getNumber()).append("\n");
+            }
+            
+            @Override
+            public void onResponse(Call streamingCall, Response response) {
+                boolean success = false;
+                IOException failure = null;
+                try (ResponseBody body = response.body()) {
+                    System.out.println("LLM API Response Code: " + response.code());
+                    if (!response.isSuccessful()) {
+                        throw apiError(response, body != null ? body.string() : "Unknown error");
+                    }
+                    String llmResponse = readEventStream(body.source(), listener);
+                    System.out.println("✅ LLM stream finished! Response length: " + llmResponse.length() + " chars");
+                    success = true;
+                    callMetrics.stopLLM(roundTrip, true);
+                    circuitBreaker.recordSuccess();
+                    listener.onComplete(llmResponse);
+                } catch (IOException e) {
+                    if (!streamingCall.isCanceled()) {
+                        System.err.println("❌ Error streaming LLM response: " + e.getMessage());
+                        failure = e;
+                        listener.onError(e);
+                    }
+                } catch (RuntimeException e) {
+                    if (success) {
+                        // The listener failed in onComplete; the stream itself ended fine
+                        System.err.println("❌ Error handling the LLM stream: " + e.getMessage());
+                    } else if (!streamingCall.isCanceled()) {
+                        System.err.println("❌ Error streaming LLM response: " + e.getMessage());
+                        failure = new IOException("Invalid LLM stream: " + e.getMessage(), e);
+                        listener.onError(failure);
+                    }
+                } finally {
+                    releaseSlot();
+                    if (!success && !streamingCall.isCanceled()) {
+                        callMetrics.stopLLM(roundTrip, false);
+                    }
+                    if (failure != null && !streamingCall.isCanceled()) {
+                        circuitBreaker.recordFailure(failure);
+                    } else if (!success) {
+                        circuitBreaker.release();
                     }
                 }
-                if (r.getFees() != null) {
-                    contextBuilder.append("   Cost: ").append(r.getFees()).append("\n");
-                }
-                contextBuilder.append("\n");
             }
-        } else {
-            contextBuilder.append("No specific resources matched, but you can still provide general support.\n\n");
-        }
-        
-        // Add questions context if available
-        if (relevantQuestions != null && !relevantQuestions.isEmpty()) {
-            contextBuilder.append("\n❓ RELEVANT QUESTIONS FOR THE RESPONDER TO ASK:\n");
-            contextBuilder.append("These questions have been matched to the situation. Recommend at least one to the responder.\n");
-            for (int i = 0; i < Math.min(relevantQuestions.size(), 3); i++) {
-                Question q = relevantQuestions.get(i);
-                contextBuilder.append(String.format("%d. %s\n", i + 1, q.getQuestion()));
-                if (q.getTone() != null) {
-                    contextBuilder.append("   (Tone: ").append(q.getTone()).append(")\n");
+        });
+        return call::cancel;
+    }
+    
+    /**
+     * Read an OpenAI-style event stream until {@code [DONE]} or end of body.
+     * Events are separated by blank lines; their {@code data:} lines hold one JSON chunk
+     * whose {@code choices[0].delta.content} is the next piece of the answer.
+     * 
+     * @return The full response text
+     */
+    private String readEventStream(BufferedSource source, StreamListener listener) throws IOException {
+        StringBuilder fullResponse = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (!dispatchEvent(data, fullResponse, listener)) {
+                    return fullResponse.toString();
+                }
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
                 }
+                data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
             }
-            contextBuilder.append("\n");
-        } else {
-            contextBuilder.append("\n(No specific questions matched for this situation)\n\n");
+            // Comments (":"), event names and ids are not used by chat completions
+        }
+        dispatchEvent(data, fullResponse, listener);
+        return fullResponse.toString();
+    }
+    
+    /**
+     * Handle one buffered event.
+     * 
+     * @return false once the stream signalled it is done
+     */
+    private boolean dispatchEvent(StringBuilder data, StringBuilder fullResponse, StreamListener listener) throws IOException {
+        if (data.length() == 0) {
+            return true;
+        }
+        String payload = data.toString().trim();
+        data.setLength(0);
+        if (payload.equals("[DONE]")) {
+            return false;
         }
         
-        contextBuilder.append("═══════════════════════════════════════════════════════════════\n");
-        contextBuilder.append("📝 RESPONSE REQUIREMENTS (MANDATORY - DO NOT IGNORE):\n");
-        contextBuilder.append("═══════════════════════════════════════════════════════════════\n");
-        contextBuilder.append("⚠️ CRITICAL: You MUST use the resources and questions listed above. ");
-        contextBuilder.append("Do NOT give generic advice. Do NOT make up resources. ");
-        contextBuilder.append("ONLY use the resources and questions provided.\n\n");
-        contextBuilder.append("Your response MUST include ALL of the following:\n\n");
-        contextBuilder.append("1. CONTEXT: Acknowledge what the responder is dealing with (1-2 sentences)\n");
-        contextBuilder.append("2. RESOURCES (REQUIRED): Suggest at least ONE resource by its EXACT NAME from the list above.\n");
-        contextBuilder.append("   - Use the EXACT resource name as shown above\n");
-        contextBuilder.append("   - Include the phone number if provided\n");
-        contextBuilder.append("   - Explain why this resource is relevant\n");
-        contextBuilder.append("   - Format: \"I recommend suggesting [EXACT RESOURCE NAME FROM ABOVE] to the person you're helping. ");
-        contextBuilder.append("They specialize in [what they do]. You can reach them at [PHONE NUMBER FROM ABOVE].\"\n\n");
-        contextBuilder.append("3. QUESTIONS (REQUIRED): Recommend at least ONE question from the RELEVANT QUESTIONS section above.\n");
-        contextBuilder.append("   - Use the EXACT question text or adapt it naturally\n");
-        contextBuilder.append("   - Format: \"Consider asking the person: '[Question from above, word-for-word or naturally adapted]'\"\n");
-        contextBuilder.append("   - Explain why this question is helpful for this situation\n\n");
-        contextBuilder.append("4. GUIDANCE: Provide brief professional guidance (2-3 sentences) on how to use these resources/questions\n\n");
+        JsonObject chunk;
+        try {
+            chunk = gson.fromJson(payload, JsonObject.class);
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid stream chunk from LLM API: " + payload, e);
+        }
+        if (chunk == null) {
+            return true;
+        }
         
-        contextBuilder.append("EXAMPLE RESPONSE STRUCTURE (follow this format):\n");
-        contextBuilder.append("\"Based on what you've described, here's how you can help:\n\n");
-        contextBuilder.append("RESOURCE RECOMMENDATION:\n");
-        contextBuilder.append("I recommend suggesting [EXACT RESOURCE NAME FROM THE LIST ABOVE] to the person you're helping. ");
-        contextBuilder.append("This resource [brief description from above]. ");
-        contextBuilder.append("You can contact them at [PHONE NUMBER FROM ABOVE].\n\n");
-        contextBuilder.append("QUESTION TO ASK:\n");
-        contextBuilder.append("Consider asking: '[EXACT QUESTION TEXT FROM THE RELEVANT QUESTIONS SECTION ABOVE]' ");
-        contextBuilder.append("This question will help you [explain why it's relevant].\n\n");
-        contextBuilder.append("GUIDANCE:\n");
-        contextBuilder.append("[2-3 sentences of professional guidance on how to use these resources and questions effectively].\"\n\n");
+        // Check for errors in response
+        if (chunk.has("error") && chunk.get("error").isJsonObject()) {
+            JsonObject error = chunk.getAsJsonObject("error");
+            String errorMsg = error.has("message") ? error.get("message").getAsString() : "Unknown error";
+            throw new IOException("LLM API error: " + errorMsg);
+        }
         
-        contextBuilder.append("⚠️ REMEMBER:\n");
-        contextBuilder.append("- You're helping a CRISIS RESPONDER, not a person in crisis\n");
-        contextBuilder.append("- Provide professional guidance and recommendations\n");
-        contextBuilder.append("- Reference specific resources and questions from the lists above\n");
-        contextBuilder.append("- Help the responder help others effectively\n\n");
+        JsonArray choices = chunk.getAsJsonArray("choices");
+        if (choices == null || choices.size() == 0) {
+            return true;
+        }
+        JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+        if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) {
+            return true;
+        }
+        String token = delta.get("content").getAsString();
+        if (!token.isEmpty()) {
+            fullResponse.append(token);
+            listener.onToken(token);
+        }
+        return true;
+    }
+    
+    /**
+     * Generate a response with resources and questions as context (RAG approach).
+     */
+    public String generateResponseWithContext(
+            String userMessage,
+            List<com.suicide.questionbank.Resource> relevantResources,
+            List<Question> relevantQuestions,
+            List<Map<String, String>> conversationHistory) throws IOException {
+        return generateResponse(
+            buildContextPrompt(relevantResources, relevantQuestions),
+            buildContextUserMessage(userMessage, relevantResources),
+            conversationHistory);
+    }
+    
+    /**
+     * Generate a response with resources and questions as context without blocking the calling thread.
+     */
+    public CompletableFuture<String> generateResponseWithContextAsync(
+            String userMessage,
+            List<com.suicide.questionbank.Resource> relevantResources,
+            List<Question> relevantQuestions,
+            List<Map<String, String>> conversationHistory) {
+        return generateResponseAsync(
+            buildContextPrompt(relevantResources, relevantQuestions),
+            buildContextUserMessage(userMessage, relevantResources),
+            conversationHistory);
+    }
+    
+    /**
+     * Stream a response with resources and questions as context (RAG approach).
+     * 
+     * @return A handle to cancel the stream, or null if the call was rejected
+     */
+    public StreamHandle streamResponseWithContext(
+            String userMessage,
+            List<com.suicide.questionbank.Resource> relevantResources,
+            List<Question> relevantQuestions,
+            List<Map<String, String>> conversationHistory,
+            StreamListener listener) {
+        return streamResponse(
+            buildContextPrompt(relevantResources, relevantQuestions),
+            buildContextUserMessage(userMessage, relevantResources),
+            conversationHistory,
+            listener);
+    }
+    
+    /**
+     * Build the system prompt that carries the matched resources and questions.
+     */
+    private String buildContextPrompt(
+            List<com.suicide.questionbank.Resource> relevantResources,
+            List<Question> relevantQuestions) {
+        Timer.Sample sample = metrics.start();
+        String systemPrompt = promptTemplate.render(relevantResources, relevantQuestions);
+        metrics.stop(sample, ChatMetrics.PROMPT);
         
-        String systemPrompt = contextBuilder.toString();
+        // Log the variable part to verify resources/questions are included (the prefix never changes)
+        String context = systemPrompt.substring(PromptTemplate.getPrefix().length());
+        System.out.println("\n📝 System prompt: " + systemPrompt.length() + " chars (" + 
+                           PromptTemplate.getPrefix().length() + " char constant prefix). Context preview:");
+        System.out.println(context.substring(0, Math.min(800, context.length())) + "...\n");
         
+        return systemPrompt;
+    }
+    
+    /**
+     * Use a template with precomputed resource and question snippets.
+     * Called at startup and whenever the directory or question bank is reloaded.
+     */
+    public void setPromptTemplate(PromptTemplate promptTemplate) {
+        this.promptTemplate = promptTemplate != null ? promptTemplate : PromptTemplate.empty();
+    }
+    
+    public PromptTemplate getPromptTemplate() {
+        return promptTemplate;
+    }
+    
+    /**
+     * Append the names of the matched resources to the responder's message.
+     */
+    private String buildContextUserMessage(String userMessage, List<com.suicide.questionbank.Resource> relevantResources) {
         // Enhance user message to include resource names directly
         StringBuilder enhancedUserMessage = new StringBuilder(userMessage);
         if (relevantResources != null && !relevantResources.isEmpty()) {
@@ -305,12 +750,98 @@ public class LLMService {
             }
             enhancedUserMessage.append(". Recommend at least one of these to the responder.]");
         }
+        return enhancedUserMessage.toString();
+    }
+    
+    /**
+     * Thrown when the API answers with an error status.
+     */
+    public static class ApiException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int statusCode;
+        private final long retryAfterMillis;
+        private final boolean quotaExhausted;
+        
+        public ApiException(String message, int statusCode, long retryAfterMillis, boolean quotaExhausted) {
+            super(message);
+            this.statusCode = statusCode;
+            this.retryAfterMillis = retryAfterMillis;
+            this.quotaExhausted = quotaExhausted;
+        }
         
-        // Log the system prompt (first 800 chars) to verify resources/questions are included
-        System.out.println("\n📝 System prompt preview (first 800 chars):");
-        System.out.println(systemPrompt.substring(0, Math.min(800, systemPrompt.length())) + "...\n");
+        public int getStatusCode() {
+            return statusCode;
+        }
         
-        return generateResponse(systemPrompt, enhancedUserMessage.toString(), conversationHistory);
+        /**
+         * How long the server asked us to wait before retrying, or -1 if it did not say.
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+        
+        /**
+         * Whether the account has no quota left (429 insufficient_quota), as opposed to a rate limit.
+         */
+        public boolean isQuotaExhausted() {
+            return quotaExhausted;
+        }
+    }
+    
+    /**
+     * Thrown without calling the API while the circuit breaker is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final long retryAfterMillis;
+        
+        public CircuitOpenException(String message, long retryAfterMillis) {
+            super(message);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+        
+        /**
+         * Time until the breaker lets a trial call through.
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+    
+    /**
+     * Thrown when the in-flight limit and the queue are both full.
+     */
+    public static class QueueFullException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Receives a streamed response. Callbacks arrive on an OkHttp dispatcher thread;
+     * exactly one of onComplete or onError ends the stream.
+     */
+    public interface StreamListener {
+        /** Next piece of the response text. */
+        void onToken(String token);
+        
+        /** The stream finished; the argument is the concatenation of all tokens. */
+        void onComplete(String fullResponse);
+        
+        /** The call or the stream failed (not called when the call is cancelled). */
+        void onError(IOException e);
+    }
+    
+    /**
+     * Handle on an in-flight streamed response.
+     */
+    public interface StreamHandle {
+        /** Stop the stream; the listener gets no further callbacks. Safe to call more than once. */
+        void cancel();
     }
 }
 
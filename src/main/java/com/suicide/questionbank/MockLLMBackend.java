@@ -0,0 +1,342 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import okhttp3.*;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Embedded chat completions backend for offline performance tests.
+ *
+ * Selected with {@code llm.api.endpoint=mock://local?...} (or the {@code mock-llm} Spring profile).
+ * It is installed as an OkHttp interceptor, so requests go through the real client, dispatcher
+ * and concurrency limits of {@link LLMService} but never reach the network. Answers are
+ * deterministic and echo the request: the responder's message and the resources offered in
+ * the prompt, so tests can check what context was sent.
+ *
+ * Settings (query parameters of the mock URL):
+ * <pre>
+ *   ttft-ms=200          time to first token
+ *   tokens-per-sec=50    rate of the remaining tokens (0 = all at once)
+ *   tokens=0             pad or cut answers to this many tokens (0 = natural length)
+ *   fail-429=0           share of calls answered 429 insufficient_quota (with Retry-After)
+ *   fail-500=0           share of calls answered 500
+ *   fail-timeout=0       share of calls that never answer (fail with a read timeout)
+ *   retry-after-s=20     Retry-After sent with 429 answers
+ *   seed=1               seed for choosing which calls fail
+ * </pre>
+ */
+public class MockLLMBackend implements Interceptor {
+    /** Scheme of mock endpoints. */
+    public static final String SCHEME = "mock";
+
+    /** URL the requests are addressed to; the interceptor answers before anything is sent. */
+    static final String REQUEST_URL = "http://mock-llm.invalid/v1/chat/completions";
+
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final MediaType EVENT_STREAM = MediaType.get("text/event-stream");
+    private static final String FILLER = " (mock)";
+    private static final String RESOURCES_MARKER = "suggest to the person in crisis: ";
+
+    private final long firstTokenMillis;
+    private final double tokensPerSecond;
+    private final int tokens;
+    private final double fail429;
+    private final double fail500;
+    private final double failTimeout;
+    private final long retryAfterSeconds;
+    private final Random random;
+    private final Gson gson = new Gson();
+
+    public MockLLMBackend(long firstTokenMillis, double tokensPerSecond, int tokens,
+                          double fail429, double fail500, double failTimeout, long retryAfterSeconds, long seed) {
+        this.firstTokenMillis = Math.max(0, firstTokenMillis);
+        this.tokensPerSecond = tokensPerSecond;
+        this.tokens = Math.max(0, tokens);
+        this.fail429 = fail429;
+        this.fail500 = fail500;
+        this.failTimeout = failTimeout;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Check whether an endpoint selects the mock backend.
+     */
+    public static boolean isMockEndpoint(String endpoint) {
+        return endpoint != null && endpoint.trim().toLowerCase().startsWith(SCHEME + "://");
+    }
+
+    /**
+     * Create the backend described by a mock endpoint URL.
+     *
+     * @throws IllegalArgumentException If the URL or one of its settings is invalid
+     */
+    public static MockLLMBackend fromEndpoint(String endpoint) {
+        Map<String, String> settings = new HashMap<>();
+        String query = URI.create(endpoint.trim()).getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                settings.put(key, value);
+            }
+        }
+        Set<String> known = new HashSet<>(Arrays.asList(
+            "ttft-ms", "tokens-per-sec", "tokens", "fail-429", "fail-500", "fail-timeout", "retry-after-s", "seed"));
+        for (String key : settings.keySet()) {
+            if (!known.contains(key)) {
+                throw new IllegalArgumentException("Unknown mock LLM setting '" + key + "'. Known settings: " + known);
+            }
+        }
+        try {
+            return new MockLLMBackend(
+                Long.parseLong(settings.getOrDefault("ttft-ms", "200")),
+                Double.parseDouble(settings.getOrDefault("tokens-per-sec", "50")),
+                Integer.parseInt(settings.getOrDefault("tokens", "0")),
+                Double.parseDouble(settings.getOrDefault("fail-429", "0")),
+                Double.parseDouble(settings.getOrDefault("fail-500", "0")),
+                Double.parseDouble(settings.getOrDefault("fail-timeout", "0")),
+                Long.parseLong(settings.getOrDefault("retry-after-s", "20")),
+                Long.parseLong(settings.getOrDefault("seed", "1")));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid mock LLM setting in " + endpoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        JsonObject body = readBody(request);
+        boolean stream = body.has("stream") && body.get("stream").getAsBoolean();
+
+        double roll;
+        synchronized (random) {
+            roll = random.nextDouble();
+        }
+        if (roll < failTimeout) {
+            // Hang like an unresponsive upstream until the client gives up
+            sleep(chain, chain.readTimeoutMillis() > 0 ? chain.readTimeoutMillis() : 60_000);
+            throw new SocketTimeoutException("timeout");
+        }
+        sleep(chain, firstTokenMillis);
+        if (roll < failTimeout + fail429) {
+            return error(request, 429, "You exceeded your current quota, please check your plan and billing details.",
+                         "insufficient_quota")
+                .header("Retry-After", String.valueOf(retryAfterSeconds))
+                .build();
+        }
+        if (roll < failTimeout + fail429 + fail500) {
+            return error(request, 500, "The server had an error while processing your request.", "server_error").build();
+        }
+
+        List<String> answer = tokenize(answerFor(body));
+        if (stream) {
+            return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(Okio.buffer(new EventStream(chain.call(), answer)), EVENT_STREAM, -1))
+                .build();
+        }
+
+        sleep(chain, restMillis(answer.size() - 1));
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", String.join("", answer));
+        JsonObject choice = new JsonObject();
+        choice.add("message", message);
+        return ok(request, completion(choice));
+    }
+
+    /**
+     * Deterministic answer echoing the responder's message and the resources offered in the prompt.
+     */
+    private String answerFor(JsonObject body) {
+        String userMessage = "";
+        JsonArray messages = body.has("messages") ? body.getAsJsonArray("messages") : new JsonArray();
+        for (JsonElement element : messages) {
+            JsonObject message = element.getAsJsonObject();
+            if (message.has("role") && "user".equals(message.get("role").getAsString()) && message.has("content")) {
+                userMessage = message.get("content").getAsString();
+            }
+        }
+
+        // The last user message carries the responder's text and the resources to recommend
+        String resources = null;
+        int context = userMessage.indexOf("\n\n[CONTEXT FOR RESPONDER:");
+        if (context >= 0) {
+            int start = userMessage.indexOf(RESOURCES_MARKER, context);
+            int end = userMessage.indexOf(". Recommend", context);
+            if (start >= 0 && end > start) {
+                resources = userMessage.substring(start + RESOURCES_MARKER.length(), end);
+            }
+            userMessage = userMessage.substring(0, context);
+        }
+
+        String quoted = userMessage.length() > 120 ? userMessage.substring(0, 120) + "..." : userMessage;
+        StringBuilder answer = new StringBuilder("Mock answer to: \"").append(quoted.trim()).append("\".");
+        answer.append(resources != null ? " Suggested resources: " + resources + "." : " No resources were offered.");
+        answer.append(" Conversation messages: ").append(messages.size()).append('.');
+        return answer.toString();
+    }
+
+    /**
+     * Split into tokens of one word each (with its leading space), padded or cut to the configured count.
+     */
+    private List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        for (String word : text.split(" ")) {
+            result.add(result.isEmpty() ? word : " " + word);
+        }
+        if (tokens > 0) {
+            while (result.size() < tokens) {
+                result.add(FILLER);
+            }
+            return new ArrayList<>(result.subList(0, tokens));
+        }
+        return result;
+    }
+
+    private long restMillis(int remainingTokens) {
+        return tokensPerSecond > 0 && remainingTokens > 0 ? Math.round(remainingTokens * 1000 / tokensPerSecond) : 0;
+    }
+
+    private JsonObject readBody(Request request) throws IOException {
+        if (request.body() == null) {
+            return new JsonObject();
+        }
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        JsonObject body = gson.fromJson(buffer.readUtf8(), JsonObject.class);
+        return body != null ? body : new JsonObject();
+    }
+
+    private JsonObject completion(JsonObject choice) {
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject completion = new JsonObject();
+        completion.addProperty("object", "chat.completion");
+        completion.addProperty("model", "mock");
+        completion.add("choices", choices);
+        return completion;
+    }
+
+    private static Response ok(Request request, JsonObject json) {
+        return new Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .body(ResponseBody.create(json.toString(), JSON))
+            .build();
+    }
+
+    private static Response.Builder error(Request request, int code, String message, String type) {
+        JsonObject error = new JsonObject();
+        error.addProperty("message", message);
+        error.addProperty("type", type);
+        error.addProperty("code", type);
+        JsonObject json = new JsonObject();
+        json.add("error", error);
+        return new Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message(code == 429 ? "Too Many Requests" : "Internal Server Error")
+            .body(ResponseBody.create(json.toString(), JSON));
+    }
+
+    /**
+     * Sleep in short slices so a cancelled call stops waiting.
+     */
+    private static void sleep(Chain chain, long millis) throws IOException {
+        sleep(chain.call(), millis);
+    }
+
+    private static void sleep(Call call, long millis) throws IOException {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        try {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                if (call.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                Thread.sleep(Math.min(50, Math.max(1, remaining / 1_000_000L)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted");
+        }
+    }
+
+    /**
+     * Server-sent event stream that releases one token per tick.
+     */
+    private class EventStream implements Source {
+        private final Call call;
+        private final List<String> answer;
+        private final Buffer pending = new Buffer();
+        private int next;
+        private boolean done;
+
+        EventStream(Call call, List<String> answer) {
+            this.call = call;
+            this.answer = answer;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (pending.size() == 0) {
+                if (done) {
+                    return -1;
+                }
+                if (next < answer.size()) {
+                    if (next > 0) {
+                        sleep(call, restMillis(1));
+                    }
+                    JsonObject delta = new JsonObject();
+                    delta.addProperty("content", answer.get(next++));
+                    JsonObject choice = new JsonObject();
+                    choice.add("delta", delta);
+                    JsonObject chunk = completion(choice);
+                    chunk.addProperty("object", "chat.completion.chunk");
+                    pending.writeUtf8("data: ").writeUtf8(chunk.toString()).writeUtf8("\n\n");
+                } else {
+                    pending.writeUtf8("data: [DONE]\n\n");
+                    done = true;
+                }
+            }
+            return pending.read(sink, Math.min(byteCount, pending.size()));
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+            pending.clear();
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+
+/**
+ * Precompiled system prompt for context-aware (RAG) chat responses.
+ *
+ * The prompt is laid out as a constant prefix (role, instructions, response requirements and
+ * example) followed by the variable resource and question sections. The prefix is built once,
+ * so every request starts with byte-identical text and providers that cache prompt prefixes can
+ * reuse it. The per-resource and per-question snippets are rendered once at load time; a request
+ * only concatenates the snippets of the items it selected.
+ *
+ * Instances are immutable; build a new one when the directory or question bank changes.
+ */
+public class PromptTemplate {
+    /** Maximum number of resources listed in the prompt. */
+    public static final int MAX_RESOURCES = 5;
+
+    /** Maximum number of questions listed in the prompt. */
+    public static final int MAX_QUESTIONS = 3;
+
+    private static final String RULE = "═══════════════════════════════════════════════════════════════\n";
+
+    private static final String PREFIX = buildPrefix();
+
+    private static final String RESOURCES_HEADER =
+        RULE +
+        "📋 AVAILABLE RESOURCES TO SUGGEST:\n" +
+        "These resources are matched to the situation. Recommend at least one to the responder.\n";
+    private static final String NO_RESOURCES =
+        "No specific resources matched, but you can still provide general support.\n\n";
+    private static final String QUESTIONS_HEADER =
+        "\n❓ RELEVANT QUESTIONS FOR THE RESPONDER TO ASK:\n" +
+        "These questions have been matched to the situation. Recommend at least one to the responder.\n";
+    private static final String NO_QUESTIONS =
+        "\n(No specific questions matched for this situation)\n\n";
+
+    private final Map<com.suicide.questionbank.Resource, String> resourceSnippets;
+    private final Map<Question, String> questionSnippets;
+
+    private PromptTemplate(Map<com.suicide.questionbank.Resource, String> resourceSnippets,
+                           Map<Question, String> questionSnippets) {
+        this.resourceSnippets = resourceSnippets;
+        this.questionSnippets = questionSnippets;
+    }
+
+    /**
+     * Template without precomputed snippets; every snippet is rendered on demand.
+     */
+    public static PromptTemplate empty() {
+        return new PromptTemplate(Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Build a template with the snippets of every resource and question rendered up front.
+     */
+    public static PromptTemplate build(List<com.suicide.questionbank.Resource> resources, List<Question> questions) {
+        Map<com.suicide.questionbank.Resource, String> resourceSnippets = new IdentityHashMap<>(resources.size() * 2);
+        for (com.suicide.questionbank.Resource r : resources) {
+            resourceSnippets.put(r, renderResource(r));
+        }
+        Map<Question, String> questionSnippets = new IdentityHashMap<>(questions.size() * 2);
+        for (Question q : questions) {
+            questionSnippets.put(q, renderQuestion(q));
+        }
+        return new PromptTemplate(resourceSnippets, questionSnippets);
+    }
+
+    /**
+     * Get the constant part of the system prompt, identical for every request.
+     */
+    public static String getPrefix() {
+        return PREFIX;
+    }
+
+    /**
+     * Render the full system prompt: the constant prefix followed by the selected resources and questions.
+     */
+    public String render(List<com.suicide.questionbank.Resource> relevantResources, List<Question> relevantQuestions) {
+        StringBuilder prompt = new StringBuilder(PREFIX.length() + 2048);
+        prompt.append(PREFIX);
+        appendContext(prompt, relevantResources, relevantQuestions);
+        return prompt.toString();
+    }
+
+    /**
+     * Render only the variable part of the system prompt.
+     */
+    public String renderContext(List<com.suicide.questionbank.Resource> relevantResources, List<Question> relevantQuestions) {
+        StringBuilder context = new StringBuilder(2048);
+        appendContext(context, relevantResources, relevantQuestions);
+        return context.toString();
+    }
+
+    private void appendContext(StringBuilder out,
+                               List<com.suicide.questionbank.Resource> relevantResources,
+                               List<Question> relevantQuestions) {
+        out.append(RESOURCES_HEADER);
+        if (relevantResources != null && !relevantResources.isEmpty()) {
+            for (int i = 0; i < Math.min(relevantResources.size(), MAX_RESOURCES); i++) {
+                com.suicide.questionbank.Resource r = relevantResources.get(i);
+                out.append(i + 1).append(". ").append(resourceSnippet(r));
+            }
+        } else {
+            out.append(NO_RESOURCES);
+        }
+
+        if (relevantQuestions != null && !relevantQuestions.isEmpty()) {
+            out.append(QUESTIONS_HEADER);
+            for (int i = 0; i < Math.min(relevantQuestions.size(), MAX_QUESTIONS); i++) {
+                out.append(i + 1).append(". ").append(questionSnippet(relevantQuestions.get(i)));
+            }
+            out.append("\n");
+        } else {
+            out.append(NO_QUESTIONS);
+        }
+    }
+
+    private String resourceSnippet(com.suicide.questionbank.Resource r) {
+        String snippet = resourceSnippets.get(r);
+        return snippet != null ? snippet : renderResource(r);
+    }
+
+    private String questionSnippet(Question q) {
+        String snippet = questionSnippets.get(q);
+        return snippet != null ? snippet : renderQuestion(q);
+    }
+
+    /**
+     * Render one resource entry (everything after its list number).
+     */
+    static String renderResource(com.suicide.questionbank.Resource r) {
+        StringBuilder snippet = new StringBuilder();
+        snippet.append(r.getName()).append("\n");
+        if (r.getDescription() != null) {
+            snippet.append("   Description: ").append(r.getDescription()).append("\n");
+        }
+        if (r.getCategories() != null && !r.getCategories().isEmpty()) {
+            snippet.append("   Categories: ").append(String.join(", ", r.getCategories())).append("\n");
+        }
+        if (r.getPhones() != null) {
+            if (r.getPhones().getPrimary() != null && r.getPhones().getPrimary().getNumber() != null) {
+                snippet.append("   Phone: ").append(r.getPhones().getPrimary().getNumber()).append("\n");
+            } else if (r.getPhones().getHotline() != null && r.getPhones().getHotline().getNumber() != null) {
+                snippet.append("   Phone: ").append(r.getPhones().getHotline().getNumber()).append("\n");
+            }
+        }
+        if (r.getFees() != null) {
+            snippet.append("   Cost: ").append(r.getFees()).append("\n");
+        }
+        snippet.append("\n");
+        return snippet.toString();
+    }
+
+    /**
+     * Render one question entry (everything after its list number).
+     */
+    static String renderQuestion(Question q) {
+        StringBuilder snippet = new StringBuilder();
+        snippet.append(q.getQuestion()).append("\n");
+        if (q.getTone() != null) {
+            snippet.append("   (Tone: ").append(q.getTone()).append(")\n");
+        }
+        return snippet.toString();
+    }
+
+    /**
+     * Number of precomputed resource snippets.
+     */
+    public int getResourceSnippetCount() {
+        return resourceSnippets.size();
+    }
+
+    /**
+     * Number of precomputed question snippets.
+     */
+    public int getQuestionSnippetCount() {
+        return questionSnippets.size();
+    }
+
+    private static String buildPrefix() {
+        StringBuilder prefix = new StringBuilder();
+        prefix.append("You are an AI assistant for CRISIS RESPONDERS at the Nashville Suicide Prevention Center. ");
+        prefix.append("Your role is to help crisis responders (hotline workers, counselors, support staff) ");
+        prefix.append("find appropriate questions to ask and resources to suggest when helping people in crisis.\n\n");
+        prefix.append("IMPORTANT: The user is a CRISIS RESPONDER helping someone else, NOT a person in crisis themselves.\n\n");
+
+        prefix.append(RULE);
+        prefix.append("⚠️ CRITICAL INSTRUCTIONS - READ CAREFULLY ⚠️\n");
+        prefix.append(RULE);
+        prefix.append("The resources and questions below have been SPECIFICALLY matched to this user's situation.\n");
+        prefix.append("You MUST reference them in your response. Do NOT give generic advice.\n\n");
+
+        prefix.append(RULE);
+        prefix.append("📝 RESPONSE REQUIREMENTS (MANDATORY - DO NOT IGNORE):\n");
+        prefix.append(RULE);
+        prefix.append("⚠️ CRITICAL: You MUST use the resources and questions listed below. ");
+        prefix.append("Do NOT give generic advice. Do NOT make up resources. ");
+        prefix.append("ONLY use the resources and questions provided.\n\n");
+        prefix.append("Your response MUST include ALL of the following:\n\n");
+        prefix.append("1. CONTEXT: Acknowledge what the responder is dealing with (1-2 sentences)\n");
+        prefix.append("2. RESOURCES (REQUIRED): Suggest at least ONE resource by its EXACT NAME from the list below.\n");
+        prefix.append("   - Use the EXACT resource name as shown below\n");
+        prefix.append("   - Include the phone number if provided\n");
+        prefix.append("   - Explain why this resource is relevant\n");
+        prefix.append("   - Format: \"I recommend suggesting [EXACT RESOURCE NAME FROM BELOW] to the person you're helping. ");
+        prefix.append("They specialize in [what they do]. You can reach them at [PHONE NUMBER FROM BELOW].\"\n\n");
+        prefix.append("3. QUESTIONS (REQUIRED): Recommend at least ONE question from the RELEVANT QUESTIONS section below.\n");
+        prefix.append("   - Use the EXACT question text or adapt it naturally\n");
+        prefix.append("   - Format: \"Consider asking the person: '[Question from below, word-for-word or naturally adapted]'\"\n");
+        prefix.append("   - Explain why this question is helpful for this situation\n\n");
+        prefix.append("4. GUIDANCE: Provide brief professional guidance (2-3 sentences) on how to use these resources/questions\n\n");
+
+        prefix.append("EXAMPLE RESPONSE STRUCTURE (follow this format):\n");
+        prefix.append("\"Based on what you've described, here's how you can help:\n\n");
+        prefix.append("RESOURCE RECOMMENDATION:\n");
+        prefix.append("I recommend suggesting [EXACT RESOURCE NAME FROM THE LIST BELOW] to the person you're helping. ");
+        prefix.append("This resource [brief description from below]. ");
+        prefix.append("You can contact them at [PHONE NUMBER FROM BELOW].\n\n");
+        prefix.append("QUESTION TO ASK:\n");
+        prefix.append("Consider asking: '[EXACT QUESTION TEXT FROM THE RELEVANT QUESTIONS SECTION BELOW]' ");
+        prefix.append("This question will help you [explain why it's relevant].\n\n");
+        prefix.append("GUIDANCE:\n");
+        prefix.append("[2-3 sentences of professional guidance on how to use these resources and questions effectively].\"\n\n");
+
+        prefix.append("⚠️ REMEMBER:\n");
+        prefix.append("- You're helping a CRISIS RESPONDER, not a person in crisis\n");
+        prefix.append("- Provide professional guidance and recommendations\n");
+        prefix.append("- Reference specific resources and questions from the lists below\n");
+        prefix.append("- Help the responder help others effectively\n\n");
+        return prefix.toString();
+    }
+}
@@ -16,10 +16,9 @@ import java.util.stream.Collectors;
  * Provides utilities to load, filter, and retrieve questions from the question bank.
  */
 public class QuestionBankManager {
-    private Path jsonPath;
-    private Map<String, List<Question>> questionBank;
-    private Map<Integer, String> idToCategory;
-    private Map<Integer, Question> idToQuestion;
+    private final Path jsonPath;
+    private final Path snapshotPath;
+    private volatile BankData data;
     
     /**
      * Initialize the question bank manager.
@@ -27,9 +26,21 @@ public class QuestionBankManager {
      * @param jsonPath Path to the JSON file containing the question bank
      */
     public QuestionBankManager(String jsonPath) throws IOException {
+        this(jsonPath, null);
+    }
+    
+    /**
+     * Initialize the question bank manager with a binary snapshot of the JSON.
+     * The snapshot is used when it matches the JSON; otherwise the JSON is parsed and the
+     * snapshot is (re)written for the next start.
+     * 
+     * @param jsonPath Path to the JSON file containing the question bank
+     * @param snapshotPath Snapshot file, or null to always parse the JSON
+     */
+    public QuestionBankManager(String jsonPath, Path snapshotPath) throws IOException {
         this.jsonPath = Paths.get(jsonPath);
-        this.questionBank = loadQuestionBank();
-        buildIndex();
+        this.snapshotPath = snapshotPath;
+        this.data = new BankData(loadQuestionBank());
     }
     
     /**
@@ -40,50 +51,110 @@ public class QuestionBankManager {
     }
     
     /**
-     * Load the question bank from JSON file.
-     * Tries file path first, then classpath resource.
+     * Reload the question bank from its JSON file.
+     * The new bank is parsed and indexed on the calling thread, then published with a single
+     * reference swap: concurrent readers see either the old bank or the new one, never a mix,
+     * and never wait. If loading fails the current bank stays in place.
+     */
+    public void reload() throws IOException {
+        prepareReload().run();
+    }
+    
+    /**
+     * Parse and index the bank file without publishing it.
+     * Lets {@link DataReloader} load every data file before it publishes any of them.
+     *
+     * @return Publishes the new bank when run
+     */
+    Runnable prepareReload() throws IOException {
+        BankData fresh = new BankData(loadQuestionBank());
+        return () -> this.data = fresh;
+    }
+    
+    /**
+     * Get the question bank file on disk, or null if it is loaded from the classpath.
+     */
+    public Path getSourceFile() {
+        return Files.exists(jsonPath) ? jsonPath : null;
+    }
+    
+    /**
+     * Load the question bank, from the snapshot when it is current, otherwise from JSON.
      */
     private Map<String, List<Question>> loadQuestionBank() throws IOException {
-        Gson gson = new Gson();
-        Reader reader = null;
+        if (snapshotPath == null) {
+            return parseQuestionBank(openJson());
+        }
         
+        long start = System.nanoTime();
+        // Taken before the JSON is read, so an edit racing with the parse makes the snapshot stale
+        DataSnapshot.Fingerprint fingerprint = sourceFingerprint();
+        Map<String, List<Question>> snapshot = DataSnapshot.readQuestions(snapshotPath, fingerprint);
+        if (snapshot != null) {
+            System.out.println("📦 Loaded " + snapshot.size() + " question categories from snapshot in " + 
+                               (System.nanoTime() - start) / 1_000_000 + "ms");
+            return snapshot;
+        }
+        
+        Map<String, List<Question>> parsed = parseQuestionBank(openJson());
+        try {
+            DataSnapshot.writeQuestions(snapshotPath, fingerprint, parsed);
+            System.out.println("📦 Wrote question bank snapshot " + snapshotPath);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write question bank snapshot " + snapshotPath + ": " + e.getMessage());
+        }
+        return parsed;
+    }
+    
+    /**
+     * Open the JSON file.
+     * Tries file path first, then classpath resource.
+     */
+    private Reader openJson() throws IOException {
         // Try file path first
         if (Files.exists(jsonPath)) {
-            reader = Files.newBufferedReader(jsonPath);
-        } else {
-            // Try classpath resource
-            String resourcePath = jsonPath.getFileName().toString();
-            java.io.InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourcePath);
-            if (inputStream != null) {
-                reader = new InputStreamReader(inputStream, java.nio.charset.StandardCharsets.UTF_8);
-            } else {
-                throw new IOException("Question bank file not found: " + jsonPath + 
-                    " (also checked classpath for: " + resourcePath + ")");
-            }
+            return Files.newBufferedReader(jsonPath);
         }
-        
-        try (Reader r = reader) {
-            TypeToken<Map<String, List<Question>>> typeToken = new TypeToken<Map<String, List<Question>>>() {};
-            return gson.fromJson(r, typeToken.getType());
+        // Try classpath resource
+        String resourcePath = jsonPath.getFileName().toString();
+        java.io.InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourcePath);
+        if (inputStream != null) {
+            return new InputStreamReader(inputStream, java.nio.charset.StandardCharsets.UTF_8);
         }
+        throw new IOException("Question bank file not found: " + jsonPath + 
+            " (also checked classpath for: " + resourcePath + ")");
     }
     
     /**
-     * Build an index mapping question IDs to their categories.
+     * Fingerprint the JSON (file path first, then classpath resource) without reading it.
      */
-    private void buildIndex() {
-        this.idToCategory = new HashMap<>();
-        this.idToQuestion = new HashMap<>();
-        
-        for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
-            String category = entry.getKey();
-            List<Question> questions = entry.getValue();
-            
-            for (Question question : questions) {
-                int qid = question.getId();
-                idToCategory.put(qid, category);
-                idToQuestion.put(qid, question);
+    private DataSnapshot.Fingerprint sourceFingerprint() throws IOException {
+        if (Files.exists(jsonPath)) {
+            return DataSnapshot.Fingerprint.of(jsonPath);
+        }
+        String resourcePath = jsonPath.getFileName().toString();
+        java.net.URL resource = getClass().getClassLoader().getResource(resourcePath);
+        if (resource == null) {
+            throw new IOException("Question bank file not found: " + jsonPath + 
+                " (also checked classpath for: " + resourcePath + ")");
+        }
+        return DataSnapshot.Fingerprint.of(resource);
+    }
+    
+    /**
+     * Parse the question bank JSON.
+     */
+    private Map<String, List<Question>> parseQuestionBank(Reader reader) throws IOException {
+        Gson gson = new Gson();
+        try (Reader r = reader) {
+            TypeToken<Map<String, List<Question>>> typeToken = new TypeToken<Map<String, List<Question>>>() {};
+            Map<String, List<Question>> bank = gson.fromJson(r, typeToken.getType());
+            if (bank == null) {
+                throw new IOException("Question bank file is empty: " + jsonPath);
             }
+            return bank;
+        } catch (com.google.gson.JsonParseException e) {
+            throw new IOException("Invalid question bank JSON in " + jsonPath + ": " + e.getMessage(), e);
         }
     }
     
@@ -91,17 +162,18 @@ public class QuestionBankManager {
      * Get all available question categories.
      */
     public List<String> getCategories() {
-        return new ArrayList<>(questionBank.keySet());
+        return new ArrayList<>(data.questionBank.keySet());
     }
     
     /**
      * Get all questions for a specific category.
      * 
      * @param category The category name (e.g., 'attempt_in_progress')
-     * @return List of questions
+     * @return Immutable list of questions
      */
     public List<Question> getQuestionsByCategory(String category) {
-        return questionBank.getOrDefault(category, new ArrayList<>());
+        CategoryLists lists = data.categoryLists.get(category);
+        return lists != null ? lists.all : Collections.emptyList();
     }
     
     /**
@@ -111,7 +183,7 @@ public class QuestionBankManager {
      * @return Question or null if not found
      */
     public Question getQuestionById(int questionId) {
-        return idToQuestion.get(questionId);
+        return data.idToQuestion.get(questionId);
     }
     
     /**
@@ -123,7 +195,7 @@ public class QuestionBankManager {
      * @param tone Filter by tone (null for all)
      * @param useAfterRapport Filter by whether question should be used after rapport (null for all)
      * @param requireRapport If true, only return questions where useAfterRapport is true
-     * @return List of filtered questions
+     * @return Immutable list of filtered questions, in category then bank order
      */
     public List<Question> filterQuestions(
             String category,
@@ -133,41 +205,7 @@ public class QuestionBankManager {
             Boolean useAfterRapport,
             boolean requireRapport) {
         
-        List<Question> questions = new ArrayList<>();
-        
-        // Get questions from specified category or all categories
-        List<String> categories = (category != null) 
-            ? Collections.singletonList(category) 
-            : getCategories();
-        
-        for (String cat : categories) {
-            if (!questionBank.containsKey(cat)) {
-                continue;
-            }
-            
-            for (Question question : questionBank.get(cat)) {
-                // Apply filters
-                if (escalationTier != null && question.getEscalationTier() != escalationTier) {
-                    continue;
-                }
-                if (riskLevel != null && !question.getRiskLevel().equals(riskLevel)) {
-                    continue;
-                }
-                if (tone != null && !question.getTone().equals(tone)) {
-                    continue;
-                }
-                if (useAfterRapport != null && question.isUseAfterRapport() != useAfterRapport) {
-                    continue;
-                }
-                if (requireRapport && !question.isUseAfterRapport()) {
-                    continue;
-                }
-                
-                questions.add(question);
-            }
-        }
-        
-        return questions;
+        return data.questionIndex.filter(category, escalationTier, riskLevel, tone, useAfterRapport, requireRapport);
     }
     
     /**
@@ -185,19 +223,16 @@ public class QuestionBankManager {
      * 
      * @param situation Situation type (e.g., 'attempt_in_progress', 'adolescent')
      * @param hasRapport Whether rapport has been established
-     * @return List of appropriate questions for the situation
+     * @return Immutable list of appropriate questions for the situation
      */
     public List<Question> getQuestionsForSituation(String situation, boolean hasRapport) {
-        List<Question> questions = getQuestionsByCategory(situation);
-        
-        // If no rapport, filter out questions that require rapport
-        if (!hasRapport) {
-            questions = questions.stream()
-                .filter(q -> !q.isUseAfterRapport())
-                .collect(Collectors.toList());
+        CategoryLists lists = data.categoryLists.get(situation);
+        if (lists == null) {
+            return Collections.emptyList();
         }
         
-        return questions;
+        // If no rapport, questions that require rapport are left out
+        return hasRapport ? lists.all : lists.withoutRapport;
     }
     
     /**
@@ -206,85 +241,178 @@ public class QuestionBankManager {
      * @param category The situation category
      * @param escalationTier Optional escalation tier filter
      * @param hasRapport Whether rapport has been established
-     * @return Sorted list of recommended questions (by escalation tier, then ID)
+     * @return Immutable sorted list of recommended questions (by escalation tier, then ID)
      */
     public List<Question> getQuestionRecommendations(
             String category,
             Integer escalationTier,
             boolean hasRapport) {
         
-        List<Question> questions = getQuestionsForSituation(category, hasRapport);
-        
-        if (escalationTier != null) {
-            questions = questions.stream()
-                .filter(q -> q.getEscalationTier() == escalationTier)
-                .collect(Collectors.toList());
+        CategoryLists lists = data.categoryLists.get(category);
+        if (lists == null) {
+            return Collections.emptyList();
         }
         
-        // Sort by escalation tier (descending) then by ID (ascending)
-        questions.sort((q1, q2) -> {
-            int tierCompare = Integer.compare(q2.getEscalationTier(), q1.getEscalationTier());
-            if (tierCompare != 0) {
-                return tierCompare;
-            }
-            return Integer.compare(q1.getId(), q2.getId());
-        });
-        
-        return questions;
+        RankedQuestions ranked = hasRapport ? lists.rankedWithRapport : lists.rankedWithoutRapport;
+        if (escalationTier == null) {
+            return ranked.sorted;
+        }
+        return ranked.byTier.getOrDefault(escalationTier, Collections.emptyList());
+    }
+    
+    /**
+     * Get all questions in the bank.
+     */
+    public List<Question> getAllQuestions() {
+        return new ArrayList<>(data.idToQuestion.values());
     }
     
     /**
      * Get all question IDs in the bank.
      */
     public Set<Integer> getAllQuestionIds() {
-        return new HashSet<>(idToQuestion.keySet());
+        return new HashSet<>(data.idToQuestion.keySet());
     }
     
     /**
-     * Get statistics about the question bank.
+     * Get statistics about the question bank (computed once per load).
      */
     public QuestionBankStatistics getStatistics() {
-        QuestionBankStatistics stats = new QuestionBankStatistics();
-        stats.setTotalQuestions(idToQuestion.size());
+        return data.statistics;
+    }
+    
+    /**
+     * Get the category for a question ID.
+     */
+    public String getCategoryForQuestionId(int questionId) {
+        return data.idToCategory.get(questionId);
+    }
+    
+    /**
+     * One loaded question bank with all of its indices.
+     * Built completely before it is published and never modified afterwards.
+     */
+    private static class BankData {
+        private final Map<String, List<Question>> questionBank;
+        private final Map<Integer, String> idToCategory = new HashMap<>();
+        private final Map<Integer, Question> idToQuestion = new HashMap<>();
+        private final QuestionBitmapIndex questionIndex;
+        private final Map<String, CategoryLists> categoryLists = new HashMap<>();
+        private final QuestionBankStatistics statistics;
         
-        // Count categories
-        Map<String, Integer> categories = new HashMap<>();
-        for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
-            categories.put(entry.getKey(), entry.getValue().size());
+        /**
+         * Build an index mapping question IDs to their categories, plus the attribute bitmap index.
+         */
+        BankData(Map<String, List<Question>> questionBank) {
+            this.questionBank = questionBank;
+            
+            for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
+                String category = entry.getKey();
+                List<Question> questions = entry.getValue();
+                
+                for (Question question : questions) {
+                    int qid = question.getId();
+                    idToCategory.put(qid, category);
+                    idToQuestion.put(qid, question);
+                }
+            }
+            
+            this.questionIndex = new QuestionBitmapIndex(questionBank);
+            
+            for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
+                categoryLists.put(entry.getKey(), new CategoryLists(entry.getValue()));
+            }
+            
+            this.statistics = computeStatistics();
         }
-        stats.setCategories(categories);
         
-        // Count escalation tiers, risk levels, and tones
-        Map<Integer, Integer> escalationTiers = new HashMap<>();
-        Map<String, Integer> riskLevels = new HashMap<>();
-        Map<String, Integer> tones = new HashMap<>();
-        
-        for (Question question : idToQuestion.values()) {
-            // Count escalation tiers
-            int tier = question.getEscalationTier();
-            escalationTiers.put(tier, escalationTiers.getOrDefault(tier, 0) + 1);
+        /**
+         * Count questions per category, escalation tier, risk level and tone.
+         */
+        private QuestionBankStatistics computeStatistics() {
+            // Count categories
+            Map<String, Integer> categories = new HashMap<>();
+            for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
+                categories.put(entry.getKey(), entry.getValue().size());
+            }
+            
+            // Count escalation tiers, risk levels, and tones
+            Map<Integer, Integer> escalationTiers = new HashMap<>();
+            Map<String, Integer> riskLevels = new HashMap<>();
+            Map<String, Integer> tones = new HashMap<>();
             
-            // Count risk levels
-            String risk = question.getRiskLevel();
-            riskLevels.put(risk, riskLevels.getOrDefault(risk, 0) + 1);
+            for (Question question : idToQuestion.values()) {
+                // Count escalation tiers
+                int tier = question.getEscalationTier();
+                escalationTiers.put(tier, escalationTiers.getOrDefault(tier, 0) + 1);
+                
+                // Count risk levels
+                String risk = question.getRiskLevel();
+                riskLevels.put(risk, riskLevels.getOrDefault(risk, 0) + 1);
+                
+                // Count tones
+                String tone = question.getTone();
+                tones.put(tone, tones.getOrDefault(tone, 0) + 1);
+            }
             
-            // Count tones
-            String tone = question.getTone();
-            tones.put(tone, tones.getOrDefault(tone, 0) + 1);
+            return new QuestionBankStatistics(idToQuestion.size(), categories, escalationTiers, riskLevels, tones);
         }
+    }
+    
+    /**
+     * Sort by escalation tier (descending) then by ID (ascending).
+     */
+    private static final Comparator<Question> RECOMMENDATION_ORDER = (q1, q2) -> {
+        int tierCompare = Integer.compare(q2.getEscalationTier(), q1.getEscalationTier());
+        if (tierCompare != 0) {
+            return tierCompare;
+        }
+        return Integer.compare(q1.getId(), q2.getId());
+    };
+    
+    /**
+     * Immutable per-category lists computed once per load.
+     * A loaded bank never changes, so lookups hand these out directly.
+     */
+    private static class CategoryLists {
+        private final List<Question> all;
+        private final List<Question> withoutRapport;
+        private final RankedQuestions rankedWithRapport;
+        private final RankedQuestions rankedWithoutRapport;
         
-        stats.setEscalationTiers(escalationTiers);
-        stats.setRiskLevels(riskLevels);
-        stats.setTones(tones);
-        
-        return stats;
+        CategoryLists(List<Question> questions) {
+            List<Question> source = questions != null ? questions : Collections.emptyList();
+            this.all = Collections.unmodifiableList(new ArrayList<>(source));
+            this.withoutRapport = Collections.unmodifiableList(source.stream()
+                .filter(q -> !q.isUseAfterRapport())
+                .collect(Collectors.toList()));
+            this.rankedWithRapport = new RankedQuestions(all);
+            this.rankedWithoutRapport = new RankedQuestions(withoutRapport);
+        }
     }
     
     /**
-     * Get the category for a question ID.
+     * Questions in recommendation order, plus the contiguous slice of each escalation tier.
      */
-    public String getCategoryForQuestionId(int questionId) {
-        return idToCategory.get(questionId);
+    private static class RankedQuestions {
+        private final List<Question> sorted;
+        private final Map<Integer, List<Question>> byTier;
+        
+        RankedQuestions(List<Question> questions) {
+            List<Question> copy = new ArrayList<>(questions);
+            copy.sort(RECOMMENDATION_ORDER);
+            this.sorted = Collections.unmodifiableList(copy);
+            
+            Map<Integer, List<Question>> slices = new HashMap<>();
+            int start = 0;
+            for (int i = 1; i <= sorted.size(); i++) {
+                if (i == sorted.size() || sorted.get(i).getEscalationTier() != sorted.get(start).getEscalationTier()) {
+                    slices.put(sorted.get(start).getEscalationTier(), sorted.subList(start, i));
+                    start = i;
+                }
+            }
+            this.byTier = slices;
+        }
     }
     
     /**
@@ -1,64 +1,50 @@
 package com.suicide.questionbank;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Statistics about the question bank.
+ * Immutable, so one instance can be shared by every caller until the bank is reloaded.
  */
 public class QuestionBankStatistics {
-    private int totalQuestions;
-    private Map<String, Integer> categories;
-    private Map<Integer, Integer> escalationTiers;
-    private Map<String, Integer> riskLevels;
-    private Map<String, Integer> tones;
-
-    public QuestionBankStatistics() {
-        this.categories = new HashMap<>();
-        this.escalationTiers = new HashMap<>();
-        this.riskLevels = new HashMap<>();
-        this.tones = new HashMap<>();
+    private final int totalQuestions;
+    private final Map<String, Integer> categories;
+    private final Map<Integer, Integer> escalationTiers;
+    private final Map<String, Integer> riskLevels;
+    private final Map<String, Integer> tones;
+
+    public QuestionBankStatistics(int totalQuestions,
+                                  Map<String, Integer> categories,
+                                  Map<Integer, Integer> escalationTiers,
+                                  Map<String, Integer> riskLevels,
+                                  Map<String, Integer> tones) {
+        this.totalQuestions = totalQuestions;
+        this.categories = Collections.unmodifiableMap(new HashMap<>(categories));
+        this.escalationTiers = Collections.unmodifiableMap(new HashMap<>(escalationTiers));
+        this.riskLevels = Collections.unmodifiableMap(new HashMap<>(riskLevels));
+        this.tones = Collections.unmodifiableMap(new HashMap<>(tones));
     }
 
-    // Getters and Setters
+    // Getters
     public int getTotalQuestions() {
         return totalQuestions;
     }
 
-    public void setTotalQuestions(int totalQuestions) {
-        this.totalQuestions = totalQuestions;
-    }
-
     public Map<String, Integer> getCategories() {
         return categories;
     }
 
-    public void setCategories(Map<String, Integer> categories) {
-        this.categories = categories;
-    }
-
     public Map<Integer, Integer> getEscalationTiers() {
         return escalationTiers;
     }
 
-    public void setEscalationTiers(Map<Integer, Integer> escalationTiers) {
-        this.escalationTiers = escalationTiers;
-    }
-
     public Map<String, Integer> getRiskLevels() {
         return riskLevels;
     }
 
-    public void setRiskLevels(Map<String, Integer> riskLevels) {
-        this.riskLevels = riskLevels;
-    }
-
     public Map<String, Integer> getTones() {
         return tones;
     }
-
-    public void setTones(Map<String, Integer> tones) {
-        this.tones = tones;
-    }
 }
-
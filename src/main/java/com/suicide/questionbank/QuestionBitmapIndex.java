@@ -0,0 +1,105 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+
+/**
+ * Per-attribute bitmap index over the question bank.
+ * Every question entry gets a dense ordinal (categories in bank order, then list order),
+ * and each attribute value - category, escalation tier, risk level, tone and rapport - owns a
+ * BitSet of the ordinals that carry it. A filter ANDs the relevant bitsets and materializes the
+ * surviving ordinals, so its cost depends on the number of words in a bitset rather than on
+ * walking and testing every question.
+ *
+ * Immutable once built; safe to share between threads.
+ */
+public class QuestionBitmapIndex {
+    private final Question[] questions;
+    private final BitSet all;
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<Integer, BitSet> byTier = new HashMap<>();
+    private final Map<String, BitSet> byRiskLevel = new HashMap<>();
+    private final Map<String, BitSet> byTone = new HashMap<>();
+    private final BitSet afterRapport = new BitSet();
+    private final BitSet beforeRapport = new BitSet();
+
+    /**
+     * Build the index from the question bank (category name -> questions).
+     * The map's iteration order determines the order of filter results.
+     */
+    public QuestionBitmapIndex(Map<String, List<Question>> questionBank) {
+        List<Question> ordered = new ArrayList<>();
+        for (Map.Entry<String, List<Question>> entry : questionBank.entrySet()) {
+            BitSet category = byCategory.computeIfAbsent(entry.getKey(), k -> new BitSet());
+            if (entry.getValue() == null) {
+                continue;
+            }
+            for (Question question : entry.getValue()) {
+                int ordinal = ordered.size();
+                ordered.add(question);
+                category.set(ordinal);
+                byTier.computeIfAbsent(question.getEscalationTier(), k -> new BitSet()).set(ordinal);
+                if (question.getRiskLevel() != null) {
+                    byRiskLevel.computeIfAbsent(question.getRiskLevel(), k -> new BitSet()).set(ordinal);
+                }
+                if (question.getTone() != null) {
+                    byTone.computeIfAbsent(question.getTone(), k -> new BitSet()).set(ordinal);
+                }
+                (question.isUseAfterRapport() ? afterRapport : beforeRapport).set(ordinal);
+            }
+        }
+        this.questions = ordered.toArray(new Question[0]);
+        this.all = new BitSet(questions.length);
+        this.all.set(0, questions.length);
+    }
+
+    /**
+     * Filter questions; null criteria match everything.
+     * Same semantics as {@link QuestionBankManager#filterQuestions}.
+     *
+     * @return Immutable list of matching questions in bank order
+     */
+    public List<Question> filter(String category, Integer escalationTier, String riskLevel, String tone,
+                                 Boolean useAfterRapport, boolean requireRapport) {
+        BitSet result = (BitSet) all.clone();
+        if (!and(result, category != null ? byCategory.get(category) : all)
+            || !and(result, escalationTier != null ? byTier.get(escalationTier) : all)
+            || !and(result, riskLevel != null ? byRiskLevel.get(riskLevel) : all)
+            || !and(result, tone != null ? byTone.get(tone) : all)
+            || !and(result, useAfterRapport != null ? (useAfterRapport ? afterRapport : beforeRapport) : all)
+            || !and(result, requireRapport ? afterRapport : all)) {
+            return Collections.emptyList();
+        }
+        return materialize(result);
+    }
+
+    /**
+     * AND a bitset into the result.
+     *
+     * @return false once the result is known to be empty
+     */
+    private boolean and(BitSet result, BitSet filter) {
+        if (filter == null) {
+            return false;
+        }
+        if (filter != all) {
+            result.and(filter);
+        }
+        return !result.isEmpty();
+    }
+
+    private List<Question> materialize(BitSet ordinals) {
+        Question[] matches = new Question[ordinals.cardinality()];
+        int count = 0;
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            matches[count++] = questions[ordinal];
+        }
+        return Collections.unmodifiableList(Arrays.asList(matches));
+    }
+
+    /**
+     * Number of indexed question entries.
+     */
+    public int size() {
+        return questions.length;
+    }
+}
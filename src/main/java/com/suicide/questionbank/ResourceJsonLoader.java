@@ -0,0 +1,310 @@
+package com.suicide.questionbank;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streaming loader for resources_full.json.
+ *
+ * Reads the resource array token by token with a {@link JsonReader} instead of letting Gson build
+ * the object graph reflectively. Each resource is handed to a callback as soon as it is complete,
+ * so callers can index it in the same pass. Short strings (empty values, states, countries,
+ * categories, languages, phone types) are pooled, so the thousands of repeated values in the
+ * directory share one instance each. Keys that do not map to a {@link Resource} field are skipped
+ * without building anything. Nested objects the chatbot itself never reads (location, mailing
+ * address, the extra phone slots) are still bound, because /api/resources/search returns whole
+ * resources and the search page shows their location.
+ *
+ * Binding follows Gson's defaults for the Resource class: keys must match the Java field names,
+ * unknown keys are ignored, JSON null leaves a field null, numbers and booleans are accepted
+ * where a string is expected, and the reader is lenient. A resource loads with exactly the
+ * values {@code gson.fromJson(reader, List<Resource>)} would give it.
+ */
+public class ResourceJsonLoader {
+    /** Strings up to this length are pooled; longer ones (descriptions, hours) are rarely repeated. */
+    private static final int MAX_POOLED_LENGTH = 64;
+
+    private final Map<String, String> pool = new HashMap<>();
+
+    private ResourceJsonLoader() {
+    }
+
+    /**
+     * Read a JSON array of resources.
+     *
+     * @param onResource Called with each resource in file order, before the next one is read
+     * @return All resources in file order (null array elements are left out)
+     * @throws IOException If the input cannot be read, is empty or is not a resource array
+     */
+    public static List<Resource> load(Reader input, Consumer<Resource> onResource) throws IOException {
+        return new ResourceJsonLoader().readAll(input, onResource);
+    }
+
+    private List<Resource> readAll(Reader input, Consumer<Resource> onResource) throws IOException {
+        JsonReader reader = new JsonReader(input);
+        reader.setLenient(true);
+        try {
+            JsonToken first = reader.peek();
+            if (first == JsonToken.END_DOCUMENT || first == JsonToken.NULL) {
+                throw new IOException("No resource array in input");
+            }
+            List<Resource> resources = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                Resource resource = readResource(reader);
+                resources.add(resource);
+                if (onResource != null) {
+                    onResource.accept(resource);
+                }
+            }
+            reader.endArray();
+            return resources;
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Unexpected JSON at " + reader.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Resource readResource(JsonReader reader) throws IOException {
+        Resource resource = new Resource();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": resource.setName(readString(reader)); break;
+                case "parentAgency": resource.setParentAgency(readString(reader)); break;
+                case "categories": resource.setCategories(readStringList(reader)); break;
+                case "description": resource.setDescription(readString(reader)); break;
+                case "location": resource.setLocation(readLocation(reader)); break;
+                case "mailingAddress": resource.setMailingAddress(readMailingAddress(reader)); break;
+                case "hours": resource.setHours(readString(reader)); break;
+                case "phones": resource.setPhones(readPhones(reader)); break;
+                case "contact": resource.setContact(readContact(reader)); break;
+                case "serviceArea": resource.setServiceArea(readServiceArea(reader)); break;
+                case "eligibility": resource.setEligibility(readEligibility(reader)); break;
+                case "fees": resource.setFees(readString(reader)); break;
+                case "applicationProcess": resource.setApplicationProcess(readString(reader)); break;
+                case "requirements": resource.setRequirements(readRequirements(reader)); break;
+                case "languagesOffered": resource.setLanguagesOffered(readStringList(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return resource;
+    }
+
+    private Resource.Location readLocation(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.Location location = new Resource.Location();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "address1": location.setAddress1(readString(reader)); break;
+                case "address2": location.setAddress2(readString(reader)); break;
+                case "city": location.setCity(readString(reader)); break;
+                case "county": location.setCounty(readString(reader)); break;
+                case "state": location.setState(readString(reader)); break;
+                case "postalCode": location.setPostalCode(readString(reader)); break;
+                case "country": location.setCountry(readString(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return location;
+    }
+
+    private Resource.MailingAddress readMailingAddress(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.MailingAddress address = new Resource.MailingAddress();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "address1": address.setAddress1(readString(reader)); break;
+                case "address2": address.setAddress2(readString(reader)); break;
+                case "city": address.setCity(readString(reader)); break;
+                case "state": address.setState(readString(reader)); break;
+                case "postalCode": address.setPostalCode(readString(reader)); break;
+                case "country": address.setCountry(readString(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return address;
+    }
+
+    private Resource.Phones readPhones(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.Phones phones = new Resource.Phones();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "primary": phones.setPrimary(readPhoneNumber(reader)); break;
+                case "secondary": phones.setSecondary(readPhoneNumber(reader)); break;
+                case "third": phones.setThird(readPhoneNumber(reader)); break;
+                case "fourth": phones.setFourth(readPhoneNumber(reader)); break;
+                case "tollFree": phones.setTollFree(readPhoneNumber(reader)); break;
+                case "hotline": phones.setHotline(readPhoneNumber(reader)); break;
+                case "business": phones.setBusiness(readPhoneNumber(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return phones;
+    }
+
+    private Resource.PhoneNumber readPhoneNumber(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.PhoneNumber phone = new Resource.PhoneNumber();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "number": phone.setNumber(readString(reader)); break;
+                case "type": phone.setType(readString(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return phone;
+    }
+
+    private Resource.Contact readContact(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.Contact contact = new Resource.Contact();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "email": contact.setEmail(readString(reader)); break;
+                case "website": contact.setWebsite(readString(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return contact;
+    }
+
+    private Resource.ServiceArea readServiceArea(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.ServiceArea area = new Resource.ServiceArea();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "areasCovered": area.setAreasCovered(readStringList(reader)); break;
+                case "coverageByCounty": area.setCoverageByCounty(readStringList(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return area;
+    }
+
+    private Resource.Eligibility readEligibility(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.Eligibility eligibility = new Resource.Eligibility();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "general": eligibility.setGeneral(readString(reader)); break;
+                case "adults": eligibility.setAdults(readBoolean(reader)); break;
+                case "children": eligibility.setChildren(readBoolean(reader)); break;
+                case "families": eligibility.setFamilies(readBoolean(reader)); break;
+                case "females": eligibility.setFemales(readBoolean(reader)); break;
+                case "males": eligibility.setMales(readBoolean(reader)); break;
+                case "teens": eligibility.setTeens(readBoolean(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return eligibility;
+    }
+
+    private Resource.Requirements readRequirements(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        Resource.Requirements requirements = new Resource.Requirements();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "service": requirements.setService(readString(reader)); break;
+                case "documents": requirements.setDocuments(readString(reader)); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return requirements;
+    }
+
+    private List<String> readStringList(JsonReader reader) throws IOException {
+        if (skipNull(reader)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(readString(reader));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        // Same coercion as Gson's String adapter
+        String value = token == JsonToken.BOOLEAN ? Boolean.toString(reader.nextBoolean()) : reader.nextString();
+        return pooled(value);
+    }
+
+    private Boolean readBoolean(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        // Same coercion as Gson's Boolean adapter
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(reader.nextString());
+        }
+        return reader.nextBoolean();
+    }
+
+    private boolean skipNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private String pooled(String value) {
+        if (value.length() > MAX_POOLED_LENGTH) {
+            return value;
+        }
+        String shared = pool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+}
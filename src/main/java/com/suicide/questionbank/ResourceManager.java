@@ -1,24 +1,22 @@
 package com.suicide.questionbank;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Resource Manager for loading and querying crisis resources.
  */
 public class ResourceManager {
-    private Path jsonPath;
-    private List<Resource> resources;
-    private Map<String, List<Resource>> categoryIndex;
-    private Map<String, List<Resource>> countyIndex;
+    private final Path jsonPath;
+    private final Path snapshotPath;
+    private volatile DirectoryData data;
     
     /**
      * Initialize the resource manager.
@@ -26,167 +24,343 @@ public class ResourceManager {
      * @param jsonPath Path to the JSON file containing resources
      */
     public ResourceManager(String jsonPath) throws IOException {
+        this(jsonPath, null);
+    }
+    
+    /**
+     * Initialize the resource manager with a binary snapshot of the JSON.
+     * The snapshot is used when it matches the JSON; otherwise the JSON is parsed and the
+     * snapshot is (re)written for the next start.
+     * 
+     * @param jsonPath Path to the JSON file containing resources
+     * @param snapshotPath Snapshot file, or null to always parse the JSON
+     */
+    public ResourceManager(String jsonPath, Path snapshotPath) throws IOException {
         this.jsonPath = Paths.get(jsonPath);
-        this.resources = loadResources();
-        buildIndices();
+        this.snapshotPath = snapshotPath;
+        this.data = loadDirectory();
     }
     
     /**
-     * Load resources from JSON file.
-     * Tries file path first, then classpath resource.
+     * Initialize the resource manager over resources that are already in memory
+     * (e.g. synthetic directories for benchmarks). Such a manager cannot be reloaded.
+     * 
+     * @param resources Resources in directory order
      */
-    private List<Resource> loadResources() throws IOException {
-        Gson gson = new Gson();
-        Reader reader = null;
-        
-        // Try file path first
-        if (Files.exists(jsonPath)) {
-            reader = Files.newBufferedReader(jsonPath);
-        } else {
-            // Try classpath resource
-            String resourcePath = jsonPath.getFileName().toString();
-            java.io.InputStream is = getClass().getClassLoader().getResourceAsStream(resourcePath);
-            if (is == null) {
-                throw new IOException("Resource file not found: " + jsonPath);
+    public ResourceManager(List<Resource> resources) {
+        this.jsonPath = null;
+        this.snapshotPath = null;
+        Indexer indexer = new Indexer();
+        List<Resource> copy = new ArrayList<>(resources);
+        copy.forEach(indexer);
+        this.data = new DirectoryData(copy, indexer.categoryIndex, indexer.countyIndex,
+                                      indexer.categories, indexer.counties);
+    }
+    
+    /**
+     * Reload the resource directory from its JSON file.
+     * The new directory is parsed and indexed on the calling thread, then published with a single
+     * reference swap: concurrent readers see either the old directory or the new one, never a mix,
+     * and never wait. If loading fails the current directory stays in place.
+     */
+    public void reload() throws IOException {
+        prepareReload().run();
+    }
+    
+    /**
+     * Parse and index the resource file without publishing it.
+     * Lets {@link DataReloader} load every data file before it publishes any of them.
+     *
+     * @return Publishes the new directory when run
+     */
+    Runnable prepareReload() throws IOException {
+        if (jsonPath == null) {
+            throw new IOException("Resources were not loaded from a file");
+        }
+        DirectoryData fresh = loadDirectory();
+        return () -> this.data = fresh;
+    }
+    
+    /**
+     * Get the resource file on disk, or null if it is loaded from the classpath.
+     */
+    public Path getSourceFile() {
+        return jsonPath != null && Files.exists(jsonPath) ? jsonPath : null;
+    }
+    
+    /**
+     * Load the resource directory, from the snapshot when it is current, otherwise from JSON.
+     */
+    private DirectoryData loadDirectory() throws IOException {
+        if (snapshotPath == null) {
+            try (Reader reader = openJson()) {
+                return parseDirectory(reader);
             }
-            reader = new InputStreamReader(is);
         }
         
+        long start = System.nanoTime();
+        // Taken before the JSON is read, so an edit racing with the parse makes the snapshot stale
+        DataSnapshot.Fingerprint fingerprint = sourceFingerprint();
+        DataSnapshot.Resources snapshot = DataSnapshot.readResources(snapshotPath, fingerprint);
+        if (snapshot != null) {
+            System.out.println("📦 Loaded " + snapshot.getResources().size() + " resources from snapshot in " + 
+                               (System.nanoTime() - start) / 1_000_000 + "ms");
+            return new DirectoryData(snapshot.getResources(), snapshot.getCategoryIndex(), snapshot.getCountyIndex(),
+                                     snapshot.getCategories(), snapshot.getCounties(), snapshot.buildMatchIndex());
+        }
+        
+        DirectoryData parsed;
+        try (Reader reader = openJson()) {
+            parsed = parseDirectory(reader);
+        }
         try {
-            TypeToken<List<Resource>> typeToken = new TypeToken<List<Resource>>() {};
-            return gson.fromJson(reader, typeToken.getType());
-        } finally {
-            if (reader != null) {
-                reader.close();
-            }
+            DataSnapshot.writeResources(snapshotPath, fingerprint, parsed.resources, parsed.categoryIndex,
+                                        parsed.countyIndex, parsed.allCategories, parsed.allCounties,
+                                        parsed.matchIndex);
+            System.out.println("📦 Wrote resource snapshot " + snapshotPath);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write resource snapshot " + snapshotPath + ": " + e.getMessage());
         }
+        return parsed;
     }
     
     /**
-     * Build indices for faster searching.
+     * Parse resources from JSON and index them as they are read.
      */
-    private void buildIndices() {
-        categoryIndex = new HashMap<>();
-        countyIndex = new HashMap<>();
-        
-        for (Resource resource : resources) {
-            // Index by category
-            if (resource.getCategories() != null) {
-                for (String category : resource.getCategories()) {
-                    categoryIndex.computeIfAbsent(category.toLowerCase(), k -> new ArrayList<>()).add(resource);
-                }
-            }
-            
-            // Index by county
-            if (resource.getServiceArea() != null && resource.getServiceArea().getCoverageByCounty() != null) {
-                for (String county : resource.getServiceArea().getCoverageByCounty()) {
-                    countyIndex.computeIfAbsent(county.toLowerCase(), k -> new ArrayList<>()).add(resource);
-                }
-            }
+    private DirectoryData parseDirectory(Reader reader) throws IOException {
+        try {
+            Indexer indexer = new Indexer();
+            List<Resource> loaded = ResourceJsonLoader.load(reader, indexer);
+            return new DirectoryData(loaded, indexer.categoryIndex, indexer.countyIndex,
+                                     indexer.categories, indexer.counties);
+        } catch (IOException e) {
+            throw new IOException("Invalid resource JSON in " + jsonPath + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open the JSON file.
+     * Tries file path first, then classpath resource.
+     */
+    private Reader openJson() throws IOException {
+        // Try file path first
+        if (Files.exists(jsonPath)) {
+            return Files.newBufferedReader(jsonPath);
+        }
+        // Try classpath resource
+        String resourcePath = jsonPath.getFileName().toString();
+        java.io.InputStream is = getClass().getClassLoader().getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IOException("Resource file not found: " + jsonPath);
+        }
+        return new InputStreamReader(is, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Fingerprint the JSON (file path first, then classpath resource) without reading it.
+     */
+    private DataSnapshot.Fingerprint sourceFingerprint() throws IOException {
+        if (Files.exists(jsonPath)) {
+            return DataSnapshot.Fingerprint.of(jsonPath);
         }
+        String resourcePath = jsonPath.getFileName().toString();
+        java.net.URL resource = getClass().getClassLoader().getResource(resourcePath);
+        if (resource == null) {
+            throw new IOException("Resource file not found: " + jsonPath);
+        }
+        return DataSnapshot.Fingerprint.of(resource);
     }
     
     /**
      * Get all resources.
      */
     public List<Resource> getAllResources() {
-        return new ArrayList<>(resources);
+        return new ArrayList<>(data.resources);
+    }
+    
+    /**
+     * Get the precompiled match index used for transcript ranking.
+     */
+    public ResourceMatchIndex getMatchIndex() {
+        return data.matchIndex;
     }
     
     /**
      * Get resources by category.
      */
     public List<Resource> getResourcesByCategory(String category) {
-        return categoryIndex.getOrDefault(category.toLowerCase(), new ArrayList<>());
+        return data.categoryIndex.getOrDefault(category.toLowerCase(), new ArrayList<>());
     }
     
     /**
      * Get resources by county.
      */
     public List<Resource> getResourcesByCounty(String county) {
-        return countyIndex.getOrDefault(county.toLowerCase(), new ArrayList<>());
+        return data.countyIndex.getOrDefault(county.toLowerCase(), new ArrayList<>());
     }
     
     /**
      * Search resources by name (case-insensitive partial match).
      */
     public List<Resource> searchByName(String query) {
-        String lowerQuery = query.toLowerCase();
-        return resources.stream()
-            .filter(r -> r.getName() != null && r.getName().toLowerCase().contains(lowerQuery))
-            .collect(Collectors.toList());
+        return data.searchIndex().searchByName(query);
     }
     
     /**
      * Search resources by description (case-insensitive partial match).
      */
     public List<Resource> searchByDescription(String query) {
-        String lowerQuery = query.toLowerCase();
-        return resources.stream()
-            .filter(r -> r.getDescription() != null && r.getDescription().toLowerCase().contains(lowerQuery))
-            .collect(Collectors.toList());
+        return data.searchIndex().searchByDescription(query);
     }
     
     /**
      * Filter resources by multiple criteria.
+     * Category and county are case-insensitive partial matches; the search term matches
+     * name or description. Null or empty criteria are ignored.
      */
     public List<Resource> filterResources(String category, String county, String searchTerm) {
-        return resources.stream()
-            .filter(r -> {
-                if (category != null && !category.isEmpty()) {
-                    // Case-insensitive partial match on categories
-                    String lowerCategory = category.toLowerCase();
-                    if (r.getCategories() == null || 
-                        !r.getCategories().stream()
-                            .anyMatch(cat -> cat != null && cat.toLowerCase().contains(lowerCategory))) {
-                        return false;
-                    }
-                }
-                if (county != null && !county.isEmpty()) {
-                    if (r.getServiceArea() == null || r.getServiceArea().getCoverageByCounty() == null ||
-                        !r.getServiceArea().getCoverageByCounty().stream()
-                            .anyMatch(c -> c.toLowerCase().contains(county.toLowerCase()))) {
-                        return false;
-                    }
-                }
-                if (searchTerm != null && !searchTerm.isEmpty()) {
-                    String lowerTerm = searchTerm.toLowerCase();
-                    boolean matches = (r.getName() != null && r.getName().toLowerCase().contains(lowerTerm)) ||
-                                     (r.getDescription() != null && r.getDescription().toLowerCase().contains(lowerTerm));
-                    if (!matches) {
-                        return false;
-                    }
-                }
-                return true;
-            })
-            .collect(Collectors.toList());
+        return data.searchIndex().filter(category, county, searchTerm);
+    }
+    
+    /**
+     * Suggest resource names, categories and counties for a typed prefix.
+     * 
+     * @param prefix Typed text (case-insensitive)
+     * @param limit Maximum number of suggestions
+     * @return Ranked suggestions; resource ids are positions in {@link #getAllResources()}
+     */
+    public List<ResourceSuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        return data.suggestIndex().suggest(prefix, limit);
+    }
+    
+    /**
+     * Get the precomputed substring search index over the current directory.
+     */
+    public ResourceSearchIndex getSearchIndex() {
+        return data.searchIndex();
     }
     
     /**
      * Get total number of resources.
      */
     public int getTotalResources() {
-        return resources.size();
+        return data.resources.size();
     }
     
     /**
-     * Get all unique categories.
+     * Get all unique categories (immutable, computed once per load).
      */
     public Set<String> getAllCategories() {
-        return resources.stream()
-            .filter(r -> r.getCategories() != null)
-            .flatMap(r -> r.getCategories().stream())
-            .collect(Collectors.toSet());
+        return data.allCategories;
     }
     
     /**
-     * Get all unique counties.
+     * Get all unique counties (immutable, computed once per load).
      */
     public Set<String> getAllCounties() {
-        return resources.stream()
-            .filter(r -> r.getServiceArea() != null && r.getServiceArea().getCoverageByCounty() != null)
-            .flatMap(r -> r.getServiceArea().getCoverageByCounty().stream())
-            .collect(Collectors.toSet());
+        return data.allCounties;
+    }
+    
+    /**
+     * One loaded resource directory with all of its indices.
+     * Built completely before it is published and never modified afterwards.
+     */
+    private static class DirectoryData {
+        private final List<Resource> resources;
+        private final Map<String, List<Resource>> categoryIndex;
+        private final Map<String, List<Resource>> countyIndex;
+        private final ResourceMatchIndex matchIndex;
+        private volatile ResourceSearchIndex searchIndex;
+        private volatile ResourceSuggestIndex suggestIndex;
+        private final Set<String> allCategories;
+        private final Set<String> allCounties;
+        
+        /**
+         * Take over prebuilt category and county indices (collected while parsing, or read from a snapshot).
+         */
+        DirectoryData(List<Resource> resources, Map<String, List<Resource>> categoryIndex,
+                      Map<String, List<Resource>> countyIndex, Set<String> categories, Set<String> counties) {
+            // Precompiled matching data for transcript ranking (needs the whole directory)
+            this(resources, categoryIndex, countyIndex, categories, counties, ResourceMatchIndex.build(resources));
+        }
+        
+        /**
+         * Take over prebuilt indices, the transcript match index included.
+         */
+        DirectoryData(List<Resource> resources, Map<String, List<Resource>> categoryIndex,
+                      Map<String, List<Resource>> countyIndex, Set<String> categories, Set<String> counties,
+                      ResourceMatchIndex matchIndex) {
+            this.resources = resources;
+            this.categoryIndex = categoryIndex;
+            this.countyIndex = countyIndex;
+            this.allCategories = Collections.unmodifiableSet(categories);
+            this.allCounties = Collections.unmodifiableSet(counties);
+            this.matchIndex = matchIndex;
+        }
+        
+        /**
+         * Substring search for the resource search box and API.
+         * Built on first use, so starting up and reloading do not wait for it.
+         */
+        ResourceSearchIndex searchIndex() {
+            ResourceSearchIndex index = searchIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = searchIndex;
+                    if (index == null) {
+                        index = new ResourceSearchIndex(resources);
+                        searchIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+        
+        /**
+         * Typeahead for the search box, built on first use like the search index.
+         */
+        ResourceSuggestIndex suggestIndex() {
+            ResourceSuggestIndex index = suggestIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = suggestIndex;
+                    if (index == null) {
+                        index = new ResourceSuggestIndex(resources);
+                        suggestIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+    }
+    
+    /**
+     * Builds the category and county indices one resource at a time, so they can be
+     * filled in while the JSON is still being read.
+     */
+    private static class Indexer implements Consumer<Resource> {
+        private final Map<String, List<Resource>> categoryIndex = new HashMap<>();
+        private final Map<String, List<Resource>> countyIndex = new HashMap<>();
+        private final Set<String> categories = new HashSet<>();
+        private final Set<String> counties = new HashSet<>();
+        
+        @Override
+        public void accept(Resource resource) {
+            // Index by category
+            if (resource.getCategories() != null) {
+                for (String category : resource.getCategories()) {
+                    categoryIndex.computeIfAbsent(category.toLowerCase(), k -> new ArrayList<>()).add(resource);
+                    categories.add(category);
+                }
+            }
+            
+            // Index by county
+            if (resource.getServiceArea() != null && resource.getServiceArea().getCoverageByCounty() != null) {
+                for (String county : resource.getServiceArea().getCoverageByCounty()) {
+                    countyIndex.computeIfAbsent(county.toLowerCase(), k -> new ArrayList<>()).add(resource);
+                    counties.add(county);
+                }
+            }
+        }
     }
 }
-
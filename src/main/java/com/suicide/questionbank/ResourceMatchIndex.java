@@ -0,0 +1,220 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+
+/**
+ * Load-time matching index over the resource directory.
+ * Holds the SPCchatbotDemo view of every resource together with the lowercased,
+ * pre-joined and pre-tokenized text the matcher reads, so ranking a transcript
+ * no longer converts or lowercases the whole directory on every request.
+ */
+public class ResourceMatchIndex {
+    private final List<Entry> entries;
+    private final ResourceRankingEngine rankingEngine;
+
+    private ResourceMatchIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.rankingEngine = new ResourceRankingEngine(this.entries);
+    }
+
+    private ResourceMatchIndex(List<Entry> entries, ResourceRankingEngine.Vocabulary relevanceVocabulary,
+                               ResourceRankingEngine.Vocabulary eligibilityVocabulary) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.rankingEngine = new ResourceRankingEngine(this.entries, relevanceVocabulary, eligibilityVocabulary);
+    }
+
+    /**
+     * Build the index from loaded directory resources.
+     */
+    public static ResourceMatchIndex build(List<com.suicide.questionbank.Resource> resources) {
+        return new ResourceMatchIndex(toEntries(resources));
+    }
+
+    /**
+     * Build the index with ranking vocabularies that were built earlier for the same resources.
+     */
+    static ResourceMatchIndex build(List<com.suicide.questionbank.Resource> resources,
+                                    ResourceRankingEngine.Vocabulary relevanceVocabulary,
+                                    ResourceRankingEngine.Vocabulary eligibilityVocabulary) {
+        return new ResourceMatchIndex(toEntries(resources), relevanceVocabulary, eligibilityVocabulary);
+    }
+
+    private static List<Entry> toEntries(List<com.suicide.questionbank.Resource> resources) {
+        List<Entry> entries = new ArrayList<>(resources.size());
+        for (com.suicide.questionbank.Resource r : resources) {
+            entries.add(new Entry(entries.size(), r, toChatbotResource(r)));
+        }
+        return entries;
+    }
+
+    /**
+     * Build the index from resources that are already in SPCchatbotDemo format.
+     */
+    public static ResourceMatchIndex ofChatbotResources(List<SPCchatbotDemo.Resource> resources) {
+        List<Entry> entries = new ArrayList<>(resources.size());
+        for (SPCchatbotDemo.Resource r : resources) {
+            entries.add(new Entry(entries.size(), null, r));
+        }
+        return new ResourceMatchIndex(entries);
+    }
+
+    /**
+     * Convert a directory Resource to the SPCchatbotDemo.Resource format.
+     */
+    public static SPCchatbotDemo.Resource toChatbotResource(com.suicide.questionbank.Resource r) {
+        SPCchatbotDemo.Resource cr = new SPCchatbotDemo.Resource();
+        cr.setName(r.getName());
+        cr.setDescription(r.getDescription());
+
+        // Convert categories list to single category string
+        if (r.getCategories() != null && !r.getCategories().isEmpty()) {
+            cr.setCategory(String.join(", ", r.getCategories()));
+        }
+
+        // Convert service area
+        if (r.getServiceArea() != null && r.getServiceArea().getAreasCovered() != null) {
+            cr.setServiceArea(String.join(", ", r.getServiceArea().getAreasCovered()));
+        }
+
+        // Convert eligibility
+        if (r.getEligibility() != null) {
+            cr.setEligibility(r.getEligibility().getGeneral());
+        }
+
+        cr.setCost(r.getFees());
+        cr.setHours(r.getHours());
+
+        // Convert languages
+        if (r.getLanguagesOffered() != null && !r.getLanguagesOffered().isEmpty()) {
+            cr.setLanguage(String.join(", ", r.getLanguagesOffered()));
+        }
+
+        return cr;
+    }
+
+    /**
+     * Get all entries in directory order.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Get the inverted-index ranking engine over these entries.
+     */
+    public ResourceRankingEngine getRankingEngine() {
+        return rankingEngine;
+    }
+
+    /**
+     * Get the number of indexed resources.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Precomputed matching data for a single resource.
+     * Lowercased fields are null when the underlying field is null.
+     */
+    public static class Entry {
+        private final int ordinal;
+        private final com.suicide.questionbank.Resource source;
+        private final SPCchatbotDemo.Resource resource;
+        private final String categoryText;
+        private final String relevanceText;
+        private final String serviceAreaText;
+        private final String eligibilityText;
+        private final String costText;
+        private final String languageText;
+        private final List<String> terms;
+        private final boolean training;
+        private final boolean excluded;
+        private final boolean mentions911;
+        private final boolean mentions988;
+
+        Entry(int ordinal, com.suicide.questionbank.Resource source, SPCchatbotDemo.Resource resource) {
+            this.ordinal = ordinal;
+            this.source = source;
+            this.resource = resource;
+            this.categoryText = lower(resource.getCategory());
+            this.relevanceText = ((resource.getCategory() != null ? resource.getCategory() : "") +
+                                  (resource.getDescription() != null ? resource.getDescription() : "")).toLowerCase();
+            this.serviceAreaText = lower(resource.getServiceArea());
+            this.eligibilityText = lower(resource.getEligibility());
+            this.costText = lower(resource.getCost());
+            this.languageText = lower(resource.getLanguage());
+            this.terms = tokenize(relevanceText);
+
+            // Training, non-service and outdated entries never reach the ranking
+            this.training = categoryText != null && categoryText.contains("training");
+            String desc = lower(resource.getDescription());
+            this.excluded = training ||
+                "outdated".equalsIgnoreCase(resource.getStatus()) ||
+                (desc != null && (desc.contains("training program") || desc.contains("not for public use")));
+
+            this.mentions911 = mentions(resource, "911");
+            this.mentions988 = mentions(resource, "988");
+        }
+
+        private static String lower(String value) {
+            return value != null ? value.toLowerCase() : null;
+        }
+
+        private static boolean mentions(SPCchatbotDemo.Resource r, String number) {
+            return (r.getName() != null && r.getName().contains(number)) ||
+                   (r.getTitle() != null && r.getTitle().contains(number));
+        }
+
+        /**
+         * Split lowercase text into its distinct letter/digit runs, in order of first appearance.
+         */
+        static List<String> tokenize(String text) {
+            Set<String> tokens = new LinkedHashSet<>();
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    tokens.add(text.substring(start, i));
+                    start = -1;
+                }
+            }
+            return Collections.unmodifiableList(new ArrayList<>(tokens));
+        }
+
+        /** Position of this entry in directory order. */
+        public int getOrdinal() { return ordinal; }
+
+        /** The directory resource this entry was built from, or null for ad-hoc chatbot resources. */
+        public com.suicide.questionbank.Resource getSource() { return source; }
+
+        public SPCchatbotDemo.Resource getResource() { return resource; }
+
+        public String getCategoryText() { return categoryText; }
+
+        /** Lowercased category followed directly by description, as used for need relevance. */
+        public String getRelevanceText() { return relevanceText; }
+
+        public String getServiceAreaText() { return serviceAreaText; }
+
+        public String getEligibilityText() { return eligibilityText; }
+
+        public String getCostText() { return costText; }
+
+        public String getLanguageText() { return languageText; }
+
+        /** Distinct tokens of the relevance text. */
+        public List<String> getTerms() { return terms; }
+
+        public boolean isTraining() { return training; }
+
+        /** True for training, non-service or outdated resources. */
+        public boolean isExcluded() { return excluded; }
+
+        public boolean mentions911() { return mentions911; }
+
+        public boolean mentions988() { return mentions988; }
+    }
+}
@@ -0,0 +1,86 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Field projection for resource API responses.
+ * Clients name the top-level resource fields they need (e.g. "name,phones,hours") and get
+ * maps with just those fields instead of the whole resource graph.
+ */
+public class ResourceProjection {
+    /** Pseudo-field for the resource's position in the directory. */
+    public static final String ID = "id";
+
+    private static final Map<String, Function<Resource, Object>> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put("name", Resource::getName);
+        FIELDS.put("parentAgency", Resource::getParentAgency);
+        FIELDS.put("categories", Resource::getCategories);
+        FIELDS.put("description", Resource::getDescription);
+        FIELDS.put("location", Resource::getLocation);
+        FIELDS.put("mailingAddress", Resource::getMailingAddress);
+        FIELDS.put("hours", Resource::getHours);
+        FIELDS.put("phones", Resource::getPhones);
+        FIELDS.put("contact", Resource::getContact);
+        FIELDS.put("serviceArea", Resource::getServiceArea);
+        FIELDS.put("eligibility", Resource::getEligibility);
+        FIELDS.put("fees", Resource::getFees);
+        FIELDS.put("applicationProcess", Resource::getApplicationProcess);
+        FIELDS.put("requirements", Resource::getRequirements);
+        FIELDS.put("languagesOffered", Resource::getLanguagesOffered);
+    }
+
+    private final List<String> fields;
+
+    private ResourceProjection(List<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parse a comma-separated field list. Null or blank selects every field.
+     *
+     * @throws IllegalArgumentException If a field name is not a resource field
+     */
+    public static ResourceProjection parse(String fieldList) {
+        if (fieldList == null || fieldList.trim().isEmpty()) {
+            List<String> all = new ArrayList<>();
+            all.add(ID);
+            all.addAll(FIELDS.keySet());
+            return new ResourceProjection(all);
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fieldList.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ID.equals(name) && !FIELDS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Available fields: " + ID + ", " +
+                                                   String.join(", ", FIELDS.keySet()));
+            }
+            selected.add(name);
+        }
+        return new ResourceProjection(new ArrayList<>(selected));
+    }
+
+    /**
+     * Project one resource.
+     *
+     * @param id Position of the resource in the directory
+     */
+    public Map<String, Object> apply(Resource resource, int id) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String field : fields) {
+            projected.put(field, ID.equals(field) ? id : FIELDS.get(field).apply(resource));
+        }
+        return projected;
+    }
+
+    /**
+     * Selected field names, in output order.
+     */
+    public List<String> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+}
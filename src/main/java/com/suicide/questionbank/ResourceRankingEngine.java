@@ -0,0 +1,327 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keyword ranking engine backed by term -> posting-list inverted indices over the
+ * relevance text (category + description) and eligibility text of every indexed resource.
+ *
+ * Scores are identical to {@link SPCchatbotDemo#matchScore(ResourceMatchIndex.Entry, SPCchatbotDemo.ExtractedContext)},
+ * but need and demographic terms are resolved through the posting lists, so only resources
+ * that actually contain a term are touched for it.
+ */
+public class ResourceRankingEngine {
+    private static final int MAX_CACHED_TERMS = 4096;
+    /** Longest substring of a token that the vocabulary maps directly to the tokens containing it. */
+    private static final int GRAM_LENGTH = 3;
+    private static final int[] NONE = new int[0];
+
+    private final List<ResourceMatchIndex.Entry> entries;
+    private final Vocabulary relevanceVocabulary;
+    private final Vocabulary eligibilityVocabulary;
+    private final Map<String, int[]> relevanceTermCache = new ConcurrentHashMap<>();
+    private final Map<String, int[]> eligibilityTermCache = new ConcurrentHashMap<>();
+
+    /**
+     * Build the inverted indices for the given entries (ordinals must match list positions).
+     */
+    public ResourceRankingEngine(List<ResourceMatchIndex.Entry> entries) {
+        this(entries, new Vocabulary(entries, ResourceMatchIndex.Entry::getRelevanceText),
+             new Vocabulary(entries, ResourceMatchIndex.Entry::getEligibilityText));
+    }
+
+    /**
+     * Use vocabularies built earlier for the same entries (e.g. read back from a data snapshot).
+     */
+    ResourceRankingEngine(List<ResourceMatchIndex.Entry> entries, Vocabulary relevanceVocabulary,
+                          Vocabulary eligibilityVocabulary) {
+        this.entries = entries;
+        this.relevanceVocabulary = relevanceVocabulary;
+        this.eligibilityVocabulary = eligibilityVocabulary;
+    }
+
+    /**
+     * Get the ordinals (ascending) of resources whose relevance text contains the term.
+     */
+    public int[] relevanceContaining(String term) {
+        return lookup(term, relevanceVocabulary, relevanceTermCache, ResourceMatchIndex.Entry::getRelevanceText);
+    }
+
+    /**
+     * Get the ordinals (ascending) of resources whose eligibility text contains the term.
+     */
+    public int[] eligibilityContaining(String term) {
+        return lookup(term, eligibilityVocabulary, eligibilityTermCache, ResourceMatchIndex.Entry::getEligibilityText);
+    }
+
+    /**
+     * Resolve a substring query through the posting lists.
+     * Every letter/digit run of the term has to sit inside a single token of a matching text,
+     * so the union of postings for tokens containing each run is a superset of the answer;
+     * candidates are then verified with a plain contains check.
+     */
+    private int[] lookup(String term, Vocabulary vocabulary, Map<String, int[]> cache,
+                         Function<ResourceMatchIndex.Entry, String> field) {
+        int[] cached = cache.get(term);
+        if (cached != null) {
+            return cached;
+        }
+
+        BitSet candidates = null;
+        for (String word : ResourceMatchIndex.Entry.tokenize(term)) {
+            BitSet wordHits = new BitSet(entries.size());
+            for (int token : vocabulary.tokensContaining(word)) {
+                for (int ordinal : vocabulary.postings[token]) {
+                    wordHits.set(ordinal);
+                }
+            }
+            if (candidates == null) {
+                candidates = wordHits;
+            } else {
+                candidates.and(wordHits);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        if (candidates == null) {
+            // No letters or digits to look up - fall back to checking every resource
+            candidates = new BitSet(entries.size());
+            candidates.set(0, entries.size());
+        }
+
+        int[] hits = new int[candidates.cardinality()];
+        int count = 0;
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            String text = field.apply(entries.get(ordinal));
+            if (text != null && text.contains(term)) {
+                hits[count++] = ordinal;
+            }
+        }
+        int[] result = Arrays.copyOf(hits, count);
+
+        if (cache.size() >= MAX_CACHED_TERMS) {
+            cache.clear();
+        }
+        cache.put(term, result);
+        return result;
+    }
+
+    /**
+     * Score candidate resources against the extracted context.
+     *
+     * @param candidates Entries to score (typically the output of SPCchatbotDemo.filterEntries)
+     * @param extracted Extracted needs and context
+     * @return Scores aligned with the candidate list
+     */
+    public int[] score(List<ResourceMatchIndex.Entry> candidates, SPCchatbotDemo.ExtractedContext extracted) {
+        Map<String, Object> context = extracted.getContext();
+
+        // Term-driven components, accumulated only for resources on the posting lists
+        int[] termScores = new int[entries.size()];
+
+        // 1. Crisis type relevance (primary)
+        for (String need : extracted.getNeeds()) {
+            String[] words = need.split(" ");
+            addTo(termScores, relevanceContaining(words[0]), 2);
+            addTo(termScores, relevanceContaining(need.replace(" ", "")), 3);
+            addTo(termScores, relevanceContaining(need), 4);
+        }
+
+        // 4b. Demographic eligibility matches
+        if ("teen".equals(context.get("ageGroup"))) {
+            addTo(termScores, eligibilityContaining("teen"), 1);
+        }
+        Object gender = context.get("gender");
+        if (gender != null) {
+            addTo(termScores, eligibilityContaining(gender.toString()), 1);
+        }
+        Object demographic = context.get("demographic");
+        if (demographic != null) {
+            addTo(termScores, eligibilityContaining(demographic.toString()), 1);
+        }
+
+        // Field-driven components read the short precomputed fields of each candidate
+        Object location = context.get("location");
+        String lcLocation = location != null ? location.toString().toLowerCase() : null;
+        Object language = context.get("language");
+        String lcLanguage = language != null ? language.toString().toLowerCase() : null;
+        boolean costSensitive = context.getOrDefault("costSensitive", false).equals(true);
+        boolean immediate = "immediate".equals(context.get("urgency"));
+
+        int[] scores = new int[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            ResourceMatchIndex.Entry entry = candidates.get(i);
+            int score = termScores[entry.getOrdinal()];
+
+            // 2. Proximity/accessibility
+            String sa = entry.getServiceAreaText();
+            if (sa != null && lcLocation != null) {
+                if (sa.contains(lcLocation)) {
+                    score += 2;
+                }
+            } else if (sa == null) {
+                score += 1;
+            }
+
+            // 3. Affordability
+            String cost = entry.getCostText();
+            if (cost != null) {
+                if (cost.contains("free") || cost.contains("no cost")) {
+                    score += 2;
+                } else if (costSensitive) {
+                    score -= 1;
+                }
+            }
+
+            // 4a. Language
+            if (entry.getLanguageText() != null && lcLanguage != null && entry.getLanguageText().contains(lcLanguage)) {
+                score += 1;
+            }
+
+            // 5. Urgency
+            String hours = entry.getResource().getHours();
+            if (immediate && hours != null && hours.contains("24")) {
+                score += 1;
+            }
+
+            // Penalize generic referral/wrong-fit
+            if (entry.isTraining()) {
+                score -= 3;
+            }
+
+            scores[i] = score;
+        }
+        return scores;
+    }
+
+    private static void addTo(int[] scores, int[] ordinals, int weight) {
+        for (int ordinal : ordinals) {
+            scores[ordinal] += weight;
+        }
+    }
+
+    /**
+     * Get the number of distinct relevance terms in the index.
+     */
+    public int getRelevanceVocabularySize() {
+        return relevanceVocabulary.tokens.length;
+    }
+
+    Vocabulary getRelevanceVocabulary() {
+        return relevanceVocabulary;
+    }
+
+    Vocabulary getEligibilityVocabulary() {
+        return eligibilityVocabulary;
+    }
+
+    /**
+     * The distinct tokens of one field with their posting lists, plus a map from every substring
+     * of up to {@link #GRAM_LENGTH} characters to the tokens containing it. Finding the tokens
+     * that contain a word is then a map lookup (short words) or a check of the tokens sharing the
+     * word's rarest trigram, never a scan of the whole vocabulary.
+     */
+    static class Vocabulary {
+        private final String[] tokens;
+        private final int[][] postings;
+        private final Map<String, int[]> grams;
+
+        Vocabulary(List<ResourceMatchIndex.Entry> entries, Function<ResourceMatchIndex.Entry, String> field) {
+            Map<String, List<Integer>> lists = new HashMap<>();
+            for (ResourceMatchIndex.Entry entry : entries) {
+                String text = field.apply(entry);
+                if (text == null) {
+                    continue;
+                }
+                // Ordinals are visited in ascending order, so every posting list stays sorted
+                for (String token : ResourceMatchIndex.Entry.tokenize(text)) {
+                    lists.computeIfAbsent(token, k -> new ArrayList<>()).add(entry.getOrdinal());
+                }
+            }
+
+            this.tokens = new String[lists.size()];
+            this.postings = new int[lists.size()][];
+            Map<String, List<Integer>> gramLists = new HashMap<>();
+            int id = 0;
+            for (Map.Entry<String, List<Integer>> e : lists.entrySet()) {
+                String token = e.getKey();
+                tokens[id] = token;
+                postings[id] = e.getValue().stream().mapToInt(Integer::intValue).toArray();
+                for (int length = 1; length <= GRAM_LENGTH; length++) {
+                    for (int start = 0; start + length <= token.length(); start++) {
+                        List<Integer> ids = gramLists.computeIfAbsent(token.substring(start, start + length),
+                                                                      k -> new ArrayList<>());
+                        // Token ids are visited in ascending order; skip repeats within one token
+                        if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                            ids.add(id);
+                        }
+                    }
+                }
+                id++;
+            }
+
+            this.grams = new HashMap<>(gramLists.size() * 2);
+            for (Map.Entry<String, List<Integer>> e : gramLists.entrySet()) {
+                grams.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        /**
+         * Take over tokens, postings and grams that were built by the constructor above.
+         */
+        Vocabulary(String[] tokens, int[][] postings, Map<String, int[]> grams) {
+            this.tokens = tokens;
+            this.postings = postings;
+            this.grams = grams;
+        }
+
+        /** Distinct tokens; a token's id is its position. */
+        String[] getTokens() {
+            return tokens;
+        }
+
+        /** Ascending ordinals of the entries containing each token, by token id. */
+        int[][] getPostings() {
+            return postings;
+        }
+
+        /** Every substring of up to {@link #GRAM_LENGTH} characters to the ids of the tokens containing it. */
+        Map<String, int[]> getGrams() {
+            return grams;
+        }
+
+        /**
+         * Get the ids of the tokens that contain the word.
+         */
+        int[] tokensContaining(String word) {
+            if (word.length() <= GRAM_LENGTH) {
+                return grams.getOrDefault(word, NONE);
+            }
+
+            // A token containing the word contains each of its trigrams, so the tokens
+            // sharing the rarest one are a superset of the answer
+            int[] rarest = null;
+            for (int start = 0; start + GRAM_LENGTH <= word.length(); start++) {
+                int[] ids = grams.get(word.substring(start, start + GRAM_LENGTH));
+                if (ids == null) {
+                    return NONE;
+                }
+                if (rarest == null || ids.length < rarest.length) {
+                    rarest = ids;
+                }
+            }
+
+            int[] matches = new int[rarest.length];
+            int count = 0;
+            for (int id : rarest) {
+                if (tokens[id].contains(word)) {
+                    matches[count++] = id;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputed substring search over resource names, descriptions, categories and counties.
+ *
+ * Names and descriptions are lowercased once and indexed by their character n-grams of length
+ * 1, 2 and 3. A query of up to three characters is answered straight from the postings of that
+ * gram. A longer query intersects the postings of its trigrams and then checks the few
+ * surviving candidates with {@code contains}, so a search touches only resources that can match
+ * instead of lowercasing and scanning the whole directory. Categories and counties have few
+ * distinct values; those are matched once per query and expanded through their postings.
+ *
+ * Matching is exactly the case-insensitive {@code contains} semantics of the linear scans it
+ * replaces. Results are in directory order.
+ *
+ * Immutable once built; safe to share between threads.
+ */
+public class ResourceSearchIndex {
+    private static final int MAX_GRAM = 3;
+    private static final int[] NO_POSTINGS = new int[0];
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version = VERSIONS.incrementAndGet();
+    private final List<Resource> resources;
+    private final String[] names;
+    private final String[] descriptions;
+    private final Map<Long, int[]> nameGrams;
+    private final Map<Long, int[]> descriptionGrams;
+    private final BitSet withName = new BitSet();
+    private final BitSet withDescription = new BitSet();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byCounty = new HashMap<>();
+
+    /**
+     * Build the index. Resource ordinals are positions in the given list.
+     */
+    public ResourceSearchIndex(List<Resource> resources) {
+        this.resources = resources;
+        this.names = new String[resources.size()];
+        this.descriptions = new String[resources.size()];
+
+        Map<Long, IntList> nameBuilder = new HashMap<>();
+        Map<Long, IntList> descriptionBuilder = new HashMap<>();
+        for (int ordinal = 0; ordinal < resources.size(); ordinal++) {
+            Resource r = resources.get(ordinal);
+            if (r.getName() != null) {
+                names[ordinal] = r.getName().toLowerCase();
+                withName.set(ordinal);
+                addGrams(nameBuilder, names[ordinal], ordinal);
+            }
+            if (r.getDescription() != null) {
+                descriptions[ordinal] = r.getDescription().toLowerCase();
+                withDescription.set(ordinal);
+                addGrams(descriptionBuilder, descriptions[ordinal], ordinal);
+            }
+            if (r.getCategories() != null) {
+                for (String category : r.getCategories()) {
+                    if (category != null) {
+                        byCategory.computeIfAbsent(category.toLowerCase(), k -> new BitSet()).set(ordinal);
+                    }
+                }
+            }
+            if (r.getServiceArea() != null && r.getServiceArea().getCoverageByCounty() != null) {
+                for (String county : r.getServiceArea().getCoverageByCounty()) {
+                    if (county != null) {
+                        byCounty.computeIfAbsent(county.toLowerCase(), k -> new BitSet()).set(ordinal);
+                    }
+                }
+            }
+        }
+        this.nameGrams = freeze(nameBuilder);
+        this.descriptionGrams = freeze(descriptionBuilder);
+    }
+
+    /**
+     * Resources whose name contains the query (case-insensitive).
+     */
+    public List<Resource> searchByName(String query) {
+        return toList(matchName(query.toLowerCase()));
+    }
+
+    /**
+     * Resources whose description contains the query (case-insensitive).
+     */
+    public List<Resource> searchByDescription(String query) {
+        return toList(matchDescription(query.toLowerCase()));
+    }
+
+    /**
+     * Resources matching all given criteria; null or empty criteria match everything.
+     * Same semantics as {@link ResourceManager#filterResources}.
+     */
+    public List<Resource> filter(String category, String county, String searchTerm) {
+        return toList(filterOrdinals(category, county, searchTerm));
+    }
+
+    /**
+     * Ordinals of the resources matching all given criteria; null or empty criteria match everything.
+     *
+     * @param category Partial, case-insensitive match against any of a resource's categories
+     * @param county Partial, case-insensitive match against any county the resource covers
+     * @param searchTerm Partial, case-insensitive match against the name or the description
+     */
+    public BitSet filterOrdinals(String category, String county, String searchTerm) {
+        BitSet result = new BitSet(resources.size());
+        result.set(0, resources.size());
+        if (category != null && !category.isEmpty()) {
+            result.and(matchValues(byCategory, category.toLowerCase()));
+        }
+        if (county != null && !county.isEmpty() && !result.isEmpty()) {
+            result.and(matchValues(byCounty, county.toLowerCase()));
+        }
+        if (searchTerm != null && !searchTerm.isEmpty() && !result.isEmpty()) {
+            String lowerTerm = searchTerm.toLowerCase();
+            BitSet text = matchName(lowerTerm);
+            text.or(matchDescription(lowerTerm));
+            result.and(text);
+        }
+        return result;
+    }
+
+    /**
+     * One page of filter results, in directory order.
+     * Only the resources on the page are materialized.
+     *
+     * @param fromOrdinal First directory position to consider (0 for the first page)
+     * @param limit Maximum number of resources on the page
+     */
+    public Page filterPage(String category, String county, String searchTerm, int fromOrdinal, int limit) {
+        BitSet matches = filterOrdinals(category, county, searchTerm);
+        int[] ordinals = new int[Math.max(0, limit)];
+        int count = 0;
+        int ordinal = matches.nextSetBit(Math.max(0, fromOrdinal));
+        while (ordinal >= 0 && count < ordinals.length) {
+            ordinals[count++] = ordinal;
+            ordinal = matches.nextSetBit(ordinal + 1);
+        }
+        return new Page(Arrays.copyOf(ordinals, count), ordinal, matches.cardinality());
+    }
+
+    /**
+     * Identifies this build of the index; a reloaded directory gets a new version,
+     * so positions handed out by an older index can be recognized.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the resource with the given ordinal.
+     */
+    public Resource getResource(int ordinal) {
+        return resources.get(ordinal);
+    }
+
+    /**
+     * Number of indexed resources.
+     */
+    public int size() {
+        return resources.size();
+    }
+
+    private BitSet matchName(String lowerQuery) {
+        return match(nameGrams, names, withName, lowerQuery);
+    }
+
+    private BitSet matchDescription(String lowerQuery) {
+        return match(descriptionGrams, descriptions, withDescription, lowerQuery);
+    }
+
+    /**
+     * Ordinals whose text contains the (lowercased) query.
+     */
+    private BitSet match(Map<Long, int[]> grams, String[] texts, BitSet withText, String lowerQuery) {
+        if (lowerQuery.isEmpty()) {
+            return (BitSet) withText.clone();
+        }
+        BitSet result = new BitSet(texts.length);
+        if (lowerQuery.length() <= MAX_GRAM) {
+            // Short queries are grams themselves: the postings are the exact answer
+            for (int ordinal : grams.getOrDefault(gram(lowerQuery, 0, lowerQuery.length()), NO_POSTINGS)) {
+                result.set(ordinal);
+            }
+            return result;
+        }
+
+        // Candidates contain every trigram of the query; start from the rarest one
+        List<int[]> postings = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= lowerQuery.length(); i++) {
+            int[] list = grams.get(gram(lowerQuery, i, MAX_GRAM));
+            if (list == null) {
+                return result;
+            }
+            postings.add(list);
+        }
+        postings.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] rarest = postings.get(0);
+        for (int ordinal : rarest) {
+            boolean candidate = true;
+            for (int p = 1; p < postings.size() && candidate; p++) {
+                candidate = Arrays.binarySearch(postings.get(p), ordinal) >= 0;
+            }
+            // Trigrams may occur in the wrong places; confirm the actual substring
+            if (candidate && texts[ordinal].contains(lowerQuery)) {
+                result.set(ordinal);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Union of the postings of every distinct value containing the (lowercased) query.
+     */
+    private BitSet matchValues(Map<String, BitSet> byValue, String lowerQuery) {
+        BitSet result = new BitSet(resources.size());
+        for (Map.Entry<String, BitSet> entry : byValue.entrySet()) {
+            if (entry.getKey().contains(lowerQuery)) {
+                result.or(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private List<Resource> toList(BitSet ordinals) {
+        List<Resource> matches = new ArrayList<>(ordinals.cardinality());
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            matches.add(resources.get(ordinal));
+        }
+        return matches;
+    }
+
+    private static void addGrams(Map<Long, IntList> grams, String text, int ordinal) {
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                // Ordinals arrive in increasing order, so each list stays sorted and duplicate-free
+                grams.computeIfAbsent(gram(text, i, length), k -> new IntList()).addIfLast(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Pack up to three chars and the gram length into one key.
+     */
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key << (16 * (MAX_GRAM - length));
+    }
+
+    private static Map<Long, int[]> freeze(Map<Long, IntList> builder) {
+        Map<Long, int[]> frozen = new HashMap<>(builder.size() * 2);
+        for (Map.Entry<Long, IntList> entry : builder.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return frozen;
+    }
+
+    /**
+     * Growable sorted list of ordinals.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * One page of filter results.
+     */
+    public class Page {
+        private final int[] ordinals;
+        private final int nextOrdinal;
+        private final int total;
+
+        private Page(int[] ordinals, int nextOrdinal, int total) {
+            this.ordinals = ordinals;
+            this.nextOrdinal = nextOrdinal;
+            this.total = total;
+        }
+
+        /** Directory positions of the resources on this page. */
+        public int[] getOrdinals() { return ordinals; }
+
+        /** Resources on this page. */
+        public List<Resource> getResources() {
+            List<Resource> page = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                page.add(resources.get(ordinal));
+            }
+            return page;
+        }
+
+        /** Position of the first match after this page, or -1 if this is the last page. */
+        public int getNextOrdinal() { return nextOrdinal; }
+
+        /** Number of matches across all pages. */
+        public int getTotal() { return total; }
+
+        /** Version of the index the positions refer to. */
+        public long getVersion() { return version; }
+    }
+}
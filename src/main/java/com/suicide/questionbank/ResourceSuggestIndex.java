@@ -0,0 +1,267 @@
+package com.suicide.questionbank;
+
+import java.util.*;
+
+/**
+ * Typeahead over resource names, categories and counties.
+ *
+ * Every value is registered under its full lowercased text and under each later word start
+ * ("Nashville Crisis Line" is also found as "crisis line" and "line"). The keys are kept in one
+ * sorted array, so the keys sharing a prefix form a contiguous range found by binary search;
+ * a lookup only touches that range instead of the whole directory.
+ *
+ * Suggestions are ranked: exact matches, then values starting with the prefix, then values with
+ * a later word starting with it. Within a rank categories come before counties before resources,
+ * then shorter names first, then alphabetically. That order within a rank is fixed at build time,
+ * so a lookup keeps only the best {@code limit} matches on a bounded heap ({@link TopKSelector})
+ * instead of sorting every match.
+ *
+ * Immutable once built; safe to share between threads.
+ */
+public class ResourceSuggestIndex {
+    /** Suggestion type for a resource. */
+    public static final String RESOURCE = "resource";
+    /** Suggestion type for a category. */
+    public static final String CATEGORY = "category";
+    /** Suggestion type for a county. */
+    public static final String COUNTY = "county";
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_START = 1;
+    private static final int RANK_WORD = 2;
+
+    private final Suggestion[] suggestions;
+    private final String[] lowerValues;
+    private final int[] order;
+    private final String[] keys;
+    private final int[] keyTargets;
+    private final boolean[] keyAtStart;
+
+    /**
+     * Build the index over a resource directory. Resource ids are positions in the list.
+     */
+    public ResourceSuggestIndex(List<Resource> resources) {
+        List<Suggestion> values = new ArrayList<>();
+        Map<String, int[]> categoryCounts = new TreeMap<>();
+        Map<String, int[]> countyCounts = new TreeMap<>();
+        for (int ordinal = 0; ordinal < resources.size(); ordinal++) {
+            Resource r = resources.get(ordinal);
+            if (r.getName() != null && !r.getName().trim().isEmpty()) {
+                values.add(new Suggestion(RESOURCE, r.getName(), ordinal, 0));
+            }
+            for (String category : distinct(r.getCategories())) {
+                categoryCounts.computeIfAbsent(category, k -> new int[1])[0]++;
+            }
+            if (r.getServiceArea() != null) {
+                for (String county : distinct(r.getServiceArea().getCoverageByCounty())) {
+                    countyCounts.computeIfAbsent(county, k -> new int[1])[0]++;
+                }
+            }
+        }
+        categoryCounts.forEach((name, count) -> values.add(new Suggestion(CATEGORY, name, -1, count[0])));
+        countyCounts.forEach((name, count) -> values.add(new Suggestion(COUNTY, name, -1, count[0])));
+
+        this.suggestions = values.toArray(new Suggestion[0]);
+        this.lowerValues = new String[suggestions.length];
+
+        List<Key> keyList = new ArrayList<>();
+        for (int target = 0; target < suggestions.length; target++) {
+            String lower = suggestions[target].name.trim().toLowerCase();
+            lowerValues[target] = lower;
+            for (int start = 0; start < lower.length(); start++) {
+                boolean wordStart = Character.isLetterOrDigit(lower.charAt(start)) &&
+                                    (start == 0 || !Character.isLetterOrDigit(lower.charAt(start - 1)));
+                if (start == 0 || wordStart) {
+                    keyList.add(new Key(lower.substring(start), target, start == 0));
+                }
+            }
+        }
+        keyList.sort(Comparator.comparing((Key k) -> k.text));
+
+        // Position of each value in the within-rank order
+        Integer[] byOrder = new Integer[suggestions.length];
+        for (int target = 0; target < byOrder.length; target++) {
+            byOrder[target] = target;
+        }
+        Arrays.sort(byOrder, Comparator
+            .comparingInt((Integer target) -> typeOrder(suggestions[target].type))
+            .thenComparingInt(target -> lowerValues[target].length())
+            .thenComparing(target -> lowerValues[target])
+            .thenComparingInt(target -> target));
+        this.order = new int[suggestions.length];
+        for (int position = 0; position < byOrder.length; position++) {
+            order[byOrder[position]] = position;
+        }
+
+        this.keys = new String[keyList.size()];
+        this.keyTargets = new int[keyList.size()];
+        this.keyAtStart = new boolean[keyList.size()];
+        for (int i = 0; i < keyList.size(); i++) {
+            keys[i] = keyList.get(i).text;
+            keyTargets[i] = keyList.get(i).target;
+            keyAtStart[i] = keyList.get(i).atStart;
+        }
+    }
+
+    /**
+     * Suggest names, categories and counties for what has been typed so far.
+     *
+     * @param prefix Typed text (case-insensitive, surrounding whitespace ignored)
+     * @param limit Maximum number of suggestions
+     * @return Ranked suggestions, best first; empty for a blank prefix
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String lower = prefix.trim().toLowerCase();
+        if (lower.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // The keys starting with the prefix form one contiguous range
+        int from = lowerBound(lower);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(lower)) {
+            to++;
+        }
+
+        // One candidate per value, from its best-ranked key; higher scores rank first
+        int[] targets = new int[to - from];
+        int[] scores = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int target = keyTargets[i];
+            int rank;
+            if (keyAtStart[i]) {
+                rank = keys[i].length() == lower.length() ? RANK_EXACT : RANK_START;
+            } else if (hasEarlierMatch(target, keys[i].length(), lower)) {
+                continue;
+            } else {
+                rank = RANK_WORD;
+            }
+            targets[count] = target;
+            scores[count] = -(rank * suggestions.length + order[target]);
+            count++;
+        }
+
+        int[] best = TopKSelector.select(count < scores.length ? Arrays.copyOf(scores, count) : scores, limit);
+        List<Suggestion> result = new ArrayList<>(best.length);
+        for (int position : best) {
+            result.add(suggestions[targets[position]]);
+        }
+        return result;
+    }
+
+    /**
+     * True if the value has a key ranked at least as well as its key of the given length:
+     * the prefix also matches at the start of the value or at an earlier word start.
+     */
+    private boolean hasEarlierMatch(int target, int keyLength, String prefix) {
+        String value = lowerValues[target];
+        int keyStart = value.length() - keyLength;
+        for (int at = value.indexOf(prefix); at >= 0 && at < keyStart; at = value.indexOf(prefix, at + 1)) {
+            if (at == 0 || (Character.isLetterOrDigit(value.charAt(at)) && !Character.isLetterOrDigit(value.charAt(at - 1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of indexed keys (values plus their word starts).
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int typeOrder(String type) {
+        switch (type) {
+            case CATEGORY: return 0;
+            case COUNTY: return 1;
+            default: return 2;
+        }
+    }
+
+    private static Set<String> distinct(List<String> values) {
+        if (values == null) {
+            return Collections.emptySet();
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                distinct.add(value);
+            }
+        }
+        return distinct;
+    }
+
+    private static class Key {
+        private final String text;
+        private final int target;
+        private final boolean atStart;
+
+        Key(String text, int target, boolean atStart) {
+            this.text = text;
+            this.target = target;
+            this.atStart = atStart;
+        }
+    }
+
+    /**
+     * One typeahead suggestion.
+     */
+    public static class Suggestion {
+        private final String type;
+        private final String name;
+        private final int id;
+        private final int count;
+
+        Suggestion(String type, String name, int id, int count) {
+            this.type = type;
+            this.name = name;
+            this.id = id;
+            this.count = count;
+        }
+
+        /** {@link #RESOURCE}, {@link #CATEGORY} or {@link #COUNTY}. */
+        public String getType() { return type; }
+
+        public String getName() { return name; }
+
+        /** Position of the resource in the directory (resources only, -1 otherwise). */
+        public int getId() { return id; }
+
+        /** Number of resources with this category or county (0 for resources). */
+        public int getCount() { return count; }
+
+        /**
+         * Convert to a compact JSON-friendly map.
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("type", type);
+            map.put("name", name);
+            if (RESOURCE.equals(type)) {
+                map.put("id", id);
+            } else {
+                map.put("count", count);
+            }
+            return map;
+        }
+    }
+}
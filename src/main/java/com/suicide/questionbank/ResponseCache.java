@@ -0,0 +1,191 @@
+package com.suicide.questionbank;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of LLM responses with a time-to-live.
+ * Keys are built from the retrieval result of a chat turn (extracted needs and context,
+ * selected resources and questions) plus a hash of the normalized user message, so a
+ * question repeated with different case, spacing or punctuation reuses one completion
+ * instead of calling the LLM again.
+ *
+ * Thread-safe; all operations lock the cache briefly.
+ */
+public class ResponseCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CachedResponse> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries Maximum number of responses kept; the least recently used one is evicted first
+     * @param ttlMillis How long a response may be served after it was stored
+     */
+    public ResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = Math.max(1, ttlMillis);
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Build the cache key for a chat turn.
+     * Needs and context entries are sorted so equal situations always produce the same key.
+     *
+     * @return The key, or null if the turn must not be cached: with no needs and no context
+     *         extracted ("hello", "what should I say next?") the retrieval result says nothing
+     *         about the question, and the message alone is not a safe key
+     */
+    public static String keyFor(String userMessage,
+                                SPCchatbotDemo.ExtractedContext extracted,
+                                List<com.suicide.questionbank.Resource> resources,
+                                List<Question> questions) {
+        if (extracted.getNeeds().isEmpty() && extracted.getContext().isEmpty()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        key.append("message=").append(messageHash(userMessage));
+        key.append("|needs=").append(new TreeSet<>(extracted.getNeeds()));
+        key.append("|context=");
+        for (Map.Entry<String, Object> e : new TreeMap<>(extracted.getContext()).entrySet()) {
+            key.append(e.getKey()).append(':').append(e.getValue()).append(';');
+        }
+        key.append("|resources=");
+        for (com.suicide.questionbank.Resource r : resources) {
+            key.append(r.getName()).append(';');
+        }
+        key.append("|questions=");
+        for (Question q : questions) {
+            key.append(q.getId()).append(';');
+        }
+        return key.toString();
+    }
+
+    /**
+     * SHA-256 (Base64) of the message lowercased, with every run of characters other than
+     * letters and digits folded to one space and the ends trimmed.
+     */
+    static String messageHash(String message) {
+        StringBuilder normalized = new StringBuilder(message.length());
+        boolean gap = false;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(normalized.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * @return The response, or null if it is missing or expired
+     */
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null && now - cached.storedAt > ttlMillis) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                cached = null;
+            }
+            if (cached == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.response;
+        }
+    }
+
+    /**
+     * Store a response.
+     */
+    public void put(String key, String response) {
+        if (key == null || response == null) {
+            return;
+        }
+        CachedResponse cached = new CachedResponse(response, System.currentTimeMillis());
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+    }
+
+    /**
+     * Drop every cached response (e.g. after the directory changed).
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get hit/miss/eviction counters and the current size.
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    private static class CachedResponse {
+        private final String response;
+        private final long storedAt;
+
+        CachedResponse(String response, long storedAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -19,6 +19,9 @@ import java.util.stream.Collectors;
  */
 public class SPCchatbotDemo {
     
+    /** Number of ranked resources returned when no K is requested. */
+    public static final int DEFAULT_TOP_K = 3;
+    
     /**
      * Represents a resource object.
      */
@@ -83,6 +86,19 @@ public class SPCchatbotDemo {
         
         public Map<String, Object> getContext() { return context; }
         public void setContext(Map<String, Object> context) { this.context = context; }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ExtractedContext)) return false;
+            ExtractedContext other = (ExtractedContext) o;
+            return Objects.equals(needs, other.needs) && Objects.equals(context, other.context);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(needs, context);
+        }
     }
     
     /**
@@ -90,16 +106,26 @@ public class SPCchatbotDemo {
      */
     public static class TopResource {
         private Resource resource;
+        private com.suicide.questionbank.Resource sourceResource;
         private String justification;
         
         public TopResource(Resource resource, String justification) {
+            this(resource, null, justification);
+        }
+        
+        public TopResource(Resource resource, com.suicide.questionbank.Resource sourceResource, String justification) {
             this.resource = resource;
+            this.sourceResource = sourceResource;
             this.justification = justification;
         }
         
         public Resource getResource() { return resource; }
         public void setResource(Resource resource) { this.resource = resource; }
         
+        /** The directory resource behind this result, or null for synthesized emergency entries. */
+        public com.suicide.questionbank.Resource getSourceResource() { return sourceResource; }
+        public void setSourceResource(com.suicide.questionbank.Resource sourceResource) { this.sourceResource = sourceResource; }
+        
         public String getJustification() { return justification; }
         public void setJustification(String justification) { this.justification = justification; }
     }
@@ -118,27 +144,101 @@ public class SPCchatbotDemo {
         public void setTopResources(List<TopResource> topResources) { this.topResources = topResources; }
     }
     
+    /**
+     * Crisis type keywords. Kept in a HashMap built the same way as before so needs are
+     * reported in the same order.
+     */
+    private static final Map<String, List<String>> CRISIS_TYPES = new HashMap<>();
+    static {
+        CRISIS_TYPES.put("suicidal ideation", Arrays.asList("suicidal", "want to end my life", "kill myself", "suicide", "can't go on"));
+        CRISIS_TYPES.put("domestic violence", Arrays.asList("abuse", "hit me", "violent home", "partner hurt", "domestic", "beaten"));
+        CRISIS_TYPES.put("homelessness", Arrays.asList("homeless", "no place to stay", "nowhere to go", "live on the street"));
+        CRISIS_TYPES.put("substance use", Arrays.asList("drugs", "addiction", "alcohol", "overdose", "substance", "drinking problem"));
+        CRISIS_TYPES.put("grief", Arrays.asList("loss", "passed away", "grief", "mourning", "lost someone"));
+        CRISIS_TYPES.put("imminent risk", Arrays.asList("immediate danger", "in danger", "hurt myself", "going to do it now", "can't keep myself safe", "overdose", "gun", "knife"));
+    }
+    
+    private static final java.util.regex.Pattern AGE_PATTERN = java.util.regex.Pattern.compile("(\\d{1,2})\\s*(years old|yo)");
+    
+    /** Registered as keywords so a scan also tells whether the text holds any digit. */
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    
+    /**
+     * Single-pass scanner over every need and context keyword, built once at class load.
+     */
+    private static final KeywordScanner KEYWORDS = buildKeywordScanner();
+    
+    private static KeywordScanner buildKeywordScanner() {
+        KeywordScanner.Builder builder = new KeywordScanner.Builder();
+        for (List<String> keywords : CRISIS_TYPES.values()) {
+            builder.addAll(keywords);
+        }
+        return builder
+            .add("years old", "yo", "teen")
+            .add(DIGITS)
+            .add("woman", "female", "girl", "man", "male", "boy")
+            .add("veteran", "lgbt", "gay", "lesbian", "trans")
+            .add("single mother", "single mom", "child", "children", "son", "daughter")
+            .add("no car", "can't drive", "bus only", "no transportation")
+            .add("no money", "can't afford", "broke", "no insurance", "uninsured")
+            .add("spanish", "urgent", "now", "immediately")
+            .addWords("davidson", "nashville", "williamson", "sumner", "rutherford", "robertson")
+            .build();
+    }
+    
+    /**
+     * Get the scanner used by extractNeedsAndContext, e.g. to scan a transcript incrementally.
+     */
+    static KeywordScanner keywordScanner() {
+        return KEYWORDS;
+    }
+    
     /**
      * Extract needs and context from transcript.
      * Naive extraction using keyword matching. In production, use an LLM or NLP model.
      */
     public static ExtractedContext extractNeedsAndContext(String transcript) {
-        ExtractedContext extracted = new ExtractedContext();
         String lc = transcript.toLowerCase();
+        KeywordScanner.Hits hits = KEYWORDS.scan(lc);
+        return buildContext(hits, mayStateAge(hits) ? findAge(lc, 0) : null);
+    }
+    
+    /**
+     * True if scanned text can hold a match of the age pattern: it needs a digit and "years old"
+     * or "yo". "yo" alone is a substring of "you", "your" and "beyond", so without the digit
+     * check the regex would run on nearly every transcript.
+     */
+    static boolean mayStateAge(KeywordScanner.Hits hits) {
+        return hits.containsAny("years old", "yo") && hits.containsAny(DIGITS);
+    }
+    
+    /**
+     * Find the first stated age at or after the given offset of a lowercased transcript.
+     * 
+     * @return The age, or null if none is stated
+     */
+    static Integer findAge(CharSequence lc, int fromIndex) {
+        java.util.regex.Matcher ageMatcher = AGE_PATTERN.matcher(lc);
+        if (ageMatcher.find(fromIndex)) {
+            return Integer.parseInt(ageMatcher.group(1));
+        }
+        return null;
+    }
+    
+    /**
+     * Build needs and context from the keywords found in a transcript.
+     * 
+     * @param hits Keywords found by the scanner from keywordScanner()
+     * @param age First stated age in the transcript, or null
+     */
+    static ExtractedContext buildContext(KeywordScanner.Hits hits, Integer age) {
+        ExtractedContext extracted = new ExtractedContext();
         
         // Identify crisis type keywords
-        Map<String, List<String>> crisisTypes = new HashMap<>();
-        crisisTypes.put("suicidal ideation", Arrays.asList("suicidal", "want to end my life", "kill myself", "suicide", "can't go on"));
-        crisisTypes.put("domestic violence", Arrays.asList("abuse", "hit me", "violent home", "partner hurt", "domestic", "beaten"));
-        crisisTypes.put("homelessness", Arrays.asList("homeless", "no place to stay", "nowhere to go", "live on the street"));
-        crisisTypes.put("substance use", Arrays.asList("drugs", "addiction", "alcohol", "overdose", "substance", "drinking problem"));
-        crisisTypes.put("grief", Arrays.asList("loss", "passed away", "grief", "mourning", "lost someone"));
-        crisisTypes.put("imminent risk", Arrays.asList("immediate danger", "in danger", "hurt myself", "going to do it now", "can't keep myself safe", "overdose", "gun", "knife"));
-        
-        for (Map.Entry<String, List<String>> entry : crisisTypes.entrySet()) {
+        for (Map.Entry<String, List<String>> entry : CRISIS_TYPES.entrySet()) {
             String type = entry.getKey();
             for (String keyword : entry.getValue()) {
-                if (lc.contains(keyword)) {
+                if (hits.contains(keyword)) {
                     extracted.getNeeds().add(type);
                     if (type.equals("imminent risk")) {
                         extracted.getContext().put("imminentRisk", true);
@@ -149,50 +249,49 @@ public class SPCchatbotDemo {
         }
         
         // Demographics: Very basic heuristics (production: NLP)
-        java.util.regex.Pattern agePattern = java.util.regex.Pattern.compile("(\\d{1,2})\\s*(years old|yo)");
-        java.util.regex.Matcher ageMatcher = agePattern.matcher(lc);
-        if (ageMatcher.find()) {
-            extracted.getContext().put("age", Integer.parseInt(ageMatcher.group(1)));
-        } else if (lc.contains("teen")) {
+        if (age != null) {
+            extracted.getContext().put("age", age);
+        } else if (hits.contains("teen")) {
             extracted.getContext().put("ageGroup", "teen");
         }
         
-        if (lc.contains("woman") || lc.contains("female") || lc.contains("girl")) {
+        if (hits.containsAny("woman", "female", "girl")) {
             extracted.getContext().put("gender", "female");
-        } else if (lc.contains("man") || lc.contains("male") || lc.contains("boy")) {
+        } else if (hits.containsAny("man", "male", "boy")) {
             extracted.getContext().put("gender", "male");
         }
         
-        if (lc.contains("veteran")) extracted.getContext().put("demographic", "veteran");
-        if (lc.contains("lgbt") || lc.contains("gay") || lc.contains("lesbian") || lc.contains("trans")) {
+        if (hits.contains("veteran")) extracted.getContext().put("demographic", "veteran");
+        if (hits.containsAny("lgbt", "gay", "lesbian", "trans")) {
             extracted.getContext().put("demographic", "lgbtq+");
         }
         
         // Family status
-        if (lc.contains("single mother") || lc.contains("single mom")) {
+        if (hits.containsAny("single mother", "single mom")) {
             extracted.getContext().put("family", "single mother");
         }
-        if (lc.contains("child") || lc.contains("children") || lc.contains("son") || lc.contains("daughter")) {
+        if (hits.containsAny("child", "children", "son", "daughter")) {
             extracted.getContext().put("hasChildren", true);
         }
         
         // Logistical constraints
-        if (lc.contains("no car") || lc.contains("can't drive") || lc.contains("bus only") || lc.contains("no transportation")) {
+        if (hits.containsAny("no car", "can't drive", "bus only", "no transportation")) {
             extracted.getContext().put("transportation", "limited");
         }
-        if (lc.contains("no money") || lc.contains("can't afford") || lc.contains("broke") || lc.contains("no insurance") || lc.contains("uninsured")) {
+        if (hits.containsAny("no money", "can't afford", "broke", "no insurance", "uninsured")) {
             extracted.getContext().put("costSensitive", true);
         }
         
-        if (lc.matches(".*\\b(davidson|nashville)\\b.*")) {
+        if (hits.containsWord("davidson") || hits.containsWord("nashville")) {
             extracted.getContext().put("location", "Davidson");
         }
-        if (lc.matches(".*\\b(williamson|sumner|rutherford|robertson)\\b.*")) {
+        if (hits.containsWord("williamson") || hits.containsWord("sumner") ||
+            hits.containsWord("rutherford") || hits.containsWord("robertson")) {
             extracted.getContext().put("location", "Middle TN Outside Davidson");
         }
-        if (lc.contains("spanish")) extracted.getContext().put("language", "spanish");
+        if (hits.contains("spanish")) extracted.getContext().put("language", "spanish");
         
-        if (lc.contains("urgent") || lc.contains("now") || lc.contains("immediately") || 
+        if (hits.containsAny("urgent", "now", "immediately") || 
             extracted.getContext().getOrDefault("imminentRisk", false).equals(true)) {
             extracted.getContext().put("urgency", "immediate");
         }
@@ -202,26 +301,38 @@ public class SPCchatbotDemo {
     
     /**
      * Filter resources based on context.
+     * 
+     * @deprecated Use {@link #filterEntries(ResourceMatchIndex, Map)} with an index built once,
+     *             such as {@link ResourceManager#getMatchIndex()}
      */
+    @Deprecated
     public static List<Resource> filterResources(List<Resource> resources, Map<String, Object> context) {
-        return resources.stream()
-            .filter(resource -> {
+        return filterEntries(indexFor(resources), context).stream()
+            .map(ResourceMatchIndex.Entry::getResource)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Filter indexed resources based on context.
+     */
+    public static List<ResourceMatchIndex.Entry> filterEntries(ResourceMatchIndex index, Map<String, Object> context) {
+        return index.getEntries().stream()
+            .filter(entry -> {
                 // 1. By location/relevance
                 boolean locationOk = false;
                 Object location = context.get("location");
+                String sa = entry.getServiceAreaText();
                 if ("Davidson".equals(location)) {
-                    if (resource.getServiceArea() == null) {
+                    if (sa == null) {
                         locationOk = true;
                     } else {
-                        String sa = resource.getServiceArea().toLowerCase();
                         locationOk = sa.contains("nashville") || sa.contains("davidson") || 
                                     sa.contains("greater nashville") || sa.contains("statewide");
                     }
                 } else if ("Middle TN Outside Davidson".equals(location)) {
-                    if (resource.getServiceArea() == null) {
+                    if (sa == null) {
                         locationOk = true;
                     } else {
-                        String sa = resource.getServiceArea().toLowerCase();
                         locationOk = sa.contains("sumner") || sa.contains("rutherford") || 
                                     sa.contains("williamson") || sa.contains("robertson") || 
                                     sa.contains("middle tennessee") || sa.contains("statewide");
@@ -232,8 +343,8 @@ public class SPCchatbotDemo {
                 
                 // 2. By eligibility
                 boolean eligible = true;
-                if (resource.getEligibility() != null) {
-                    String elig = resource.getEligibility().toLowerCase();
+                String elig = entry.getEligibilityText();
+                if (elig != null) {
                     Object age = context.get("age");
                     Object ageGroup = context.get("ageGroup");
                     Object gender = context.get("gender");
@@ -254,18 +365,9 @@ public class SPCchatbotDemo {
                 }
                 
                 // 3. Remove training, non-service agencies, outdated
-                if (resource.getCategory() != null && resource.getCategory().toLowerCase().contains("training")) {
+                if (entry.isExcluded()) {
                     return false;
                 }
-                if ("outdated".equalsIgnoreCase(resource.getStatus())) {
-                    return false;
-                }
-                if (resource.getDescription() != null) {
-                    String desc = resource.getDescription().toLowerCase();
-                    if (desc.contains("training program") || desc.contains("not for public use")) {
-                        return false;
-                    }
-                }
                 
                 return locationOk && eligible;
             })
@@ -276,13 +378,19 @@ public class SPCchatbotDemo {
      * Calculate match score for a resource.
      */
     public static int matchScore(Resource resource, ExtractedContext extracted) {
+        return matchScore(new ResourceMatchIndex.Entry(0, null, resource), extracted);
+    }
+    
+    /**
+     * Calculate match score for an indexed resource.
+     */
+    public static int matchScore(ResourceMatchIndex.Entry entry, ExtractedContext extracted) {
         int score = 0;
         
         // 1. Crisis type relevance (primary)
         if (!extracted.getNeeds().isEmpty()) {
             int rel = 0;
-            String rcat = ((resource.getCategory() != null ? resource.getCategory() : "") + 
-                          (resource.getDescription() != null ? resource.getDescription() : "")).toLowerCase();
+            String rcat = entry.getRelevanceText();
             
             for (String need : extracted.getNeeds()) {
                 String[] words = need.split(" ");
@@ -295,17 +403,18 @@ public class SPCchatbotDemo {
         
         // 2. Proximity/accessibility
         Object location = extracted.getContext().get("location");
-        if (resource.getServiceArea() != null && location != null) {
-            if (resource.getServiceArea().toLowerCase().contains(location.toString().toLowerCase())) {
+        String sa = entry.getServiceAreaText();
+        if (sa != null && location != null) {
+            if (sa.contains(location.toString().toLowerCase())) {
                 score += 2;
             }
-        } else if (resource.getServiceArea() == null) {
+        } else if (sa == null) {
             score += 1;
         }
         
         // 3. Affordability
-        if (resource.getCost() != null) {
-            String cost = resource.getCost().toLowerCase();
+        String cost = entry.getCostText();
+        if (cost != null) {
             if (cost.contains("free") || cost.contains("no cost")) {
                 score += 2;
             } else if (extracted.getContext().getOrDefault("costSensitive", false).equals(true)) {
@@ -315,13 +424,13 @@ public class SPCchatbotDemo {
         
         // 4. Language/demographics
         Object language = extracted.getContext().get("language");
-        if (resource.getLanguage() != null && language != null) {
-            if (resource.getLanguage().toLowerCase().contains(language.toString().toLowerCase())) {
+        if (entry.getLanguageText() != null && language != null) {
+            if (entry.getLanguageText().contains(language.toString().toLowerCase())) {
                 score += 1;
             }
         }
-        if (resource.getEligibility() != null) {
-            String elig = resource.getEligibility().toLowerCase();
+        String elig = entry.getEligibilityText();
+        if (elig != null) {
             if ("teen".equals(extracted.getContext().get("ageGroup")) && elig.contains("teen")) {
                 score += 1;
             }
@@ -336,13 +445,14 @@ public class SPCchatbotDemo {
         }
         
         // 5. Urgency
+        String hours = entry.getResource().getHours();
         if ("immediate".equals(extracted.getContext().get("urgency")) && 
-            resource.getHours() != null && resource.getHours().contains("24")) {
+            hours != null && hours.contains("24")) {
             score += 1;
         }
         
         // Penalize generic referral/wrong-fit
-        if (resource.getCategory() != null && resource.getCategory().toLowerCase().contains("training")) {
+        if (entry.isTraining()) {
             score -= 3;
         }
         
@@ -351,85 +461,167 @@ public class SPCchatbotDemo {
     
     /**
      * Get top resources for a transcript.
+     * 
+     * @deprecated Use {@link #getTopResources(String, ResourceMatchIndex)} with an index built once,
+     *             such as {@link ResourceManager#getMatchIndex()}
      */
+    @Deprecated
     public static Result getTopResources(String transcript, List<Resource> resources) {
-        ExtractedContext extracted = extractNeedsAndContext(transcript);
-        List<Resource> filtered = filterResources(resources, extracted.getContext());
-        
+        return getTopResources(transcript, indexFor(resources));
+    }
+    
+    /**
+     * Get top resources for a transcript from a prebuilt match index.
+     */
+    public static Result getTopResources(String transcript, ResourceMatchIndex index) {
+        return getTopResources(transcript, index, DEFAULT_TOP_K);
+    }
+    
+    /**
+     * Get the K best resources for a transcript from a prebuilt match index.
+     * 
+     * @param transcript Caller transcript
+     * @param index Precompiled match index
+     * @param topK Number of ranked resources to return (in addition to 911/988 on imminent risk)
+     */
+    public static Result getTopResources(String transcript, ResourceMatchIndex index, int topK) {
+        return rankResources(extractNeedsAndContext(transcript), index, topK);
+    }
+    
+    /**
+     * Filter, rank and justify the K best resources for already extracted needs and context.
+     * 
+     * @param extracted Needs and context extracted from the transcript
+     * @param index Precompiled match index
+     * @param topK Number of ranked resources to return (in addition to 911/988 on imminent risk)
+     */
+    public static Result rankResources(ExtractedContext extracted, ResourceMatchIndex index, int topK) {
+        return rankFiltered(extracted, index, filterEntries(index, extracted.getContext()), topK);
+    }
+    
+    /**
+     * Rank, select and justify the K best of already filtered entries.
+     * 
+     * @param filtered Entries of the index that passed {@link #filterEntries} for the extracted context
+     */
+    public static Result rankFiltered(ExtractedContext extracted, ResourceMatchIndex index,
+                                      List<ResourceMatchIndex.Entry> filtered, int topK) {
         List<TopResource> topResources = new ArrayList<>();
         
         // Safety rule: Imminent risk? Then hardcode include 911 and 988 at start
         if (extracted.getContext().getOrDefault("imminentRisk", false).equals(true)) {
-            Resource em911 = filtered.stream()
-                .filter(r -> (r.getName() != null && r.getName().contains("911")) || 
-                            (r.getTitle() != null && r.getTitle().contains("911")))
+            TopResource em911 = filtered.stream()
+                .filter(ResourceMatchIndex.Entry::mentions911)
                 .findFirst()
-                .orElse(createEmergencyResource("911 Emergency Services", 
-                    "Call 911 for immediate emergency assistance."));
+                .map(e -> new TopResource(e.getResource(), e.getSource(),
+                    "Transcript indicates imminent risk; 911 Emergency should be called for immediate assistance."))
+                .orElse(new TopResource(createEmergencyResource("911 Emergency Services", 
+                    "Call 911 for immediate emergency assistance."),
+                    "Transcript indicates imminent risk; 911 Emergency should be called for immediate assistance."));
             
-            Resource em988 = filtered.stream()
-                .filter(r -> (r.getName() != null && r.getName().contains("988")) || 
-                            (r.getTitle() != null && r.getTitle().contains("988")))
+            TopResource em988 = filtered.stream()
+                .filter(ResourceMatchIndex.Entry::mentions988)
                 .findFirst()
-                .orElse(createEmergencyResource("988 Suicide & Crisis Lifeline", 
-                    "Contact 988 for immediate crisis and suicide prevention assistance."));
+                .map(e -> new TopResource(e.getResource(), e.getSource(),
+                    "For immediate suicide and crisis prevention support, the 988 Lifeline should be offered in all cases of potential imminent danger."))
+                .orElse(new TopResource(createEmergencyResource("988 Suicide & Crisis Lifeline", 
+                    "Contact 988 for immediate crisis and suicide prevention assistance."),
+                    "For immediate suicide and crisis prevention support, the 988 Lifeline should be offered in all cases of potential imminent danger."));
             
-            topResources.add(new TopResource(em911, 
-                "Transcript indicates imminent risk; 911 Emergency should be called for immediate assistance."));
-            topResources.add(new TopResource(em988, 
-                "For immediate suicide and crisis prevention support, the 988 Lifeline should be offered in all cases of potential imminent danger."));
+            topResources.add(em911);
+            topResources.add(em988);
             
             // Remove from filtered to avoid duplication
             filtered = filtered.stream()
-                .filter(r -> (r.getName() == null || (!r.getName().contains("911") && !r.getName().contains("988"))) &&
-                            (r.getTitle() == null || (!r.getTitle().contains("911") && !r.getTitle().contains("988"))))
+                .filter(e -> !e.mentions911() && !e.mentions988())
                 .collect(Collectors.toList());
         }
         
-        // Score and rank other resources
-        List<Map.Entry<Resource, Integer>> scored = filtered.stream()
-            .map(resource -> new AbstractMap.SimpleEntry<>(resource, matchScore(resource, extracted)))
-            .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-            .collect(Collectors.toList());
+        // Score other resources through the inverted index and keep only the K best
+        int[] scores = index.getRankingEngine().score(filtered, extracted);
+        int[] best = TopKSelector.select(scores, topK);
         
-        // Compose top 3 (in addition to 911/988 if needed)
-        int count = 0;
-        for (Map.Entry<Resource, Integer> entry : scored) {
-            if (count++ >= 3) break;
-            Resource r = entry.getKey();
+        // Compose top K (in addition to 911/988 if needed)
+        for (int position : best) {
+            ResourceMatchIndex.Entry e = filtered.get(position);
+            Resource r = e.getResource();
             
             List<String> justification = new ArrayList<>();
             if (!extracted.getNeeds().isEmpty()) {
                 String firstNeed = extracted.getNeeds().get(0);
-                String rcat = ((r.getCategory() != null ? r.getCategory() : "") + 
-                              (r.getDescription() != null ? r.getDescription() : "")).toLowerCase();
-                if (rcat.contains(firstNeed.split(" ")[0])) {
+                if (e.getRelevanceText().contains(firstNeed.split(" ")[0])) {
                     justification.add("Directly addresses the caller's primary concern.");
                 }
             }
             Object location = extracted.getContext().get("location");
-            if (r.getServiceArea() != null && location != null && 
-                r.getServiceArea().toLowerCase().contains(location.toString().toLowerCase())) {
+            if (e.getServiceAreaText() != null && location != null && 
+                e.getServiceAreaText().contains(location.toString().toLowerCase())) {
                 justification.add("Located within the caller's geographic area.");
             }
-            if (r.getCost() != null && r.getCost().toLowerCase().contains("free")) {
+            if (e.getCostText() != null && e.getCostText().contains("free")) {
                 justification.add("No cost/affordable, reducing barriers to access.");
             }
             Object language = extracted.getContext().get("language");
-            if (r.getLanguage() != null && language != null && 
-                r.getLanguage().toLowerCase().contains(language.toString().toLowerCase())) {
+            if (e.getLanguageText() != null && language != null && 
+                e.getLanguageText().contains(language.toString().toLowerCase())) {
                 justification.add("Service available in " + language + ".");
             }
             if (justification.isEmpty()) {
                 justification.add("Matches several needs identified in the caller's context.");
             }
             
-            topResources.add(new TopResource(r, String.join(" ", justification)));
+            topResources.add(new TopResource(r, e.getSource(), String.join(" ", justification)));
         }
         
         return new Result(topResources);
     }
     
+    /** Index of the last list passed to the deprecated list overloads. */
+    private static volatile ListIndex lastListIndex;
+    
+    /**
+     * Match index for a resource list passed to the deprecated list overloads. The index of the
+     * last list is kept and reused while the same list holds the same resources, so repeated
+     * calls with one list do not re-index it. Changes made to the resources themselves are not
+     * detected.
+     */
+    private static ResourceMatchIndex indexFor(List<Resource> resources) {
+        ListIndex cached = lastListIndex;
+        if (cached == null || !cached.isFor(resources)) {
+            cached = new ListIndex(resources);
+            lastListIndex = cached;
+        }
+        return cached.index;
+    }
+    
+    /**
+     * A resource list, the resources it held when indexed, and their index.
+     */
+    private static class ListIndex {
+        private final List<Resource> list;
+        private final Resource[] resources;
+        private final ResourceMatchIndex index;
+        
+        ListIndex(List<Resource> list) {
+            this.list = list;
+            this.resources = list.toArray(new Resource[0]);
+            this.index = ResourceMatchIndex.ofChatbotResources(Arrays.asList(resources));
+        }
+        
+        boolean isFor(List<Resource> other) {
+            if (other != list || other.size() != resources.length) {
+                return false;
+            }
+            int i = 0;
+            for (Resource r : other) {
+                if (r != resources[i++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
     private static Resource createEmergencyResource(String name, String description) {
         Resource resource = new Resource();
         resource.setName(name);
@@ -0,0 +1,62 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable /api/statistics payload, computed once per data load.
+ * Carries an ETag derived from the content and the time it was built, so clients
+ * polling the endpoint can revalidate with conditional GETs instead of refetching.
+ */
+public class StatisticsSnapshot {
+    private final Map<String, Object> body;
+    private final String etag;
+    private final long lastModified;
+
+    private StatisticsSnapshot(Map<String, Object> body, String etag, long lastModified) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Build the snapshot from the loaded question bank and resource directory.
+     */
+    public static StatisticsSnapshot of(QuestionBankManager questionManager, ResourceManager resourceManager) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        QuestionBankStatistics qStats = questionManager.getStatistics();
+        stats.put("totalQuestions", qStats.getTotalQuestions());
+        stats.put("questionCategories", new TreeMap<>(qStats.getCategories()));
+
+        stats.put("totalResources", resourceManager.getTotalResources());
+        stats.put("resourceCategories", new TreeSet<>(resourceManager.getAllCategories()));
+        stats.put("counties", new TreeSet<>(resourceManager.getAllCounties()));
+
+        Map<String, Object> body = Collections.unmodifiableMap(stats);
+        String json = new Gson().toJson(body);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8)) + "\"";
+
+        // HTTP dates have second precision
+        long lastModified = System.currentTimeMillis() / 1000 * 1000;
+        return new StatisticsSnapshot(body, etag, lastModified);
+    }
+
+    /** The response body. */
+    public Map<String, Object> getBody() {
+        return body;
+    }
+
+    /** Strong ETag (quoted) that changes whenever the content changes. */
+    public String getEtag() {
+        return etag;
+    }
+
+    /** When this snapshot was built, in epoch milliseconds. */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
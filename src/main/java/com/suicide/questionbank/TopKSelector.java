@@ -0,0 +1,85 @@
+package com.suicide.questionbank;
+
+/**
+ * Bounded top-K selection over a primitive score array.
+ * Keeps a fixed-size min-heap of candidate positions instead of sorting every score,
+ * so selecting K of N costs O(N log K) time and O(K) extra space.
+ *
+ * Ties are broken by position (earlier wins), which matches a stable descending sort.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Select the positions of the K highest scores.
+     *
+     * @param scores Scores indexed by candidate position
+     * @param k Maximum number of positions to return
+     * @return Positions of the best scores, best first
+     */
+    public static int[] select(int[] scores, int k) {
+        int size = Math.min(Math.max(k, 0), scores.length);
+        int[] heap = new int[size];
+        int count = 0;
+
+        for (int i = 0; i < scores.length; i++) {
+            if (count < size) {
+                heap[count] = i;
+                siftUp(heap, count, scores);
+                count++;
+            } else if (size > 0 && ranksAbove(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, 0, count, scores);
+            }
+        }
+
+        // Pop the weakest remaining candidate into the back of the result
+        int[] result = new int[count];
+        for (int last = count - 1; last >= 0; last--) {
+            result[last] = heap[0];
+            heap[0] = heap[last];
+            siftDown(heap, 0, last, scores);
+        }
+        return result;
+    }
+
+    /**
+     * True if position a ranks strictly above position b.
+     */
+    private static boolean ranksAbove(int a, int b, int[] scores) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int index, int[] scores) {
+        int item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], item, scores)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = item;
+    }
+
+    private static void siftDown(int[] heap, int index, int count, int[] scores) {
+        int item = heap[index];
+        int half = count >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < count && ranksAbove(heap[child], heap[right], scores)) {
+                child = right;
+            }
+            if (!ranksAbove(item, heap[child], scores)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = item;
+    }
+}
@@ -0,0 +1,167 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * State transitions of {@link CircuitBreaker}: closed, open, half-open and back.
+ */
+class CircuitBreakerTest {
+    private static final long OPEN_MS = 100;
+    private static final long MAX_OPEN_MS = 400;
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, OPEN_MS, MAX_OPEN_MS);
+
+    @Test
+    void opensAtTheFailureThreshold() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure(new SocketTimeoutException("timeout"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertTrue(breaker.getRemainingOpenMillis() > 0);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        fail(2);
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void clientErrorsDoNotCount() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure(new LLMService.ApiException("bad request", 400, -1, false));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void retryAfterOpensAtOnceForTheRequestedTime() {
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure(new LLMService.ApiException("rate limited", 429, 250, false));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        long remaining = breaker.getRemainingOpenMillis();
+        assertTrue(remaining > OPEN_MS && remaining <= 250, "open for " + remaining + "ms");
+    }
+
+    @Test
+    void retryAfterIsCappedAtMaxOpen() {
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure(new LLMService.ApiException("rate limited", 429, 60_000, false));
+        long remaining = breaker.getRemainingOpenMillis();
+        assertTrue(remaining > OPEN_MS && remaining <= MAX_OPEN_MS, "open for " + remaining + "ms");
+    }
+
+    @Test
+    void exhaustedQuotaOpensAtOnceForTheCoolDown() {
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure(new LLMService.ApiException("quota", 429, -1, true));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.getRemainingOpenMillis() <= OPEN_MS);
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThroughAndClosesOnSuccess() throws InterruptedException {
+        openAndWaitForCoolDown();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest(), "only one trial call while half-open");
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void halfOpenReopensOnTrialFailure() throws InterruptedException {
+        openAndWaitForCoolDown();
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure(new LLMService.ApiException("server error", 500, -1, false));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void releasedTrialLetsTheNextCallTry() throws InterruptedException {
+        openAndWaitForCoolDown();
+        assertTrue(breaker.allowRequest());
+        breaker.release();
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        CircuitBreaker disabled = CircuitBreaker.disabled();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(disabled.allowRequest());
+            disabled.recordFailure(new IOException("connection refused"));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, disabled.getState());
+    }
+
+    @Test
+    void listenerFailureAfterTheStreamIsNotAnUpstreamFailure() throws Exception {
+        LLMClientConfig config = new LLMClientConfig(1_000, 1_000, 1_000, 5_000,
+                                                     LLMClientConfig.DEFAULT_MAX_IDLE_CONNECTIONS, LLMClientConfig.DEFAULT_KEEP_ALIVE_MS,
+                                                     0, true, LLMClientConfig.DEFAULT_MAX_IN_FLIGHT, LLMClientConfig.DEFAULT_MAX_QUEUED,
+                                                     1, OPEN_MS, MAX_OPEN_MS);
+        LLMService service = new LLMService("not-needed", "mock://local?ttft-ms=0&tokens-per-sec=0", "mock", false, null, config);
+        CompletableFuture<String> completed = new CompletableFuture<>();
+        AtomicInteger errors = new AtomicInteger();
+
+        service.streamResponse("system", "hello", null, new LLMService.StreamListener() {
+            @Override
+            public void onToken(String token) {
+            }
+
+            @Override
+            public void onComplete(String fullResponse) {
+                completed.complete(fullResponse);
+                throw new IllegalStateException("client went away");
+            }
+
+            @Override
+            public void onError(IOException e) {
+                errors.incrementAndGet();
+            }
+        });
+
+        completed.get(10, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getOutstandingCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, errors.get(), "onError after onComplete");
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitBreaker().getState());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure(new IOException("connection reset"));
+        }
+    }
+
+    private void openAndWaitForCoolDown() throws InterruptedException {
+        fail(3);
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(OPEN_MS + 50);
+    }
+}
@@ -0,0 +1,73 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reloads through {@link DataReloader} publish both data files or neither.
+ */
+class DataReloaderTest {
+    private static final String QUESTIONS =
+        "{\"rapport\": [{\"id\": 1, \"question\": \"How are you?\", \"tone\": \"gentle\", " +
+        "\"risk_level\": \"low\", \"escalation_tier\": 1, \"use_after_rapport\": false}]}";
+    private static final String RESOURCES = "[{\"id\": \"r1\", \"name\": \"Crisis Line\"}]";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publishesBothFiles() throws Exception {
+        Path questions = write("questions.json", QUESTIONS);
+        Path resources = write("resources.json", RESOURCES);
+        QuestionBankManager questionManager = new QuestionBankManager(questions.toString());
+        ResourceManager resourceManager = new ResourceManager(resources.toString());
+        AtomicInteger refreshed = new AtomicInteger();
+
+        write("questions.json", QUESTIONS.replace("}]}", "}, {\"id\": 2, \"question\": \"Anything else?\"}]}"));
+        write("resources.json", RESOURCES.replace("}]", "}, {\"id\": \"r2\", \"name\": \"Shelter\"}]"));
+        try (DataReloader reloader = new DataReloader(questionManager, resourceManager, refreshed::incrementAndGet, 0)) {
+            DataReloader.ReloadResult result = reloader.requestReload("test").get(10, TimeUnit.SECONDS);
+
+            assertTrue(result.isSuccess(), result.getError());
+            assertEquals(2, result.getTotalQuestions());
+            assertEquals(2, result.getTotalResources());
+            assertEquals(2, questionManager.getStatistics().getTotalQuestions());
+            assertEquals(2, resourceManager.getTotalResources());
+            assertEquals(1, refreshed.get());
+        }
+    }
+
+    @Test
+    void aCorruptFileLeavesBothFilesAsTheyWere() throws Exception {
+        Path questions = write("questions.json", QUESTIONS);
+        Path resources = write("resources.json", RESOURCES);
+        QuestionBankManager questionManager = new QuestionBankManager(questions.toString());
+        ResourceManager resourceManager = new ResourceManager(resources.toString());
+        AtomicInteger refreshed = new AtomicInteger();
+
+        // The question bank is valid and loads first; the resource file is truncated
+        write("questions.json", QUESTIONS.replace("}]}", "}, {\"id\": 2, \"question\": \"Anything else?\"}]}"));
+        write("resources.json", "[{\"id\": \"r1\", \"na");
+        try (DataReloader reloader = new DataReloader(questionManager, resourceManager, refreshed::incrementAndGet, 0)) {
+            DataReloader.ReloadResult result = reloader.requestReload("test").get(10, TimeUnit.SECONDS);
+
+            assertFalse(result.isSuccess());
+            assertNotNull(result.getError());
+            assertEquals(1, questionManager.getStatistics().getTotalQuestions());
+            assertEquals(1, resourceManager.getTotalResources());
+            assertEquals(0, refreshed.get());
+        }
+    }
+
+    private Path write(String name, String json) throws Exception {
+        return Files.write(dir.resolve(name), json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,218 @@
+package com.suicide.questionbank;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips and damaged files for {@link DataSnapshot}.
+ */
+class DataSnapshotTest {
+    /** magic, version, kind, source length, source stamp */
+    private static final int CRC_OFFSET = 4 + 4 + 1 + 8 + 8;
+    private static final int BODY_OFFSET = CRC_OFFSET + 8;
+
+    private static final String[] TERMS = {
+        "suicid", "domestic", "violence", "substanceuse", "grief", "teen", "female", "veteran", "lgbtq+",
+        "24/7", "crisis line", "e", "zz",
+    };
+
+    private static final DataSnapshot.Fingerprint SOURCE = DataSnapshot.Fingerprint.of(new byte[] {1, 2, 3});
+    private static final Gson GSON = new Gson();
+
+    private static ResourceManager directory;
+    private static QuestionBankManager bank;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadJson() throws IOException {
+        directory = new ResourceManager("resources_full.json");
+        bank = new QuestionBankManager("suicide_question_bank.json");
+    }
+
+    @Test
+    void resourcesRoundTripWithTheirIndices() throws IOException {
+        Path file = writeResources();
+        DataSnapshot.Resources read = DataSnapshot.readResources(file, SOURCE);
+        assertNotNull(read);
+
+        List<Resource> resources = directory.getAllResources();
+        assertEquals(GSON.toJson(resources), GSON.toJson(read.getResources()));
+        assertEquals(directory.getAllCategories(), read.getCategories());
+        assertEquals(directory.getAllCounties(), read.getCounties());
+        for (String category : directory.getAllCategories()) {
+            assertEquals(ordinals(resources, directory.getResourcesByCategory(category)),
+                         ordinals(read.getResources(), read.getCategoryIndex().get(category.toLowerCase())), category);
+        }
+        for (String county : directory.getAllCounties()) {
+            assertEquals(ordinals(resources, directory.getResourcesByCounty(county)),
+                         ordinals(read.getResources(), read.getCountyIndex().get(county.toLowerCase())), county);
+        }
+
+        ResourceRankingEngine built = directory.getMatchIndex().getRankingEngine();
+        ResourceRankingEngine loaded = read.buildMatchIndex().getRankingEngine();
+        assertEquals(built.getRelevanceVocabularySize(), loaded.getRelevanceVocabularySize());
+        for (String term : TERMS) {
+            assertArrayEquals(built.relevanceContaining(term), loaded.relevanceContaining(term), term);
+            assertArrayEquals(built.eligibilityContaining(term), loaded.eligibilityContaining(term), term);
+        }
+    }
+
+    @Test
+    void questionBankRoundTripsInOrder() throws IOException {
+        Map<String, List<Question>> questions = questionBank();
+        Path file = dir.resolve("questions.snapshot");
+        DataSnapshot.writeQuestions(file, SOURCE, questions);
+
+        Map<String, List<Question>> read = DataSnapshot.readQuestions(file, SOURCE);
+        assertNotNull(read);
+        assertEquals(new ArrayList<>(questions.keySet()), new ArrayList<>(read.keySet()));
+        assertEquals(GSON.toJson(questions), GSON.toJson(read));
+    }
+
+    @Test
+    void staleOrMissingSnapshotsAreIgnored() throws IOException {
+        Path file = writeResources();
+        assertNull(DataSnapshot.readResources(file, DataSnapshot.Fingerprint.of(new byte[] {1, 2, 4})));
+        assertNull(DataSnapshot.readQuestions(file, SOURCE), "a resource snapshot is not a question bank");
+        assertNull(DataSnapshot.readResources(dir.resolve("missing.snapshot"), SOURCE));
+    }
+
+    @Test
+    void damagedFilesAreIgnored() throws IOException {
+        byte[] valid = Files.readAllBytes(writeResources());
+
+        assertUnreadable(Arrays.copyOf(valid, valid.length / 2), "truncated");
+        assertUnreadable(Arrays.copyOf(valid, BODY_OFFSET - 3), "truncated header");
+        assertUnreadable(Arrays.copyOf(valid, valid.length + 4), "trailing bytes");
+        assertUnreadable(new byte[0], "empty");
+
+        byte[] flipped = valid.clone();
+        flipped[valid.length / 2] ^= 0x40;
+        assertUnreadable(flipped, "flipped bit");
+
+        byte[] version = valid.clone();
+        version[7]++;
+        assertUnreadable(version, "other version");
+    }
+
+    @Test
+    void countsThatDoNotFitTheFileAreRejected() throws IOException {
+        byte[] valid = Files.readAllBytes(writeResources());
+        // The body checksum is recomputed, so only the count checks stand between these and the heap
+        for (int count : new int[] {-2, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, valid.length}) {
+            byte[] forged = valid.clone();
+            ByteBuffer.wrap(forged).putInt(BODY_OFFSET, count);
+            assertUnreadable(withChecksum(forged), "string count " + count);
+        }
+
+        // First resource count sits right after the string table
+        ByteBuffer in = ByteBuffer.wrap(valid);
+        in.position(BODY_OFFSET);
+        int strings = in.getInt();
+        for (int i = 0; i < strings; i++) {
+            int length = in.getInt();
+            in.position(in.position() + length);
+        }
+        int resourceCount = in.position();
+        for (int count : new int[] {-1, Integer.MAX_VALUE, valid.length / 4}) {
+            byte[] forged = valid.clone();
+            ByteBuffer.wrap(forged).putInt(resourceCount, count);
+            assertUnreadable(withChecksum(forged), "resource count " + count);
+        }
+    }
+
+    @Test
+    void managersFallBackToJsonAndRewriteADamagedSnapshot() throws IOException {
+        Path resources = dir.resolve("resources.snapshot");
+        Path questions = dir.resolve("questions.snapshot");
+        Files.write(resources, new byte[] {0x51, 0x42, 0x53, 0x31, 0, 0, 0, 2, 1, 0x7f});
+        Files.write(questions, "not a snapshot".getBytes());
+
+        ResourceManager fromJson = new ResourceManager("resources_full.json", resources);
+        QuestionBankManager bankFromJson = new QuestionBankManager("suicide_question_bank.json", questions);
+        assertEquals(directory.getTotalResources(), fromJson.getTotalResources());
+        assertEquals(bank.getStatistics().getTotalQuestions(), bankFromJson.getStatistics().getTotalQuestions());
+
+        // The rewritten snapshots are current, and load to the same data
+        ResourceManager fromSnapshot = new ResourceManager("resources_full.json", resources);
+        QuestionBankManager bankFromSnapshot = new QuestionBankManager("suicide_question_bank.json", questions);
+        assertEquals(GSON.toJson(directory.getAllResources()), GSON.toJson(fromSnapshot.getAllResources()));
+        assertEquals(GSON.toJson(bank.getAllQuestions()), GSON.toJson(bankFromSnapshot.getAllQuestions()));
+        for (String term : TERMS) {
+            assertArrayEquals(directory.getMatchIndex().getRankingEngine().relevanceContaining(term),
+                              fromSnapshot.getMatchIndex().getRankingEngine().relevanceContaining(term), term);
+        }
+    }
+
+    @Test
+    void fileFingerprintFollowsSizeAndModificationTime() throws IOException {
+        Path json = Files.write(dir.resolve("data.json"), "[]".getBytes());
+        Path file = dir.resolve("questions.snapshot");
+        DataSnapshot.writeQuestions(file, DataSnapshot.Fingerprint.of(json), new LinkedHashMap<>());
+        assertNotNull(DataSnapshot.readQuestions(file, DataSnapshot.Fingerprint.of(json)));
+
+        Files.write(json, "[ ]".getBytes());
+        assertNull(DataSnapshot.readQuestions(file, DataSnapshot.Fingerprint.of(json)));
+    }
+
+    private Path writeResources() throws IOException {
+        Path file = dir.resolve("resources.snapshot");
+        List<Resource> resources = directory.getAllResources();
+        Map<String, List<Resource>> categoryIndex = new HashMap<>();
+        for (String category : directory.getAllCategories()) {
+            categoryIndex.put(category.toLowerCase(), directory.getResourcesByCategory(category));
+        }
+        Map<String, List<Resource>> countyIndex = new HashMap<>();
+        for (String county : directory.getAllCounties()) {
+            countyIndex.put(county.toLowerCase(), directory.getResourcesByCounty(county));
+        }
+        DataSnapshot.writeResources(file, SOURCE, resources, categoryIndex, countyIndex,
+                                    directory.getAllCategories(), directory.getAllCounties(), directory.getMatchIndex());
+        return file;
+    }
+
+    private void assertUnreadable(byte[] content, String what) throws IOException {
+        Path file = Files.write(dir.resolve("damaged.snapshot"), content);
+        assertNull(DataSnapshot.readResources(file, SOURCE), what);
+    }
+
+    private static byte[] withChecksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content, BODY_OFFSET, content.length - BODY_OFFSET);
+        ByteBuffer.wrap(content).putLong(CRC_OFFSET, crc.getValue());
+        return content;
+    }
+
+    private static Map<String, List<Question>> questionBank() {
+        Map<String, List<Question>> questions = new LinkedHashMap<>();
+        for (String category : bank.getCategories()) {
+            questions.put(category, bank.getQuestionsByCategory(category));
+        }
+        return questions;
+    }
+
+    private static List<Integer> ordinals(List<Resource> resources, List<Resource> postings) {
+        Map<Resource, Integer> positions = new IdentityHashMap<>();
+        for (Resource r : resources) {
+            positions.put(r, positions.size());
+        }
+        List<Integer> ordinals = new ArrayList<>();
+        for (Resource r : postings) {
+            ordinals.add(positions.get(r));
+        }
+        return ordinals;
+    }
+}
@@ -0,0 +1,183 @@
+package com.suicide.questionbank;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Failover and hedging of {@link LLMRouter} against embedded {@code mock://} backends.
+ */
+class LLMRouterTest {
+    private static final String FAST = "mock://local?ttft-ms=0&tokens-per-sec=0";
+    private static final String FAILING = "mock://local?ttft-ms=0&fail-500=1";
+    private static final String HANGING = "mock://local?fail-timeout=1";
+    private static final String SLOW = "mock://local?ttft-ms=3000&tokens-per-sec=0";
+    private static final long HEDGE_AFTER_MS = 100;
+
+    @Test
+    void failsOverWhenTheFirstProviderFails() throws Exception {
+        LLMRouter router = router(0, config(5), FAILING, FAST);
+
+        String answer = router.generateResponseAsync("system", "hello", null).get(10, TimeUnit.SECONDS);
+
+        assertTrue(answer.startsWith("Mock answer to: \"hello\""), answer);
+        assertTrue(provider(router, "a").getErrorRate() > 0);
+        assertEquals(0.0, provider(router, "b").getErrorRate());
+    }
+
+    @Test
+    void failsOverWhenTheFirstProviderTimesOut() throws Exception {
+        LLMRouter router = router(0, config(5), HANGING, FAST);
+
+        String answer = router.generateResponseAsync("system", "hello", null).get(10, TimeUnit.SECONDS);
+
+        assertTrue(answer.startsWith("Mock answer to: \"hello\""), answer);
+        assertTrue(provider(router, "a").getErrorRate() > 0);
+    }
+
+    @Test
+    void reportsTheLastErrorWhenEveryProviderFails() {
+        LLMRouter router = router(0, config(5), FAILING, FAILING);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> router.generateResponseAsync("system", "hello", null).get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof LLMService.ApiException, String.valueOf(e.getCause()));
+        assertEquals(500, ((LLMService.ApiException) e.getCause()).getStatusCode());
+    }
+
+    @Test
+    void skipsAProviderWhoseCircuitIsOpen() throws Exception {
+        // One failure opens a provider's breaker
+        LLMRouter router = router(0, config(1), FAILING, FAST);
+        LLMRouter.Provider first = provider(router, "a");
+
+        router.generateResponseAsync("system", "hello", null).get(10, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.OPEN, first.getService().getCircuitBreaker().getState());
+        double errorRate = first.getErrorRate();
+
+        // Rejected by the open breaker without a call: not a new observation of the provider
+        String answer = router.generateResponseAsync("system", "again", null).get(10, TimeUnit.SECONDS);
+        assertTrue(answer.startsWith("Mock answer to: \"again\""), answer);
+
+        RecordingListener listener = new RecordingListener();
+        assertNotNull(router.streamResponse("system", "streamed", null, listener));
+        String streamed = listener.done.get(10, TimeUnit.SECONDS);
+        assertTrue(streamed.startsWith("Mock answer to: \"streamed\""), streamed);
+
+        assertEquals(errorRate, first.getErrorRate());
+    }
+
+    @Test
+    void hedgesASlowProvider() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LLMRouter router = router(HEDGE_AFTER_MS, config(5), SLOW, FAST);
+        router.setMetrics(new ChatMetrics(registry));
+
+        long start = System.nanoTime();
+        String answer = router.generateResponseAsync("system", "hello", null).get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(answer.startsWith("Mock answer to: \"hello\""), answer);
+        assertTrue(elapsedMillis < 2000, "answered after " + elapsedMillis + "ms");
+        assertEquals(1.0, registry.get("llm.hedges").counter().count());
+        // The slow call lost the race and is cancelled
+        awaitNoOutstandingCalls(provider(router, "a"));
+        assertTrue(provider(router, "a").getLatencyMillis() >= HEDGE_AFTER_MS);
+    }
+
+    @Test
+    void hedgedStreamRelaysOnlyTheFirstProviderToAnswer() throws Exception {
+        LLMRouter router = router(HEDGE_AFTER_MS, config(5), SLOW, FAST);
+
+        RecordingListener listener = new RecordingListener();
+        router.streamResponse("system", "hello", null, listener);
+        String answer = listener.done.get(10, TimeUnit.SECONDS);
+
+        assertTrue(answer.startsWith("Mock answer to: \"hello\""), answer);
+        assertEquals(answer, listener.tokens.toString());
+        awaitNoOutstandingCalls(provider(router, "a"));
+    }
+
+    @Test
+    void cancellingAStreamCancelsEveryProvider() throws Exception {
+        LLMRouter router = router(HEDGE_AFTER_MS, config(5), SLOW, SLOW);
+
+        RecordingListener listener = new RecordingListener();
+        LLMService.StreamHandle handle = router.streamResponse("system", "hello", null, listener);
+        Thread.sleep(HEDGE_AFTER_MS * 3);
+        assertEquals(2, router.getOutstandingCalls());
+
+        handle.cancel();
+
+        awaitNoOutstandingCalls(provider(router, "a"));
+        awaitNoOutstandingCalls(provider(router, "b"));
+        assertFalse(listener.done.isDone());
+    }
+
+    /**
+     * Default HTTP settings with a short read timeout and the given breaker threshold.
+     */
+    private static LLMClientConfig config(int breakerFailureThreshold) {
+        return new LLMClientConfig(1_000, 300, 1_000, 5_000,
+                                   LLMClientConfig.DEFAULT_MAX_IDLE_CONNECTIONS, LLMClientConfig.DEFAULT_KEEP_ALIVE_MS,
+                                   0, true, LLMClientConfig.DEFAULT_MAX_IN_FLIGHT, LLMClientConfig.DEFAULT_MAX_QUEUED,
+                                   breakerFailureThreshold, 30_000, 600_000);
+    }
+
+    /**
+     * Router over providers named a, b, ... in the given order.
+     */
+    private static LLMRouter router(long hedgeAfterMillis, LLMClientConfig config, String... endpoints) {
+        LLMRouter.Provider[] providers = new LLMRouter.Provider[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            LLMService service = new LLMService("not-needed", endpoints[i], "mock", false, null, config);
+            providers[i] = new LLMRouter.Provider(String.valueOf((char) ('a' + i)), service,
+                                                  LLMRouterConfig.DEFAULT_EWMA_ALPHA);
+        }
+        return new LLMRouter(Arrays.asList(providers), hedgeAfterMillis,
+                             LLMRouterConfig.DEFAULT_MAX_ERROR_RATE, LLMRouterConfig.DEFAULT_PROBE_INTERVAL_MS);
+    }
+
+    private static LLMRouter.Provider provider(LLMRouter router, String name) {
+        return router.getProviders().stream()
+            .filter(p -> p.getName().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static void awaitNoOutstandingCalls(LLMRouter.Provider provider) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (provider.getService().getOutstandingCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, provider.getService().getOutstandingCalls(), "calls still running on " + provider.getName());
+    }
+
+    private static class RecordingListener implements LLMService.StreamListener {
+        private final StringBuffer tokens = new StringBuffer();
+        private final CompletableFuture<String> done = new CompletableFuture<>();
+
+        @Override
+        public void onToken(String token) {
+            tokens.append(token);
+        }
+
+        @Override
+        public void onComplete(String fullResponse) {
+            done.complete(fullResponse);
+        }
+
+        @Override
+        public void onError(IOException e) {
+            done.completeExceptionally(e);
+        }
+    }
+}
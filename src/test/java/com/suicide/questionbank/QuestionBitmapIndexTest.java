@@ -0,0 +1,146 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link QuestionBitmapIndex#filter} against the per-question loop it replaced.
+ */
+class QuestionBitmapIndexTest {
+    private static final String[] CATEGORIES = {"rapport", "adolescent", "attempt_in_progress", "substance_use", "missing"};
+    private static final String[] RISK_LEVELS = {"low", "medium", "high", "imminent", "unknown"};
+    private static final String[] TONES = {"gentle", "direct", "curious", "neutral"};
+    private static final Integer[] TIERS = {1, 2, 3, 4};
+
+    @Test
+    void matchesALoopOverEveryQuestionOnRandomBanks() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            Map<String, List<Question>> bank = randomBank(random);
+            QuestionBitmapIndex index = new QuestionBitmapIndex(bank);
+            for (int query = 0; query < 200; query++) {
+                String category = pick(random, CATEGORIES);
+                Integer tier = pick(random, TIERS);
+                String risk = pick(random, RISK_LEVELS);
+                String tone = pick(random, TONES);
+                Boolean afterRapport = random.nextInt(3) == 0 ? null : random.nextBoolean();
+                boolean requireRapport = random.nextInt(4) == 0;
+
+                assertEquals(loop(bank, category, tier, risk, tone, afterRapport, requireRapport),
+                             index.filter(category, tier, risk, tone, afterRapport, requireRapport),
+                             "category=" + category + " tier=" + tier + " risk=" + risk + " tone=" + tone +
+                             " afterRapport=" + afterRapport + " requireRapport=" + requireRapport);
+            }
+        }
+    }
+
+    @Test
+    void matchesALoopOnTheShippedQuestionBank() throws Exception {
+        QuestionBankManager manager = new QuestionBankManager("suicide_question_bank.json");
+        Map<String, List<Question>> bank = new LinkedHashMap<>();
+        for (String category : manager.getCategories()) {
+            bank.put(category, manager.getQuestionsByCategory(category));
+        }
+        QuestionBitmapIndex index = new QuestionBitmapIndex(bank);
+
+        Set<Integer> tiers = new TreeSet<>();
+        Set<String> risks = new TreeSet<>();
+        Set<String> tones = new TreeSet<>();
+        for (List<Question> questions : bank.values()) {
+            for (Question q : questions) {
+                tiers.add(q.getEscalationTier());
+                // Some shipped questions have no risk level or tone
+                if (q.getRiskLevel() != null) {
+                    risks.add(q.getRiskLevel());
+                }
+                if (q.getTone() != null) {
+                    tones.add(q.getTone());
+                }
+            }
+        }
+
+        List<String> categoryValues = new ArrayList<>(bank.keySet());
+        categoryValues.add(null);
+        List<Integer> tierValues = new ArrayList<>(tiers);
+        tierValues.add(null);
+        for (String category : categoryValues) {
+            for (Integer tier : tierValues) {
+                for (Boolean afterRapport : new Boolean[] {null, true, false}) {
+                    assertEquals(loop(bank, category, tier, null, null, afterRapport, false),
+                                 index.filter(category, tier, null, null, afterRapport, false));
+                }
+            }
+        }
+        for (String risk : risks) {
+            for (String tone : tones) {
+                assertEquals(loop(bank, null, null, risk, tone, null, true),
+                             index.filter(null, null, risk, tone, null, true));
+            }
+        }
+        assertEquals(loop(bank, null, null, null, null, null, false), index.filter(null, null, null, null, null, false));
+    }
+
+    @Test
+    void unknownCategoryMatchesNothing() {
+        QuestionBitmapIndex index = new QuestionBitmapIndex(randomBank(new Random(4)));
+        assertTrue(index.filter("no_such_category", null, null, null, null, false).isEmpty());
+    }
+
+    private static Map<String, List<Question>> randomBank(Random random) {
+        Map<String, List<Question>> bank = new LinkedHashMap<>();
+        int id = 1;
+        // "missing" is never added, so queries for it must come back empty
+        for (int c = 0; c < CATEGORIES.length - 1; c++) {
+            int count = random.nextInt(40);
+            List<Question> questions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                questions.add(new Question(id++, "Question " + id, TONES[random.nextInt(TONES.length)],
+                                           RISK_LEVELS[random.nextInt(RISK_LEVELS.length - 1)],
+                                           TIERS[random.nextInt(TIERS.length - 1)], random.nextBoolean(), null));
+            }
+            bank.put(CATEGORIES[c], questions);
+        }
+        return bank;
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return random.nextInt(3) == 0 ? null : values[random.nextInt(values.length)];
+    }
+
+    /**
+     * The filter as QuestionBankManager.filterQuestions ran it before the index, except that a
+     * question without a risk level or tone does not match a filter on it (the loop threw).
+     */
+    private static List<Question> loop(Map<String, List<Question>> bank, String category, Integer escalationTier,
+                                       String riskLevel, String tone, Boolean useAfterRapport, boolean requireRapport) {
+        List<Question> questions = new ArrayList<>();
+        List<String> categories = category != null ? Collections.singletonList(category) : new ArrayList<>(bank.keySet());
+        for (String cat : categories) {
+            if (!bank.containsKey(cat)) {
+                continue;
+            }
+            for (Question question : bank.get(cat)) {
+                if (escalationTier != null && question.getEscalationTier() != escalationTier) {
+                    continue;
+                }
+                if (riskLevel != null && !riskLevel.equals(question.getRiskLevel())) {
+                    continue;
+                }
+                if (tone != null && !tone.equals(question.getTone())) {
+                    continue;
+                }
+                if (useAfterRapport != null && question.isUseAfterRapport() != useAfterRapport) {
+                    continue;
+                }
+                if (requireRapport && !question.isUseAfterRapport()) {
+                    continue;
+                }
+                questions.add(question);
+            }
+        }
+        return questions;
+    }
+}
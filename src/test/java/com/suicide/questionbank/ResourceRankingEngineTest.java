@@ -0,0 +1,114 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity of {@link ResourceRankingEngine} with the per-resource reference
+ * {@link SPCchatbotDemo#matchScore(ResourceMatchIndex.Entry, SPCchatbotDemo.ExtractedContext)}
+ * over the shipped resource directory.
+ */
+class ResourceRankingEngineTest {
+    private static final int TOP_K = 3;
+
+    private static final String[] TRANSCRIPTS = {
+        "I feel suicidal and I don't know who to call",
+        "My partner hurt me again, I need to get out of this violent home",
+        "I'm homeless in Nashville and have nowhere to go tonight",
+        "My son is 16 years old and struggling with drugs and alcohol",
+        "I lost someone last month and the grief is too much",
+        "I'm a veteran, I have no insurance and no car",
+        "I'm a teen girl and I think I'm trans, can I talk to someone in spanish",
+        "I'm in danger right now, I have a gun",
+        "My wife passed away and I live in Williamson county",
+        "single mom, can't afford therapy, need help with my daughter",
+        "hello",
+        "",
+    };
+
+    private static ResourceMatchIndex index;
+
+    @BeforeAll
+    static void loadDirectory() throws IOException {
+        index = new ResourceManager("resources_full.json").getMatchIndex();
+    }
+
+    @Test
+    void scoresEqualMatchScore() {
+        for (String transcript : TRANSCRIPTS) {
+            SPCchatbotDemo.ExtractedContext extracted = SPCchatbotDemo.extractNeedsAndContext(transcript);
+            List<ResourceMatchIndex.Entry> entries = index.getEntries();
+            int[] scores = index.getRankingEngine().score(entries, extracted);
+            for (int i = 0; i < entries.size(); i++) {
+                assertEquals(SPCchatbotDemo.matchScore(entries.get(i), extracted), scores[i],
+                             "score of " + entries.get(i).getResource().getName() + " for \"" + transcript + "\"");
+            }
+        }
+    }
+
+    @Test
+    void topResourcesEqualMatchScoreWithAStableSort() {
+        for (String transcript : TRANSCRIPTS) {
+            SPCchatbotDemo.ExtractedContext extracted = SPCchatbotDemo.extractNeedsAndContext(transcript);
+            List<ResourceMatchIndex.Entry> candidates = SPCchatbotDemo.filterEntries(index, extracted.getContext());
+            int emergencies = 0;
+            if (extracted.getContext().getOrDefault("imminentRisk", false).equals(true)) {
+                emergencies = 2;
+                candidates = candidates.stream()
+                    .filter(e -> !e.mentions911() && !e.mentions988())
+                    .collect(Collectors.toList());
+            }
+            List<ResourceMatchIndex.Entry> expected = new ArrayList<>(candidates);
+            expected.sort(Comparator.comparingInt(
+                (ResourceMatchIndex.Entry e) -> SPCchatbotDemo.matchScore(e, extracted)).reversed());
+            expected = expected.subList(0, Math.min(TOP_K, expected.size()));
+
+            List<SPCchatbotDemo.TopResource> top = SPCchatbotDemo.getTopResources(transcript, index).getTopResources();
+            List<SPCchatbotDemo.Resource> ranked = top.subList(emergencies, top.size()).stream()
+                .map(SPCchatbotDemo.TopResource::getResource)
+                .collect(Collectors.toList());
+            assertEquals(expected.stream().map(ResourceMatchIndex.Entry::getResource).collect(Collectors.toList()),
+                         ranked, "top resources for \"" + transcript + "\"");
+        }
+    }
+
+    @Test
+    void containmentLookupsEqualAScanOfEveryResource() {
+        Random random = new Random(42);
+        List<String> terms = new ArrayList<>(Arrays.asList(
+            "teen", "female", "male", "veteran", "lgbtq+", "suicidal ideation", "suicidalideation",
+            "domestic violence", "substance use", "a", "e", "ie", "zzz", "", " ", "+", "24/7"));
+        List<ResourceMatchIndex.Entry> entries = index.getEntries();
+        for (int i = 0; i < 500; i++) {
+            // Random slices of real text, so most terms hit and many cross word boundaries
+            String text = entries.get(random.nextInt(entries.size())).getRelevanceText();
+            if (text == null || text.isEmpty()) {
+                continue;
+            }
+            int start = random.nextInt(text.length());
+            terms.add(text.substring(start, Math.min(text.length(), start + 1 + random.nextInt(12))));
+        }
+
+        ResourceRankingEngine engine = index.getRankingEngine();
+        for (String term : terms) {
+            assertArrayEquals(scan(entries, term, false), engine.relevanceContaining(term), "relevance: \"" + term + "\"");
+            assertArrayEquals(scan(entries, term, true), engine.eligibilityContaining(term), "eligibility: \"" + term + "\"");
+        }
+    }
+
+    private static int[] scan(List<ResourceMatchIndex.Entry> entries, String term, boolean eligibility) {
+        return entries.stream()
+            .filter(e -> {
+                String text = eligibility ? e.getEligibilityText() : e.getRelevanceText();
+                return text != null && text.contains(term);
+            })
+            .mapToInt(ResourceMatchIndex.Entry::getOrdinal)
+            .toArray();
+    }
+}
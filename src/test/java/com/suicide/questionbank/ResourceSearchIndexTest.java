@@ -0,0 +1,184 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link ResourceSearchIndex} against the linear scans ResourceManager ran before it.
+ */
+class ResourceSearchIndexTest {
+    private static final String[] WORDS = {
+        "Crisis", "crisis", "CENTER", "Center", "line", "Nashville", "Davidson", "Williamson", "Sumner",
+        "Mental Health", "youth", "Veterans", "24/7", "Shelter", "food", "é", "Ünited", "a", "", " ",
+    };
+
+    @Test
+    void matchesTheScansOnTheShippedDirectory() throws IOException {
+        List<Resource> resources = new ResourceManager("resources_full.json").getAllResources();
+        ResourceSearchIndex index = new ResourceSearchIndex(resources);
+        Random random = new Random(17);
+
+        List<String> queries = new ArrayList<>(Arrays.asList(WORDS));
+        for (int i = 0; i < 1500; i++) {
+            queries.add(slice(random, someText(random, resources)));
+        }
+        List<String> counties = new ArrayList<>(Arrays.asList("davidson", "SUMNER", "son", "zzz", null, ""));
+        List<String> categories = new ArrayList<>(Arrays.asList("health", "Crisis", "e", "zzz", null, ""));
+        for (Resource r : resources) {
+            if (r.getCategories() != null && !r.getCategories().isEmpty() && random.nextInt(10) == 0) {
+                categories.add(slice(random, r.getCategories().get(0)));
+            }
+        }
+
+        for (String query : queries) {
+            assertEquals(searchByName(resources, query), index.searchByName(query), "name: \"" + query + "\"");
+            assertEquals(searchByDescription(resources, query), index.searchByDescription(query),
+                         "description: \"" + query + "\"");
+            String category = categories.get(random.nextInt(categories.size()));
+            String county = counties.get(random.nextInt(counties.size()));
+            String term = random.nextInt(4) == 0 ? null : query;
+            assertEquals(filter(resources, category, county, term), index.filter(category, county, term),
+                         "filter: " + category + " / " + county + " / \"" + term + "\"");
+        }
+    }
+
+    @Test
+    void matchesTheScansOnRandomDirectories() {
+        Random random = new Random(18);
+        for (int round = 0; round < 40; round++) {
+            List<Resource> resources = randomDirectory(random);
+            ResourceSearchIndex index = new ResourceSearchIndex(resources);
+            for (int query = 0; query < 200; query++) {
+                String term = randomQuery(random);
+                String category = random.nextInt(3) == 0 ? null : randomQuery(random);
+                String county = random.nextInt(3) == 0 ? null : randomQuery(random);
+
+                assertEquals(searchByName(resources, term), index.searchByName(term), "name: \"" + term + "\"");
+                assertEquals(searchByDescription(resources, term), index.searchByDescription(term),
+                             "description: \"" + term + "\"");
+                assertEquals(filter(resources, category, county, term), index.filter(category, county, term),
+                             "filter: " + category + " / " + county + " / \"" + term + "\"");
+            }
+        }
+    }
+
+    @Test
+    void emptyCriteriaMatchEverything() {
+        List<Resource> resources = randomDirectory(new Random(19));
+        ResourceSearchIndex index = new ResourceSearchIndex(resources);
+        assertEquals(resources, index.filter(null, "", null));
+    }
+
+    private static String someText(Random random, List<Resource> resources) {
+        Resource r = resources.get(random.nextInt(resources.size()));
+        String text = random.nextBoolean() ? r.getName() : r.getDescription();
+        return text != null ? text : "";
+    }
+
+    /** A random piece of the text, sometimes upper-cased, so most queries hit something. */
+    private static String slice(Random random, String text) {
+        if (text.isEmpty()) {
+            return text;
+        }
+        int start = random.nextInt(text.length());
+        String slice = text.substring(start, Math.min(text.length(), start + 1 + random.nextInt(10)));
+        return random.nextInt(3) == 0 ? slice.toUpperCase() : slice;
+    }
+
+    private static List<Resource> randomDirectory(Random random) {
+        List<Resource> resources = new ArrayList<>();
+        int count = random.nextInt(60);
+        for (int i = 0; i < count; i++) {
+            Resource r = new Resource();
+            r.setName(random.nextInt(8) == 0 ? null : randomText(random));
+            r.setDescription(random.nextInt(8) == 0 ? null : randomText(random) + " " + randomText(random));
+            if (random.nextInt(6) != 0) {
+                List<String> categories = new ArrayList<>();
+                for (int c = random.nextInt(3); c >= 0; c--) {
+                    categories.add(random.nextInt(10) == 0 ? null : randomText(random));
+                }
+                r.setCategories(categories);
+            }
+            if (random.nextInt(6) != 0) {
+                Resource.ServiceArea area = new Resource.ServiceArea();
+                if (random.nextInt(4) != 0) {
+                    List<String> counties = new ArrayList<>();
+                    for (int c = random.nextInt(3); c >= 0; c--) {
+                        counties.add(randomText(random));
+                    }
+                    area.setCoverageByCounty(counties);
+                }
+                r.setServiceArea(area);
+            }
+            resources.add(r);
+        }
+        return resources;
+    }
+
+    /** Text over a tiny alphabet, so that grams repeat and collide. */
+    private static String randomText(Random random) {
+        String alphabet = "abAB c-é";
+        StringBuilder sb = new StringBuilder();
+        for (int i = random.nextInt(12); i >= 0; i--) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String randomQuery(Random random) {
+        String query = randomText(random);
+        return query.substring(0, Math.min(query.length(), random.nextInt(6)));
+    }
+
+    // The scans as ResourceManager ran them before the index
+
+    private static List<Resource> searchByName(List<Resource> resources, String query) {
+        String lowerQuery = query.toLowerCase();
+        return resources.stream()
+            .filter(r -> r.getName() != null && r.getName().toLowerCase().contains(lowerQuery))
+            .collect(Collectors.toList());
+    }
+
+    private static List<Resource> searchByDescription(List<Resource> resources, String query) {
+        String lowerQuery = query.toLowerCase();
+        return resources.stream()
+            .filter(r -> r.getDescription() != null && r.getDescription().toLowerCase().contains(lowerQuery))
+            .collect(Collectors.toList());
+    }
+
+    private static List<Resource> filter(List<Resource> resources, String category, String county, String searchTerm) {
+        return resources.stream()
+            .filter(r -> {
+                if (category != null && !category.isEmpty()) {
+                    String lowerCategory = category.toLowerCase();
+                    if (r.getCategories() == null ||
+                        !r.getCategories().stream()
+                            .anyMatch(cat -> cat != null && cat.toLowerCase().contains(lowerCategory))) {
+                        return false;
+                    }
+                }
+                if (county != null && !county.isEmpty()) {
+                    if (r.getServiceArea() == null || r.getServiceArea().getCoverageByCounty() == null ||
+                        !r.getServiceArea().getCoverageByCounty().stream()
+                            .anyMatch(c -> c.toLowerCase().contains(county.toLowerCase()))) {
+                        return false;
+                    }
+                }
+                if (searchTerm != null && !searchTerm.isEmpty()) {
+                    String lowerTerm = searchTerm.toLowerCase();
+                    boolean matches = (r.getName() != null && r.getName().toLowerCase().contains(lowerTerm)) ||
+                                     (r.getDescription() != null && r.getDescription().toLowerCase().contains(lowerTerm));
+                    if (!matches) {
+                        return false;
+                    }
+                }
+                return true;
+            })
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,206 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ranking and de-duplication of {@link ResourceSuggestIndex} against a brute-force ranking of
+ * every value.
+ */
+class ResourceSuggestIndexTest {
+    private static final String[] WORDS = {"crisis", "Crisis", "line", "center", "nash", "Nashville", "c", "24/7", "-", "é"};
+
+    @Test
+    void matchesABruteForceRankingOnTheShippedDirectory() throws IOException {
+        List<Resource> resources = new ResourceManager("resources_full.json").getAllResources();
+        ResourceSuggestIndex index = new ResourceSuggestIndex(resources);
+        Random random = new Random(21);
+
+        List<String> prefixes = new ArrayList<>(Arrays.asList("a", "c", "cr", "crisis", "DAVIDSON", "  nash ", "the", "zzz", "1"));
+        for (int i = 0; i < 500; i++) {
+            Resource r = resources.get(random.nextInt(resources.size()));
+            String name = r.getName() != null ? r.getName() : "";
+            if (name.isEmpty()) {
+                continue;
+            }
+            int start = random.nextInt(name.length());
+            prefixes.add(name.substring(start, Math.min(name.length(), start + 1 + random.nextInt(8))));
+        }
+        for (String prefix : prefixes) {
+            for (int limit : new int[] {1, 10, 50}) {
+                assertEquals(bruteForce(resources, prefix, limit), describe(index.suggest(prefix, limit)),
+                             "\"" + prefix + "\" limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void matchesABruteForceRankingOnRandomDirectories() {
+        Random random = new Random(22);
+        for (int round = 0; round < 100; round++) {
+            List<Resource> resources = new ArrayList<>();
+            for (int i = random.nextInt(30); i >= 0; i--) {
+                Resource r = new Resource();
+                r.setName(random.nextInt(10) == 0 ? null : phrase(random));
+                List<String> categories = new ArrayList<>();
+                for (int c = random.nextInt(3); c > 0; c--) {
+                    categories.add(random.nextInt(10) == 0 ? " " : phrase(random));
+                }
+                r.setCategories(categories);
+                Resource.ServiceArea area = new Resource.ServiceArea();
+                area.setCoverageByCounty(Arrays.asList(phrase(random), phrase(random)));
+                r.setServiceArea(area);
+                resources.add(r);
+            }
+            ResourceSuggestIndex index = new ResourceSuggestIndex(resources);
+            for (int query = 0; query < 50; query++) {
+                String prefix = phrase(random);
+                prefix = prefix.substring(0, 1 + random.nextInt(prefix.length()));
+                int limit = 1 + random.nextInt(8);
+                assertEquals(bruteForce(resources, prefix, limit), describe(index.suggest(prefix, limit)),
+                             "\"" + prefix + "\" limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void eachValueIsSuggestedOnceFromItsBestMatch() {
+        Resource repeated = resource("Crisis Crisis Line", "crisis", "Davidson");
+        Resource other = resource("Line for Crisis", "crisis", "Davidson");
+        ResourceSuggestIndex index = new ResourceSuggestIndex(Arrays.asList(repeated, other));
+
+        List<String> suggestions = describe(index.suggest("crisis", 10));
+        assertEquals(Arrays.asList("category:crisis:2", "resource:Crisis Crisis Line:0", "resource:Line for Crisis:1"),
+                     suggestions);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordMatches() {
+        ResourceSuggestIndex index = new ResourceSuggestIndex(Arrays.asList(
+            resource("Line", "Hotline", "Lincoln"),
+            resource("Crisis Line", "Lines of Support", "Davidson"),
+            resource("Linear", "Line", "Sumner")));
+
+        assertEquals(Arrays.asList(
+            "category:Line:1", "resource:Line:0",
+            "category:Lines of Support:1", "resource:Linear:2",
+            "resource:Crisis Line:1"),
+            describe(index.suggest("line", 10)));
+        assertEquals(Arrays.asList("category:Line:1", "resource:Line:0"), describe(index.suggest(" LINE ", 2)));
+    }
+
+    @Test
+    void blankPrefixesAndLimitsSuggestNothing() {
+        ResourceSuggestIndex index = new ResourceSuggestIndex(Collections.singletonList(resource("Crisis Line", "crisis", "Davidson")));
+        assertTrue(index.suggest(null, 10).isEmpty());
+        assertTrue(index.suggest("   ", 10).isEmpty());
+        assertTrue(index.suggest("crisis", 0).isEmpty());
+    }
+
+    private static Resource resource(String name, String category, String county) {
+        Resource r = new Resource();
+        r.setName(name);
+        r.setCategories(Collections.singletonList(category));
+        Resource.ServiceArea area = new Resource.ServiceArea();
+        area.setCoverageByCounty(Collections.singletonList(county));
+        r.setServiceArea(area);
+        return r;
+    }
+
+    private static String phrase(Random random) {
+        StringBuilder sb = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            sb.append(random.nextBoolean() ? " " : "-").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static List<String> describe(List<ResourceSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream()
+            .map(s -> s.getType() + ":" + s.getName() + ":" +
+                      (ResourceSuggestIndex.RESOURCE.equals(s.getType()) ? s.getId() : s.getCount()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Rank every value directly: exact match, then value prefix, then a later word starting with
+     * the prefix; within a rank categories, counties, resources, then shorter and alphabetical.
+     */
+    private static List<String> bruteForce(List<Resource> resources, String prefix, int limit) {
+        String lower = prefix.trim().toLowerCase();
+        if (lower.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Values in the index's own order: resources, then sorted categories, then sorted counties
+        List<String[]> values = new ArrayList<>();
+        Map<String, Integer> categories = new TreeMap<>();
+        Map<String, Integer> counties = new TreeMap<>();
+        for (int ordinal = 0; ordinal < resources.size(); ordinal++) {
+            Resource r = resources.get(ordinal);
+            if (r.getName() != null && !r.getName().trim().isEmpty()) {
+                values.add(new String[] {ResourceSuggestIndex.RESOURCE, r.getName(), String.valueOf(ordinal)});
+            }
+            count(categories, r.getCategories());
+            count(counties, r.getServiceArea() != null ? r.getServiceArea().getCoverageByCounty() : null);
+        }
+        categories.forEach((name, n) -> values.add(new String[] {ResourceSuggestIndex.CATEGORY, name, String.valueOf(n)}));
+        counties.forEach((name, n) -> values.add(new String[] {ResourceSuggestIndex.COUNTY, name, String.valueOf(n)}));
+
+        List<Integer> matches = new ArrayList<>();
+        Map<Integer, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i)[1].trim().toLowerCase();
+            int rank;
+            if (value.equals(lower)) {
+                rank = 0;
+            } else if (value.startsWith(lower)) {
+                rank = 1;
+            } else if (startsAWord(value, lower)) {
+                rank = 2;
+            } else {
+                continue;
+            }
+            matches.add(i);
+            ranks.put(i, rank);
+        }
+        List<String> types = Arrays.asList(ResourceSuggestIndex.CATEGORY, ResourceSuggestIndex.COUNTY, ResourceSuggestIndex.RESOURCE);
+        matches.sort(Comparator
+            .comparingInt((Integer i) -> ranks.get(i))
+            .thenComparingInt(i -> types.indexOf(values.get(i)[0]))
+            .thenComparingInt(i -> values.get(i)[1].trim().toLowerCase().length())
+            .thenComparing(i -> values.get(i)[1].trim().toLowerCase())
+            .thenComparingInt(i -> i));
+
+        return matches.stream()
+            .limit(limit)
+            .map(i -> values.get(i)[0] + ":" + values.get(i)[1] + ":" + values.get(i)[2])
+            .collect(Collectors.toList());
+    }
+
+    private static boolean startsAWord(String value, String prefix) {
+        for (int at = 1; at < value.length(); at++) {
+            if (Character.isLetterOrDigit(value.charAt(at)) && !Character.isLetterOrDigit(value.charAt(at - 1)) &&
+                value.startsWith(prefix, at)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void count(Map<String, Integer> counts, List<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : new LinkedHashSet<>(values)) {
+            if (value != null && !value.trim().isEmpty()) {
+                counts.merge(value, 1, Integer::sum);
+            }
+        }
+    }
+}
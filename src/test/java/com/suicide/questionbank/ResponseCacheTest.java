@@ -0,0 +1,67 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keys and expiry of {@link ResponseCache}.
+ */
+class ResponseCacheTest {
+
+    @Test
+    void turnsWithNothingExtractedAreNotCached() {
+        String[] messages = {
+            "hello",
+            "Can you give me the number for the crisis text line?",
+            "What should I say next?",
+        };
+        for (String message : messages) {
+            SPCchatbotDemo.ExtractedContext extracted = SPCchatbotDemo.extractNeedsAndContext(message);
+            assertTrue(extracted.getNeeds().isEmpty() && extracted.getContext().isEmpty(), message);
+            assertNull(key(message), message);
+        }
+
+        ResponseCache cache = new ResponseCache(10, 60_000);
+        cache.put(key("hello"), "Hi, how can I help?");
+        assertNull(cache.get(key("What should I say next?")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void differentMessagesWithTheSameSituationDoNotShareAnEntry() {
+        String first = "I feel suicidal";
+        String second = "My friend said she is suicidal, what do I do";
+        assertEquals(SPCchatbotDemo.extractNeedsAndContext(first).getNeeds(),
+                     SPCchatbotDemo.extractNeedsAndContext(second).getNeeds());
+
+        ResponseCache cache = new ResponseCache(10, 60_000);
+        cache.put(key(first), "answer to the first message");
+        assertNull(cache.get(key(second)));
+        assertEquals("answer to the first message", cache.get(key(first)));
+    }
+
+    @Test
+    void caseSpacingAndPunctuationDoNotChangeTheKey() {
+        assertNotNull(key("I feel suicidal"));
+        assertEquals(key("I feel suicidal"), key("  i FEEL   suicidal!! "));
+        assertNotEquals(key("I feel suicidal"), key("I feel suicidal today"));
+    }
+
+    @Test
+    void expiredResponsesAreNotServed() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(10, 20);
+        cache.put(key("I feel suicidal"), "answer");
+        Thread.sleep(50);
+        assertNull(cache.get(key("I feel suicidal")));
+    }
+
+    private static String key(String message) {
+        List<Resource> resources = Collections.emptyList();
+        List<Question> questions = Collections.emptyList();
+        return ResponseCache.keyFor(message, SPCchatbotDemo.extractNeedsAndContext(message), resources, questions);
+    }
+}
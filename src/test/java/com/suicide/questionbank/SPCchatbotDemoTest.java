@@ -0,0 +1,183 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link SPCchatbotDemo#extractNeedsAndContext(String)} (single-pass keyword scanner) against the
+ * keyword-by-keyword extraction it replaced.
+ */
+class SPCchatbotDemoTest {
+
+    /** Keywords, near misses and filler that random transcripts are assembled from. */
+    private static final String[] FRAGMENTS = {
+        "suicidal", "want to end my life", "kill myself", "suicide", "can't go on",
+        "abuse", "hit me", "violent home", "partner hurt", "domestic", "beaten",
+        "homeless", "no place to stay", "nowhere to go", "live on the street",
+        "drugs", "addiction", "alcohol", "overdose", "substance", "drinking problem",
+        "loss", "passed away", "grief", "mourning", "lost someone",
+        "immediate danger", "in danger", "hurt myself", "going to do it now", "can't keep myself safe", "gun", "knife",
+        "16 years old", "9yo", "16 yo", "42 you", "7years old", "123 years old", "years old", "yo", "you", "your",
+        "beyond", "teen", "teenager", "2", "30",
+        "woman", "female", "girl", "man", "male", "boy", "human",
+        "veteran", "lgbt", "gay", "lesbian", "trans", "transport",
+        "single mother", "single mom", "child", "children", "son", "daughter", "reason",
+        "no car", "can't drive", "bus only", "no transportation", "no money", "can't afford", "broke",
+        "no insurance", "uninsured", "spanish", "urgent", "now", "know", "immediately",
+        "davidson", "nashville", "williamson", "sumner", "rutherford", "robertson",
+        "nashvilleans", "davidsons", "sumner_county", "(rutherford)", "robertson's", "williamson2", "é-sumner",
+        "Nashville", "DAVIDSON", "hello", "I", "feel", "okay", "please", "help", "the", "and", "today",
+    };
+
+    private static final String[] SEPARATORS = {" ", " ", " ", "", ", ", ". ", "-", "'", "  "};
+
+    private static final Pattern DAVIDSON = Pattern.compile(".*\\b(davidson|nashville)\\b.*");
+    private static final Pattern OUTSIDE_DAVIDSON = Pattern.compile(".*\\b(williamson|sumner|rutherford|robertson)\\b.*");
+
+    @Test
+    void matchesTheBaselineOnSingleLineTranscripts() {
+        for (String transcript : transcripts(new Random(11), 5000, false)) {
+            assertSameExtraction(baseline(transcript, false), transcript);
+        }
+    }
+
+    @Test
+    void findsCountiesAcrossLineBreaks() {
+        // The baseline county regexes could not match across a line break ('.' stops at '\n');
+        // the scanner reads every line, so it agrees with the baseline run in DOTALL mode
+        for (String transcript : transcripts(new Random(12), 2000, true)) {
+            assertSameExtraction(baseline(transcript, true), transcript);
+        }
+    }
+
+    @Test
+    void countyNamesMatchOnlyAsWholeWords() {
+        assertEquals("Davidson", location("I live in Nashville"));
+        assertEquals("Davidson", location("davidson, tn"));
+        assertEquals("Middle TN Outside Davidson", location("near\nSumner county"));
+        assertNull(location("the nashvilleans"));
+        assertNull(location("sumner_county"));
+        assertNull(location("williamson2"));
+    }
+
+    @Test
+    void statesAgeOnlyWithADigit() {
+        assertEquals(16, SPCchatbotDemo.extractNeedsAndContext("I am 16yo").getContext().get("age"));
+        assertEquals(16, SPCchatbotDemo.extractNeedsAndContext("16 years old").getContext().get("age"));
+        assertNull(SPCchatbotDemo.extractNeedsAndContext("are you beyond help, yo").getContext().get("age"));
+        assertTrue(SPCchatbotDemo.mayStateAge(SPCchatbotDemo.keywordScanner().scan("age 9 yo")));
+        assertFalse(SPCchatbotDemo.mayStateAge(SPCchatbotDemo.keywordScanner().scan("can you help your friend")));
+    }
+
+    private static Object location(String transcript) {
+        return SPCchatbotDemo.extractNeedsAndContext(transcript).getContext().get("location");
+    }
+
+    private static void assertSameExtraction(SPCchatbotDemo.ExtractedContext expected, String transcript) {
+        SPCchatbotDemo.ExtractedContext actual = SPCchatbotDemo.extractNeedsAndContext(transcript);
+        assertEquals(expected.getNeeds(), actual.getNeeds(), "needs of \"" + transcript + "\"");
+        assertEquals(expected.getContext(), actual.getContext(), "context of \"" + transcript + "\"");
+    }
+
+    private static List<String> transcripts(Random random, int count, boolean multiLine) {
+        List<String> transcripts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = random.nextInt(12);
+            for (int p = 0; p < parts; p++) {
+                if (p > 0) {
+                    sb.append(multiLine && random.nextInt(3) == 0 ? "\n" : SEPARATORS[random.nextInt(SEPARATORS.length)]);
+                }
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            transcripts.add(sb.toString());
+        }
+        return transcripts;
+    }
+
+    /**
+     * The extraction as it was before the keyword scanner: one contains() per keyword, the age
+     * regex on every transcript and String.matches for counties. With dotAll the county
+     * patterns also match across line breaks.
+     */
+    private static SPCchatbotDemo.ExtractedContext baseline(String transcript, boolean dotAll) {
+        SPCchatbotDemo.ExtractedContext extracted = new SPCchatbotDemo.ExtractedContext();
+        String lc = transcript.toLowerCase();
+
+        Map<String, List<String>> crisisTypes = new HashMap<>();
+        crisisTypes.put("suicidal ideation", Arrays.asList("suicidal", "want to end my life", "kill myself", "suicide", "can't go on"));
+        crisisTypes.put("domestic violence", Arrays.asList("abuse", "hit me", "violent home", "partner hurt", "domestic", "beaten"));
+        crisisTypes.put("homelessness", Arrays.asList("homeless", "no place to stay", "nowhere to go", "live on the street"));
+        crisisTypes.put("substance use", Arrays.asList("drugs", "addiction", "alcohol", "overdose", "substance", "drinking problem"));
+        crisisTypes.put("grief", Arrays.asList("loss", "passed away", "grief", "mourning", "lost someone"));
+        crisisTypes.put("imminent risk", Arrays.asList("immediate danger", "in danger", "hurt myself", "going to do it now", "can't keep myself safe", "overdose", "gun", "knife"));
+
+        for (Map.Entry<String, List<String>> entry : crisisTypes.entrySet()) {
+            String type = entry.getKey();
+            for (String keyword : entry.getValue()) {
+                if (lc.contains(keyword)) {
+                    extracted.getNeeds().add(type);
+                    if (type.equals("imminent risk")) {
+                        extracted.getContext().put("imminentRisk", true);
+                    }
+                    break;
+                }
+            }
+        }
+
+        java.util.regex.Matcher ageMatcher = Pattern.compile("(\\d{1,2})\\s*(years old|yo)").matcher(lc);
+        if (ageMatcher.find()) {
+            extracted.getContext().put("age", Integer.parseInt(ageMatcher.group(1)));
+        } else if (lc.contains("teen")) {
+            extracted.getContext().put("ageGroup", "teen");
+        }
+
+        if (lc.contains("woman") || lc.contains("female") || lc.contains("girl")) {
+            extracted.getContext().put("gender", "female");
+        } else if (lc.contains("man") || lc.contains("male") || lc.contains("boy")) {
+            extracted.getContext().put("gender", "male");
+        }
+
+        if (lc.contains("veteran")) extracted.getContext().put("demographic", "veteran");
+        if (lc.contains("lgbt") || lc.contains("gay") || lc.contains("lesbian") || lc.contains("trans")) {
+            extracted.getContext().put("demographic", "lgbtq+");
+        }
+
+        if (lc.contains("single mother") || lc.contains("single mom")) {
+            extracted.getContext().put("family", "single mother");
+        }
+        if (lc.contains("child") || lc.contains("children") || lc.contains("son") || lc.contains("daughter")) {
+            extracted.getContext().put("hasChildren", true);
+        }
+
+        if (lc.contains("no car") || lc.contains("can't drive") || lc.contains("bus only") || lc.contains("no transportation")) {
+            extracted.getContext().put("transportation", "limited");
+        }
+        if (lc.contains("no money") || lc.contains("can't afford") || lc.contains("broke") || lc.contains("no insurance") || lc.contains("uninsured")) {
+            extracted.getContext().put("costSensitive", true);
+        }
+
+        if (countyMatch(DAVIDSON, lc, dotAll)) {
+            extracted.getContext().put("location", "Davidson");
+        }
+        if (countyMatch(OUTSIDE_DAVIDSON, lc, dotAll)) {
+            extracted.getContext().put("location", "Middle TN Outside Davidson");
+        }
+        if (lc.contains("spanish")) extracted.getContext().put("language", "spanish");
+
+        if (lc.contains("urgent") || lc.contains("now") || lc.contains("immediately") ||
+            extracted.getContext().getOrDefault("imminentRisk", false).equals(true)) {
+            extracted.getContext().put("urgency", "immediate");
+        }
+
+        return extracted;
+    }
+
+    private static boolean countyMatch(Pattern pattern, String lc, boolean dotAll) {
+        return dotAll ? Pattern.compile(pattern.pattern(), Pattern.DOTALL).matcher(lc).matches() : pattern.matcher(lc).matches();
+    }
+}
@@ -0,0 +1,56 @@
+package com.suicide.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link TopKSelector} against a full stable descending sort.
+ */
+class TopKSelectorTest {
+
+    @Test
+    void matchesAStableSortOnRandomScores() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            int n = random.nextInt(60);
+            // A narrow score range forces many ties
+            int range = 1 + random.nextInt(round % 2 == 0 ? 5 : 1000);
+            int[] scores = new int[n];
+            for (int i = 0; i < n; i++) {
+                scores[i] = random.nextInt(range) - range / 2;
+            }
+            int k = random.nextInt(n + 3) - 1;
+
+            assertArrayEquals(stableTopK(scores, k), TopKSelector.select(scores, k),
+                              "k=" + k + " scores=" + Arrays.toString(scores));
+        }
+    }
+
+    @Test
+    void keepsTheEarlierPositionOnTies() {
+        assertArrayEquals(new int[] {1, 3, 0}, TopKSelector.select(new int[] {2, 5, 2, 5, 2}, 3));
+    }
+
+    @Test
+    void handlesEmptyAndOutOfRangeK() {
+        assertArrayEquals(new int[0], TopKSelector.select(new int[0], 3));
+        assertArrayEquals(new int[0], TopKSelector.select(new int[] {1, 2}, 0));
+        assertArrayEquals(new int[0], TopKSelector.select(new int[] {1, 2}, -1));
+        assertArrayEquals(new int[] {1, 0}, TopKSelector.select(new int[] {1, 2}, 10));
+    }
+
+    private static int[] stableTopK(int[] scores, int k) {
+        return IntStream.range(0, scores.length)
+            .boxed()
+            .sorted(Comparator.comparingInt((Integer i) -> scores[i]).reversed())
+            .limit(Math.max(k, 0))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+}